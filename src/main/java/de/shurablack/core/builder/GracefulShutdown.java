@@ -0,0 +1,131 @@
+package de.shurablack.core.builder;
+
+import de.shurablack.core.scheduling.Dispatcher;
+import de.shurablack.sql.ConnectionPool;
+import de.shurablack.sql.CounterBuffer;
+import de.shurablack.sql.SQLRequest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * The GracefulShutdown class stops the application in phases, so running tasks arent interrupted
+ * in the middle of a database write.
+ * <br><br>
+ * The phases run in order and each is timed and logged:
+ * <ol>
+ *     <li>events: the listeners get removed from the gateway, so no new events are dispatched</li>
+ *     <li>scheduling: cron triggers, durable jobs and delayed tasks stop</li>
+ *     <li>drain: the dispatched tasks and cron runs, then the asynchronous requests get "shutdown_timeout" seconds
+ *     to finish</li>
+ *     <li>flush: the counter buffers and the write spool are written</li>
+ *     <li>interrupt: the tasks, which didnt finish until the deadline, are interrupted</li>
+ *     <li>close: the exit task runs, the connection pool and the gateway connection are closed</li>
+ * </ol>
+ * The exit command and the shutdown hook share the shutdown, so it only runs once.
+ * </p>
+ *
+ * @version core-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+final class GracefulShutdown {
+
+    /** Class Logger */
+    private static final Logger LOGGER = LogManager.getLogger(GracefulShutdown.class);
+
+    /** Indicates whether the application got shut down already */
+    private static boolean DONE = false;
+
+    private GracefulShutdown() { }
+
+    /**
+     * Shuts the application down, unless it got shut down already. A concurrent call waits until the shutdown finished
+     * @param stopEvents removes the event listeners of the gateway
+     * @param onExit the exit task of the application or null
+     * @param pool the connection pool or null
+     * @param closeClient closes the gateway connection
+     */
+    static synchronized void run(final Runnable stopEvents, final Runnable onExit, final ConnectionPool pool,
+                                 final Runnable closeClient) {
+        if (DONE) {
+            return;
+        }
+        DONE = true;
+        LOGGER.info("Application gets terminated ...");
+        final long begin = System.nanoTime();
+        final long deadline = begin + Dispatcher.getShutdownTimeout().toNanos();
+
+        phase("events", stopEvents);
+        phase("scheduling", Dispatcher::stopScheduling);
+        phase("drain", () -> {
+            // the draining tasks may still start asynchronous requests, so the request executor is shut down after them
+            final boolean drained = Dispatcher.drain(deadline);
+            final ThreadPoolExecutor requests = SQLRequest.getExecutor();
+            if (requests != null) {
+                requests.shutdown();
+            }
+            if (!(drained & awaitTermination(requests, deadline))) {
+                LOGGER.warn("Tasks are still running after the shutdown timeout of {}s",
+                        Dispatcher.getShutdownTimeout().getSeconds());
+            }
+        });
+        phase("flush", () -> {
+            CounterBuffer.flushAll();
+            SQLRequest.closeSpool();
+        });
+        phase("interrupt", () -> {
+            Dispatcher.shutdownNow();
+            final ThreadPoolExecutor requests = SQLRequest.getExecutor();
+            if (requests != null && !requests.shutdownNow().isEmpty()) {
+                LOGGER.warn("Dropped queued asynchronous requests");
+            }
+        });
+        phase("close", () -> {
+            if (onExit != null) {
+                onExit.run();
+            }
+            if (pool != null) {
+                pool.close();
+            }
+            closeClient.run();
+        });
+        LOGGER.info("Application terminated in {}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+    }
+
+    /**
+     * Runs a phase of the shutdown and logs its duration. A failed phase doesnt stop the following phases
+     * @param name the name of the phase
+     * @param phase the work of the phase
+     */
+    private static void phase(final String name, final Runnable phase) {
+        final long start = System.nanoTime();
+        try {
+            phase.run();
+        } catch (RuntimeException e) {
+            LOGGER.error(String.format("Shutdown phase <%s> failed", name), e);
+        }
+        LOGGER.info("Shutdown phase <{}> finished in {}ms", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Waits until the executor terminated or the deadline passed
+     * @param executor the shut down executor or null
+     * @param deadline the {@link System#nanoTime()} until which it waits
+     * @return true if the executor terminated
+     */
+    private static boolean awaitTermination(final ThreadPoolExecutor executor, final long deadline) {
+        if (executor == null) {
+            return true;
+        }
+        try {
+            return executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return executor.isTerminated();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import de.shurablack.core.event.EventHandler;
 import de.shurablack.core.scheduling.Dispatcher;
 import de.shurablack.core.util.LocalData;
 import de.shurablack.sql.ConnectionPool;
+import de.shurablack.sql.QueryStats;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.events.session.ReadyEvent;
@@ -78,13 +79,20 @@ public class JDAUtil {
         });
         this.handler = handler;
 
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            LOGGER.info("Application gets terminated ...");
-            Dispatcher.shutdownService();
-            if (this.onExit != null) {
-                onExit.accept("");
-            }
-        }));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdown("")));
+    }
+
+    /**
+     * Shuts the application down in phases, see {@link GracefulShutdown}
+     * @param input the input of the exit command, which is passed to the exit task
+     */
+    private void shutdown(final String input) {
+        GracefulShutdown.run(
+                () -> JDA.removeEventListener(JDA.getRegisteredListeners().toArray()),
+                this.onExit == null ? null : () -> this.onExit.accept(input),
+                this.connectionPool,
+                JDA::shutdown
+        );
     }
 
     /**
@@ -167,11 +175,7 @@ public class JDAUtil {
                 "exit",
                 "Closes the Application",
                 input -> {
-                    LOGGER.info("Application gets terminated ...");
-                    Dispatcher.shutdownService();
-                    if (this.onExit != null) {
-                        onExit.accept(input);
-                    }
+                    shutdown(input);
                     System.exit(1);
                 }
         ));
@@ -180,6 +184,7 @@ public class JDAUtil {
                 "Shows dispatcher debug",
                 input -> Dispatcher.logStatus()
         ));
+        addAction(QueryStats.command());
         new Thread(() -> {
             String line;
             BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
@@ -4,6 +4,7 @@ import de.shurablack.core.event.EventHandler;
 import de.shurablack.core.scheduling.Dispatcher;
 import de.shurablack.core.util.LocalData;
 import de.shurablack.sql.ConnectionPool;
+import de.shurablack.sql.QueryStats;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.events.session.ReadyEvent;
@@ -85,6 +86,22 @@ public class ShardUtil {
             }
         });
         this.handler = handler;
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
+    }
+
+    /**
+     * Shuts the application down in phases, see {@link GracefulShutdown}
+     */
+    private void shutdown() {
+        final Consumer<Void> onExit = this.onExit == null ? null : this.onExit.get();
+        GracefulShutdown.run(
+                () -> SHARD_MANAGER.getShards().forEach(shard ->
+                        shard.removeEventListener(shard.getRegisteredListeners().toArray())),
+                onExit == null ? null : () -> onExit.accept(null),
+                this.connectionPool,
+                SHARD_MANAGER::shutdown
+        );
     }
 
     /**
@@ -167,12 +184,7 @@ public class ShardUtil {
                 "exit",
                 "Closes the Application",
                 input -> {
-                    LOGGER.info("Application gets terminated ...");
-                    Dispatcher.shutdownService();
-                    final Consumer<Void> onExit = this.onExit.get();
-                    if (onExit != null) {
-                        onExit.accept(null);
-                    }
+                    shutdown();
                     System.exit(1);
                 }
         ));
@@ -181,6 +193,7 @@ public class ShardUtil {
                 "Shows dispatcher debug",
                 input -> Dispatcher.logStatus()
         ));
+        addAction(QueryStats.command());
         new Thread(() -> {
             String line;
             BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
@@ -7,10 +7,13 @@ import de.shurablack.core.util.Config;
 import de.shurablack.core.util.ConfigException;
 import de.shurablack.core.util.LocalData;
 import de.shurablack.sql.ConnectionPool;
+import de.shurablack.sql.SQLRequest;
+import de.shurablack.sql.WriteSpool;
 import net.dv8tion.jda.api.JDABuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.nio.file.Paths;
 import java.util.function.Consumer;
 
 /**
@@ -117,34 +120,32 @@ public class UtilBuilder {
      * Adds a database connection to the JDAUtil object that is being built by this UtilBuilder.
      * It uses the configuration properties in "config.properties" to connect to the database
      * and creates a ConnectionPool object to manage the connections.
+     * The pool opens its minimum idle connections ("db_min_idle") right away.
+     * The JDBC driver is taken from "db_driver" and defaults to the MySQL driver.
      * @return the builder for chaining
      */
     public UtilBuilder addDatabase() {
         final String url = Config.getConfig("db_url");
         final String username = Config.getConfig("db_username");
         final String password = Config.getConfig("db_password");
-        final String size = Config.getConfig("db_poolsize");
         if (url == null || username == null || password == null) {
             LOGGER.warn("You need to declare db config properties before adding a database", new ConfigException());
         }
 
-        try {
-            LOGGER.debug("Register MySQL Driver ...");
-            Class.forName("com.mysql.cj.jdbc.Driver").newInstance();
-        } catch (
-                IllegalArgumentException | ClassNotFoundException | IllegalAccessException | InstantiationException e) {
-            LOGGER.debug("Couldnt register MySQL Driver. Shutting down the Application ...",e);
+        final String driver = Config.getConfig("db_driver");
+        final String driverClass = driver == null ? ConnectionPool.DRIVER_MYSQL : driver.trim();
+        LOGGER.debug("Register SQL Driver <{}> ...", driverClass);
+        if (!ConnectionPool.registerDriver(driverClass)) {
+            LOGGER.error("Couldnt register SQL Driver. Shutting down the Application ...");
             System.exit(1);
         }
 
-        this.JDAUtil.setConnectionPool(
-                new ConnectionPool(
-                        url,
-                        username,
-                        password,
-                        size == null ? 1 : Integer.parseInt(size)
-                )
-        );
+        this.JDAUtil.setConnectionPool(ConnectionPool.fromConfig());
+
+        final String spool = Config.getConfig("db_spool");
+        if (spool != null) {
+            SQLRequest.setSpool(WriteSpool.open(Paths.get(spool.trim())));
+        }
         return this;
     }
 
@@ -0,0 +1,539 @@
+package de.shurablack.core.scheduling;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * The AdaptiveExecutor class is a thread pool, which adjusts its size to the load by the time tasks wait in its queue.
+ * <br><br>
+ * The queue records the wait of every task in a log-scaled histogram, when a thread takes it, and the thread records
+ * its run time. The queue keeps the time a task got queued next to it and hands out the task itself, so
+ * {@link #shutdownNow()}, {@link #remove(Runnable)} and {@link #getQueue()} see the submitted tasks. A controller samples the
+ * p99 wait, the throughput and the utilization of the threads every interval and climbs towards the target wait:
+ * <ul>
+ *     <li>The pool grows by a quarter, if the p99 wait is above the target. If the last growth didnt raise
+ *     the throughput, the pool holds its size for one interval, since more threads dont help a pool, which waits
+ *     on something else (e.g. the database)</li>
+ *     <li>The pool shrinks by a quarter, if the p99 wait is below half the target and less than half of
+ *     the threads are busy</li>
+ * </ul>
+ * The size stays within the minimum and maximum and idle threads end after a minute.
+ * Each adjustment is logged and kept as {@link Adjustment} for the metrics.
+ * </p>
+ *
+ * @see Dispatcher#start()
+ * @version core-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public class AdaptiveExecutor extends ThreadPoolExecutor {
+
+    private static final Logger LOGGER = LogManager.getLogger(AdaptiveExecutor.class);
+
+    /** Number of sub-buckets per power of two, which bounds the error of the p99 to 1/4 */
+    private static final int SUB_BUCKETS = 4;
+
+    /** Number of histogram buckets, which cover waits up to 2^40 microseconds */
+    private static final int BUCKETS = SUB_BUCKETS * 39;
+
+    /** Minimum throughput gain of a growth, to grow again in the next interval */
+    private static final double MIN_GAIN = 1.05;
+
+    /** Number of kept adjustments */
+    private static final int HISTORY = 64;
+
+    /** Smallest size of the pool */
+    private final int minSize;
+
+    /** Largest size of the pool */
+    private final int maxSize;
+
+    /** Target of the p99 queue wait in nanoseconds */
+    private final long targetWait;
+
+    /** Start (nanos) of the task, which runs on the current thread */
+    private static final ThreadLocal<long[]> STARTED = ThreadLocal.withInitial(() -> new long[1]);
+
+    /** The queue, which records the waits */
+    private final TimedQueue queue;
+
+    /** Number of finished tasks of the current interval */
+    private final LongAdder completed = new LongAdder();
+
+    /** Run time of the tasks of the current interval in nanoseconds */
+    private final LongAdder busy = new LongAdder();
+
+    private final AtomicLong grown = new AtomicLong();
+    private final AtomicLong shrunk = new AtomicLong();
+
+    /** Last adjustments, the newest first */
+    private final Deque<Adjustment> adjustments = new ArrayDeque<>();
+
+    /** The controller, which samples the pool every interval */
+    private final ScheduledExecutorService controller;
+
+    /** Start of the current interval */
+    private long intervalStart = System.nanoTime();
+
+    /** Throughput of the interval of the last growth or -1 */
+    private double lastGrowthThroughput = -1;
+
+    /** Last sampled values */
+    private volatile double lastWait;
+    private volatile double lastThroughput;
+    private volatile double lastUtilization;
+
+    /**
+     * This constructs a new AdaptiveExecutor object, which starts with the minimum size
+     * @param minSize the smallest size of the pool
+     * @param maxSize the largest size of the pool
+     * @param targetWait the target of the p99 queue wait
+     * @param interval the interval of the controller or null to adjust only by {@link #adapt()}
+     * @param factory the factory of the threads
+     */
+    public AdaptiveExecutor(final int minSize, final int maxSize, final Duration targetWait, final Duration interval,
+                            final ThreadFactory factory) {
+        super(Math.max(1, minSize), Math.max(Math.max(1, minSize), maxSize), 60, TimeUnit.SECONDS,
+                new TimedQueue(), factory);
+        this.queue = (TimedQueue) super.getQueue();
+        this.minSize = getCorePoolSize();
+        this.maxSize = getMaximumPoolSize();
+        this.targetWait = targetWait.toNanos();
+        // a single size for core and maximum, since the queue is unbounded and never hands tasks to extra threads
+        setMaximumPoolSize(this.minSize);
+        allowCoreThreadTimeOut(true);
+        if (interval == null) {
+            this.controller = null;
+            return;
+        }
+        this.controller = Executors.newSingleThreadScheduledExecutor(task -> {
+            final Thread thread = new Thread(task, "Dispatcher_Sizer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.controller.scheduleWithFixedDelay(this::adapt, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void beforeExecute(final Thread thread, final Runnable task) {
+        STARTED.get()[0] = System.nanoTime();
+    }
+
+    @Override
+    protected void afterExecute(final Runnable task, final Throwable failure) {
+        busy.add(System.nanoTime() - STARTED.get()[0]);
+        completed.increment();
+    }
+
+    @Override
+    public void shutdown() {
+        if (controller != null) {
+            controller.shutdownNow();
+        }
+        super.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        if (controller != null) {
+            controller.shutdownNow();
+        }
+        return super.shutdownNow();
+    }
+
+    /**
+     * Samples the last interval and adjusts the size of the pool
+     * @return the adjustment or null, if the size didnt change
+     */
+    synchronized Adjustment adapt() {
+        final long now = System.nanoTime();
+        final double seconds = Math.max(1, now - intervalStart) / 1e9;
+        intervalStart = now;
+
+        final long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = queue.waits.getAndSet(i, 0);
+        }
+        // tasks behind long running ones havent started yet, so the oldest queued task counts as well
+        final long oldest = queue.oldest(now);
+        final double p99 = Math.max(percentile(counts, 0.99) * 1000.0, oldest);
+        final double throughput = completed.sumThenReset() / seconds;
+        final int size = getCorePoolSize();
+        final double utilization = Math.min(1, busy.sumThenReset() / (seconds * 1e9 * size));
+        lastWait = p99;
+        lastThroughput = throughput;
+        lastUtilization = utilization;
+
+        if (isShutdown()) {
+            return null;
+        }
+        final int step = Math.max(1, size / 4);
+        int next = size;
+        if (p99 > targetWait) {
+            if (lastGrowthThroughput >= 0 && throughput < lastGrowthThroughput * MIN_GAIN) {
+                // the last growth didnt help, hold once before probing again
+                lastGrowthThroughput = -1;
+            } else {
+                next = Math.min(maxSize, size + step);
+                lastGrowthThroughput = next > size ? throughput : -1;
+            }
+        } else {
+            lastGrowthThroughput = -1;
+            if (p99 < targetWait / 2.0 && utilization < 0.5) {
+                next = Math.max(minSize, size - step);
+            }
+        }
+        if (next == size) {
+            return null;
+        }
+        resize(next);
+        final Adjustment adjustment = new Adjustment(System.currentTimeMillis(), size, next, p99 / 1e6, throughput, utilization);
+        (next > size ? grown : shrunk).incrementAndGet();
+        synchronized (adjustments) {
+            adjustments.addFirst(adjustment);
+            if (adjustments.size() > HISTORY) {
+                adjustments.removeLast();
+            }
+        }
+        LOGGER.info("Resized the service pool {}", adjustment);
+        return adjustment;
+    }
+
+    /**
+     * Sets the core and maximum size, in the order which keeps the core below the maximum
+     * @param size the new size
+     */
+    private void resize(final int size) {
+        if (size > getMaximumPoolSize()) {
+            setMaximumPoolSize(size);
+            setCorePoolSize(size);
+        } else {
+            setCorePoolSize(size);
+            setMaximumPoolSize(size);
+        }
+    }
+
+    /**
+     * @return the smallest size of the pool
+     */
+    public int getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * @return the largest size of the pool
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the p99 queue wait of the last interval in milliseconds
+     */
+    public double getLastWait() {
+        return lastWait / 1e6;
+    }
+
+    /**
+     * @return the finished tasks per second of the last interval
+     */
+    public double getLastThroughput() {
+        return lastThroughput;
+    }
+
+    /**
+     * @return the share of the last interval, which the threads were busy, between 0 and 1
+     */
+    public double getLastUtilization() {
+        return lastUtilization;
+    }
+
+    /**
+     * @return the number of growths
+     */
+    public long getGrown() {
+        return grown.get();
+    }
+
+    /**
+     * @return the number of shrinks
+     */
+    public long getShrunk() {
+        return shrunk.get();
+    }
+
+    /**
+     * @return the last 64 adjustments, the newest first
+     */
+    public List<Adjustment> getAdjustments() {
+        synchronized (adjustments) {
+            return new ArrayList<>(adjustments);
+        }
+    }
+
+    /**
+     * Returns the wait, which the given share of tasks didnt exceed
+     * @param counts the number of tasks per bucket
+     * @param percentile the share between 0 and 1
+     * @return the wait in microseconds
+     */
+    private static long percentile(final long[] counts, final double percentile) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long target = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    /**
+     * Returns the bucket of a wait. Below 4 every microsecond has its own bucket,
+     * above every power of two is split into 4 buckets
+     * @param micros the wait in microseconds
+     * @return the bucket index
+     */
+    static int bucket(final long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(0, micros);
+        }
+        final int octave = 63 - Long.numberOfLeadingZeros(micros);
+        final int index = (octave - 1) * SUB_BUCKETS + (int) (micros >> (octave - 2)) - SUB_BUCKETS;
+        return Math.min(index, BUCKETS - 1);
+    }
+
+    /**
+     * @param index the bucket index
+     * @return the highest wait in microseconds of the bucket
+     */
+    static long upperBound(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int octave = index / SUB_BUCKETS + 1;
+        final long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << (octave - 2)) - 1;
+    }
+
+    /**
+     * A resize of the pool with the sample, which caused it
+     */
+    public static final class Adjustment {
+
+        private final long time;
+        private final int from;
+        private final int to;
+        private final double wait;
+        private final double throughput;
+        private final double utilization;
+
+        private Adjustment(final long time, final int from, final int to, final double wait,
+                           final double throughput, final double utilization) {
+            this.time = time;
+            this.from = from;
+            this.to = to;
+            this.wait = wait;
+            this.throughput = throughput;
+            this.utilization = utilization;
+        }
+
+        /**
+         * @return the time of the adjustment in epoch millis
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * @return the size before the adjustment
+         */
+        public int getFrom() {
+            return from;
+        }
+
+        /**
+         * @return the size after the adjustment
+         */
+        public int getTo() {
+            return to;
+        }
+
+        /**
+         * @return the sampled p99 queue wait in milliseconds
+         */
+        public double getWait() {
+            return wait;
+        }
+
+        /**
+         * @return the sampled finished tasks per second
+         */
+        public double getThroughput() {
+            return throughput;
+        }
+
+        /**
+         * @return the sampled share of busy threads between 0 and 1
+         */
+        public double getUtilization() {
+            return utilization;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d -> %d (p99 wait %.1fms, throughput %.1f/s, utilization %.0f%%)",
+                    from, to, wait, throughput, utilization * 100);
+        }
+    }
+
+    /**
+     * A queued task with the time it got queued
+     */
+    private static final class Timed {
+
+        private final Runnable task;
+        private final long queued = System.nanoTime();
+
+        private Timed(final Runnable task) {
+            this.task = task;
+        }
+    }
+
+    /**
+     * An unbounded queue, which keeps the time every task got queued and records the wait, when it is taken.
+     * Every method returns and compares the tasks themselves
+     */
+    private static final class TimedQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+        /** The queued tasks */
+        private final LinkedBlockingQueue<Timed> tasks = new LinkedBlockingQueue<>();
+
+        /** Number of tasks per queue wait bucket (microseconds, log-scaled) of the current interval */
+        private final AtomicLongArray waits = new AtomicLongArray(BUCKETS);
+
+        /**
+         * @param now the current {@link System#nanoTime()}
+         * @return the wait of the oldest queued task in nanoseconds or 0, if the queue is empty
+         */
+        private long oldest(final long now) {
+            final Timed head = tasks.peek();
+            return head == null ? 0 : now - head.queued;
+        }
+
+        /**
+         * Records the wait of a taken task
+         * @param timed the taken task or null
+         * @return the task or null
+         */
+        private Runnable taken(final Timed timed) {
+            if (timed == null) {
+                return null;
+            }
+            waits.incrementAndGet(bucket((System.nanoTime() - timed.queued) / 1000));
+            return timed.task;
+        }
+
+        @Override
+        public boolean offer(final Runnable task) {
+            return tasks.offer(new Timed(task));
+        }
+
+        @Override
+        public void put(final Runnable task) throws InterruptedException {
+            tasks.put(new Timed(task));
+        }
+
+        @Override
+        public boolean offer(final Runnable task, final long timeout, final TimeUnit unit) throws InterruptedException {
+            return tasks.offer(new Timed(task), timeout, unit);
+        }
+
+        @Override
+        public Runnable take() throws InterruptedException {
+            return taken(tasks.take());
+        }
+
+        @Override
+        public Runnable poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+            return taken(tasks.poll(timeout, unit));
+        }
+
+        @Override
+        public Runnable poll() {
+            return taken(tasks.poll());
+        }
+
+        @Override
+        public Runnable peek() {
+            final Timed head = tasks.peek();
+            return head == null ? null : head.task;
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return tasks.remainingCapacity();
+        }
+
+        @Override
+        public int drainTo(final Collection<? super Runnable> target) {
+            return drainTo(target, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public int drainTo(final Collection<? super Runnable> target, final int max) {
+            final List<Timed> drained = new ArrayList<>();
+            tasks.drainTo(drained, max);
+            drained.forEach(timed -> target.add(timed.task));
+            return drained.size();
+        }
+
+        @Override
+        public int size() {
+            return tasks.size();
+        }
+
+        @Override
+        public Iterator<Runnable> iterator() {
+            final Iterator<Timed> iterator = tasks.iterator();
+            return new Iterator<Runnable>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Runnable next() {
+                    return iterator.next().task;
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package de.shurablack.core.scheduling;
+
+import de.shurablack.sql.ConnectionPoolException;
+import de.shurablack.sql.SQLRequest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * The CronLeases class lets only one of several bot instances run each firing of a cron task.
+ * <br><br>
+ * Every cron task has a row in the lease table. Before a run, the instance claims the row with one conditional
+ * update through {@link SQLRequest#runUpdate(String, Object...)}. The update only succeeds, if the lease is expired
+ * and the last firing is at least half a minute ago, so the other instances, which fire at the same minute,
+ * affect no row and skip the run. cron4j fires at most once a minute, so the next firing is always free again.
+ * <br><br>
+ * While the task runs, the lease is renewed every third of its time to live on a dedicated thread, so a full
+ * service executor cant delay the renewal past the expiry, and released after the run. A task learns about a lost
+ * lease through {@link CronLeases#held()}, e.g. between the batches of a long run. Every claim increments the token
+ * of the row, which fences writes of an instance, that lost its lease (e.g. after a long GC pause):
+ * </p>
+ * <pre>{@code
+ * final CronLeases.Lease lease = CronLeases.current();
+ * for (List<Stat> batch : batches) {
+ *     if (!CronLeases.held()) {
+ *         return;
+ *     }
+ *     SQLRequest.run("UPDATE stats SET total = ? WHERE (SELECT token FROM cron_leases WHERE name = ?) = ?",
+ *             total(batch), lease.getName(), lease.getToken());
+ * }
+ * }</pre>
+ * <p>
+ * The expiry is compared with the clocks of the instances, so the time to live must be much larger than their
+ * difference. If the database is unreachable, the firing is skipped instead of running on every instance.
+ * <br><br>
+ * The first firing of a task creates its row with {@code INSERT IGNORE}, which only MySQL and MariaDB (and H2 in
+ * MySQL mode) understand. On other databases the rows have to be inserted beforehand.
+ * </p>
+ * <pre>{@code
+ * CREATE TABLE cron_leases (
+ *     name VARCHAR(191) PRIMARY KEY,
+ *     owner VARCHAR(191) NOT NULL,
+ *     token BIGINT NOT NULL,
+ *     expires_at BIGINT NOT NULL,
+ *     fired_at BIGINT NOT NULL
+ * )
+ * }</pre>
+ *
+ * @see Dispatcher#setCronLeases(CronLeases)
+ * @version core-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public class CronLeases {
+
+    private static final Logger LOGGER = LogManager.getLogger(CronLeases.class);
+
+    /** Default name of the table */
+    public static final String DEFAULT_TABLE = "cron_leases";
+
+    /** Default time to live of a lease */
+    public static final Duration DEFAULT_TTL = Duration.ofSeconds(60);
+
+    /** Minimum time (millis) between two firings of a task, half of the cron granularity */
+    private static final long MIN_SPACING = 30_000L;
+
+    /** The lease of the task, which runs on the current thread */
+    private static final ThreadLocal<Lease> CURRENT = new ThreadLocal<>();
+
+    /** Renews the leases independent of the busy service executor */
+    private static final ScheduledThreadPoolExecutor RENEWER = new ScheduledThreadPoolExecutor(1, task -> {
+        final Thread thread = new Thread(task, "CronLeases_Renewer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        RENEWER.setRemoveOnCancelPolicy(true);
+    }
+
+    /** Name of the table */
+    private final String table;
+
+    /** Unique name of this instance */
+    private final String owner;
+
+    /** Time to live (millis) of a lease */
+    private final long ttl;
+
+    /**
+     * This constructs a new CronLeases object with the default table and time to live
+     */
+    public CronLeases() {
+        this(DEFAULT_TABLE, DEFAULT_TTL);
+    }
+
+    /**
+     * This constructs a new CronLeases object
+     * @param table the name of the table
+     * @param ttl the time to live of a lease, which is renewed while the task runs
+     */
+    public CronLeases(final String table, final Duration ttl) {
+        this.table = table;
+        this.ttl = Math.max(3000, ttl.toMillis());
+        this.owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Creates the table, if it doesnt exist
+     * @return the leases for chaining
+     */
+    public CronLeases createTable() {
+        SQLRequest.run(String.format("CREATE TABLE IF NOT EXISTS %s (name VARCHAR(191) PRIMARY KEY, " +
+                "owner VARCHAR(191) NOT NULL, token BIGINT NOT NULL, expires_at BIGINT NOT NULL, " +
+                "fired_at BIGINT NOT NULL)", table));
+        return this;
+    }
+
+    /**
+     * @return the lease of the cron task, which runs on the current thread, or null outside of a leased run
+     */
+    public static Lease current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Checks the lease of the cron task, which runs on the current thread. A long task should check it regularly
+     * and stop, once another instance may run the task
+     * @return false if the lease got lost or expired, true if it is held or the thread runs no leased task
+     */
+    public static boolean held() {
+        final Lease lease = CURRENT.get();
+        return lease == null || lease.isHeld();
+    }
+
+    /**
+     * @return the unique name of this instance in the lease table
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Claims the lease of the current firing of a task and starts its renewal
+     * @param name the name of the cron task
+     * @return the lease or null, if another instance runs the firing or the database is unreachable
+     */
+    Lease acquire(final String name) {
+        final long now = System.currentTimeMillis();
+        int rows = SQLRequest.runUpdate(String.format("UPDATE %s SET owner = ?, token = token + 1, expires_at = ?, " +
+                "fired_at = ? WHERE name = ? AND expires_at < ? AND fired_at <= ?", table),
+                owner, now + ttl, now, name, now, now - MIN_SPACING);
+        if (rows == 0) {
+            // the first firing of the task creates its row, a concurrent insert of another instance is ignored
+            rows = SQLRequest.runUpdate(String.format("INSERT IGNORE INTO %s (name, owner, token, expires_at, fired_at) " +
+                    "VALUES (?, ?, 1, ?, ?)", table), name, owner, now + ttl, now);
+        }
+        if (rows < 0) {
+            LOGGER.warn("Couldnt claim the lease of task <{}>, skipped the run", name);
+            return null;
+        }
+        if (rows == 0) {
+            LOGGER.debug("Task <{}> runs on another instance", name);
+            return null;
+        }
+        final SQLRequest.Result<Long> token = readToken(name);
+        if (token == null || !token.isPresent()) {
+            LOGGER.warn("Couldnt read the lease token of task <{}>, skipped the run", name);
+            return null;
+        }
+        final Lease lease = new Lease(name, token.value, now + ttl);
+        lease.renewal = RENEWER.schedule(lease::renew, ttl / 3, TimeUnit.MILLISECONDS);
+        CURRENT.set(lease);
+        return lease;
+    }
+
+    /**
+     * Reads the token of the claimed lease from the primary, since a replica may lag behind the claim
+     * @param name the name of the cron task
+     * @return the token or null, if the database is unreachable
+     */
+    private SQLRequest.Result<Long> readToken(final String name) {
+        final SQLRequest.Result<Long> token = new SQLRequest.Result<>();
+        final SQLRequest request = SQLRequest.create();
+        try {
+            request.connect().result(String.format("SELECT token FROM %s WHERE name = ? AND owner = ?", table),
+                    Long.class, token, name, owner);
+            return token;
+        } catch (ConnectionPoolException e) {
+            return null;
+        } finally {
+            request.close();
+        }
+    }
+
+    /**
+     * The claimed lease of one firing of a cron task
+     */
+    public final class Lease {
+
+        private final String name;
+        private final long token;
+        private volatile long expiresAt;
+        private volatile boolean held = true;
+        private volatile ScheduledFuture<?> renewal;
+
+        private Lease(final String name, final long token, final long expiresAt) {
+            this.name = name;
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * @return the name of the cron task
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the fencing token, which increases with every claim of the lease
+         */
+        public long getToken() {
+            return token;
+        }
+
+        /**
+         * @return true until the lease got released, expired or was taken by another instance
+         */
+        public boolean isHeld() {
+            return held && System.currentTimeMillis() < expiresAt;
+        }
+
+        /**
+         * Extends the lease and schedules the next renewal
+         */
+        private synchronized void renew() {
+            if (!held) {
+                return;
+            }
+            final long now = System.currentTimeMillis();
+            final int rows = SQLRequest.runUpdate(String.format("UPDATE %s SET expires_at = ? " +
+                    "WHERE name = ? AND owner = ? AND token = ?", table), now + ttl, name, owner, token);
+            if (rows == 0) {
+                held = false;
+                LOGGER.warn("Lost the lease of task <{}> with token {}", name, token);
+                return;
+            }
+            if (rows > 0) {
+                expiresAt = now + ttl;
+            }
+            renewal = RENEWER.schedule(this::renew, ttl / 3, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Stops the renewal and frees the lease for the next firing
+         */
+        synchronized void release() {
+            CURRENT.remove();
+            if (!held) {
+                return;
+            }
+            held = false;
+            renewal.cancel(false);
+            SQLRequest.runUpdate(String.format("UPDATE %s SET expires_at = 0 WHERE name = ? AND owner = ? AND token = ?",
+                    table), name, owner, token);
+        }
+    }
+}
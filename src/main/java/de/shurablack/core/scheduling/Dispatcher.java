@@ -6,8 +6,11 @@ import it.sauronsoftware.cron4j.Scheduler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.Optional;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>
@@ -16,6 +19,19 @@ import java.util.concurrent.*;
  * <br><br>
  * It provides methods for scheduling and descheduling cron tasks, dispatching tasks to the service executor,
  * and retrieving information about the scheduled tasks.
+ * <br><br>
+ * Cron tasks are indexed by their name and run on a bounded executor with "cron_threads" threads
+ * (default half the available processors, at least 2). A task never runs twice at the same time,
+ * a trigger during a run is skipped or queued according to its {@link OverlapPolicy}.
+ * With {@link CronLeases} only one instance of a cluster runs each firing.
+ * <br><br>
+ * Dispatched tasks run on an {@link AdaptiveExecutor}, which resizes itself by the queue wait of the tasks.
+ * <br><br>
+ * One-shot delayed tasks are kept in a {@link TimingWheel} with a tick of "timer_tick" millis (default 10)
+ * and run on the service executor once they expire.
+ * <br><br>
+ * Durable jobs, which have to survive a restart, are kept in a {@link JobStore} and run by the
+ * {@link JobScheduler} after {@link #startJobs(JobStore)}.
  * </p>
  *
  * @version core-1.0.0
@@ -32,29 +48,61 @@ public class Dispatcher {
     /** The service executor for asynchronous tasks*/
     private static ThreadPoolExecutor SERVICE;
 
-    /** The list of scheduled tasks */
-    private static final ConcurrentLinkedQueue<Entry> TASKS = new ConcurrentLinkedQueue<>();
+    /** The scheduled tasks by their name */
+    private static final Map<String, Entry> TASKS = new ConcurrentHashMap<>();
+
+    /** The bounded executor of the cron tasks */
+    private static ThreadPoolExecutor CRON;
+
+    /** The timers of the delayed tasks */
+    private static TimingWheel TIMERS;
+
+    /** The scheduler of the durable jobs */
+    private static JobScheduler JOBS;
+
+    /** Default time, which the running tasks get to finish on shutdown */
+    public static final Duration DEFAULT_SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    /** The leases, which let one instance of a cluster run each cron firing */
+    private static volatile CronLeases LEASES;
 
     private Dispatcher() { }
 
     /**
      * Method to start the service executor.
      * <br>
-     * The service executor is a cached thread pool executor with a core pool size of the available processors
+     * The service executor is an {@link AdaptiveExecutor} between "thread_min" threads (default the available
+     * processors) and "thread_max" threads (default the available processors times "thread_scale", default 2).
+     * It resizes every "thread_interval" millis (default 5000) towards a p99 queue wait of "thread_target_wait"
+     * millis (default 50). With "thread_adaptive" false it keeps the maximum size
      */
     public static void start() {
         if (SERVICE != null) {
             return;
         }
 
-        SERVICE = (ThreadPoolExecutor) Executors.newCachedThreadPool();
-        SERVICE.setCorePoolSize(Runtime.getRuntime().availableProcessors());
-        SERVICE.setMaximumPoolSize(Runtime.getRuntime().availableProcessors() * Integer.parseInt(Config.getConfig("thread_scale")));
-        SERVICE.allowCoreThreadTimeOut(false);
-        SERVICE.setKeepAliveTime(10, TimeUnit.MINUTES);
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final int max = Config.getConfig("thread_max") != null
+                ? intConfig("thread_max", processors) : processors * intConfig("thread_scale", 2);
+        final boolean adaptive = !"false".equalsIgnoreCase(Config.getConfig("thread_adaptive"));
+        SERVICE = new AdaptiveExecutor(adaptive ? intConfig("thread_min", processors) : max, max,
+                Duration.ofMillis(intConfig("thread_target_wait", 50)),
+                adaptive ? Duration.ofMillis(intConfig("thread_interval", 5000)) : null,
+                Executors.defaultThreadFactory());
         SERVICE.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
     }
 
+    /**
+     * Reads a number of the config
+     * @param name the name of the config
+     * @param fallback the value, if the config isnt set
+     * @return the value of the config or the fallback
+     */
+    private static int intConfig(final String name, final int fallback) {
+        final String config = Config.getConfig(name);
+        return config == null ? fallback : Integer.parseInt(config.trim());
+    }
+
     /**
      * Method for dispatching a task to the service executor
      * @param task the runnable task which will be executed in a seperate thread
@@ -64,79 +112,371 @@ public class Dispatcher {
     }
 
     /**
-     * Method to shut down the service executor and stop the scheduler
+     * Method to run a task once after a delay on the service executor.
+     * <br><br>
+     * Scheduling and cancelling are O(1), so every reminder or expiry can have its own timer
+     * instead of polling the database for due entries
+     * @param delay the delay of the task
+     * @param unit the unit of the delay
+     * @param task the runnable task
+     * @return the {@link TimingWheel.Timeout} to cancel the task
+     */
+    public static TimingWheel.Timeout schedule(final long delay, final TimeUnit unit, final Runnable task) {
+        return startTimers().schedule(delay, unit, task);
+    }
+
+    /**
+     * Method to run a task once after a delay on the service executor
+     * @param delay the delay of the task
+     * @param task the runnable task
+     * @return the {@link TimingWheel.Timeout} to cancel the task
+     */
+    public static TimingWheel.Timeout schedule(final Duration delay, final Runnable task) {
+        return schedule(delay.toNanos(), TimeUnit.NANOSECONDS, task);
+    }
+
+    /**
+     * Starts the timing wheel, if it isnt running
+     * @return the timing wheel of the delayed tasks
+     */
+    private static synchronized TimingWheel startTimers() {
+        if (TIMERS == null) {
+            final String config = Config.getConfig("timer_tick");
+            TIMERS = new TimingWheel(config == null ? TimingWheel.DEFAULT_TICK : Long.parseLong(config.trim()), task -> {
+                final ThreadPoolExecutor service = SERVICE;
+                if (service != null) {
+                    service.execute(task);
+                } else {
+                    ForkJoinPool.commonPool().execute(task);
+                }
+            });
+        }
+        return TIMERS;
+    }
+
+    /**
+     * Method to start the scheduler of the durable jobs, which loads the overdue jobs and the jobs of the next window
+     * @param store the store of the jobs
+     * @return the {@link JobScheduler} or the running one, if it was started already
+     */
+    public static synchronized JobScheduler startJobs(final JobStore store) {
+        if (store == null) {
+            LOGGER.error("Job store is null", new IllegalArgumentException());
+            return null;
+        }
+        if (JOBS == null) {
+            final String config = Config.getConfig("job_window");
+            JOBS = new JobScheduler(store, config == null ? JobScheduler.DEFAULT_WINDOW
+                    : Duration.ofSeconds(Long.parseLong(config.trim()))).start();
+        }
+        return JOBS;
+    }
+
+    /**
+     * @return the scheduler of the durable jobs or null, if it isnt started
+     */
+    public static synchronized JobScheduler getJobs() {
+        return JOBS;
+    }
+
+    /**
+     * Method to register the handler of a durable job type
+     * @param type the type of the jobs
+     * @param handler the handler
+     */
+    public static void registerJobHandler(final String type, final JobHandler handler) {
+        final JobScheduler jobs = getStartedJobs();
+        if (jobs != null) {
+            jobs.register(type, handler);
+        }
+    }
+
+    /**
+     * Method to schedule a durable job, which runs once at the due time
+     * @param id the unique id and idempotency key of the job
+     * @param type the type, which selects the handler
+     * @param payload the data of the job for the handler, may be null
+     * @param dueAt the time at which the job is due
+     * @return true if the job got stored and scheduled
+     */
+    public static boolean scheduleJob(final String id, final String type, final String payload, final Instant dueAt) {
+        final JobScheduler jobs = getStartedJobs();
+        return jobs != null && jobs.schedule(id, type, payload, dueAt);
+    }
+
+    /**
+     * Method to schedule a durable job, which runs repeatedly after the interval
+     * @param id the unique id and idempotency key of the job
+     * @param type the type, which selects the handler
+     * @param payload the data of the job for the handler, may be null
+     * @param first the time of the first run
+     * @param interval the interval between two runs
+     * @return true if the job got stored and scheduled
+     */
+    public static boolean scheduleRecurringJob(final String id, final String type, final String payload,
+                                               final Instant first, final Duration interval) {
+        final JobScheduler jobs = getStartedJobs();
+        return jobs != null && jobs.scheduleRecurring(id, type, payload, first, interval);
+    }
+
+    /**
+     * Method to cancel a pending durable job
+     * @param id the id of the job
+     */
+    public static void cancelJob(final String id) {
+        final JobScheduler jobs = getStartedJobs();
+        if (jobs != null) {
+            jobs.cancel(id);
+        }
+    }
+
+    /**
+     * @return the scheduler of the durable jobs or null with a logged error, if it isnt started
+     */
+    private static JobScheduler getStartedJobs() {
+        final JobScheduler jobs = getJobs();
+        if (jobs == null) {
+            LOGGER.error("Job scheduler isnt started, call Dispatcher.startJobs first", new IllegalStateException());
+        }
+        return jobs;
+    }
+
+    /**
+     * Method to shut down the service executor and stop the scheduler.
+     * <br><br>
+     * The running and queued tasks get "shutdown_timeout" seconds (default 30) to finish, before they are interrupted
      */
     public static void shutdownService() {
-        SERVICE.shutdown();
-        if (!SERVICE.isShutdown()) {
-            SERVICE.shutdownNow();
+        stopScheduling();
+        drain(System.nanoTime() + getShutdownTimeout().toNanos());
+        shutdownNow();
+    }
+
+    /**
+     * Method to stop the triggers of the cron tasks, the durable jobs and the delayed tasks.
+     * Running and queued tasks continue on their executors
+     */
+    public static synchronized void stopScheduling() {
+        if (JOBS != null) {
+            JOBS.stop();
+            JOBS = null;
         }
         if (SCHEDULER.isStarted()) {
             SCHEDULER.stop();
         }
+        if (TIMERS != null) {
+            final long dropped = TIMERS.stop();
+            if (dropped > 0) {
+                LOGGER.warn("Dropped {} pending delayed tasks", dropped);
+            }
+            TIMERS = null;
+        }
     }
 
     /**
-     * Method to schedule a cron task
+     * Method to stop accepting new tasks and wait for the running and queued tasks of the service and cron executors
+     * @param deadline the {@link System#nanoTime()} until which the tasks may run
+     * @return true if every task finished before the deadline
+     */
+    public static boolean drain(final long deadline) {
+        final ThreadPoolExecutor service = SERVICE;
+        final ThreadPoolExecutor cron;
+        synchronized (Dispatcher.class) {
+            cron = CRON;
+        }
+        if (service != null) {
+            service.shutdown();
+        }
+        if (cron != null) {
+            cron.shutdown();
+        }
+        return awaitTermination(service, deadline) & awaitTermination(cron, deadline);
+    }
+
+    /**
+     * Method to interrupt the tasks, which are still running after {@link #drain(long)}, and drop the queued ones
+     * @return the number of dropped queued tasks
+     */
+    public static int shutdownNow() {
+        int dropped = 0;
+        if (SERVICE != null) {
+            dropped += SERVICE.shutdownNow().size();
+        }
+        synchronized (Dispatcher.class) {
+            if (CRON != null) {
+                dropped += CRON.shutdownNow().size();
+            }
+            // a lease renewal during the drain may have started the timers again
+            if (TIMERS != null) {
+                TIMERS.stop();
+                TIMERS = null;
+            }
+        }
+        if (dropped > 0) {
+            LOGGER.warn("Dropped {} queued tasks", dropped);
+        }
+        return dropped;
+    }
+
+    /**
+     * @return the time, which the running tasks get to finish on shutdown, of the config "shutdown_timeout" in seconds
+     */
+    public static Duration getShutdownTimeout() {
+        final String config = Config.getConfig("shutdown_timeout");
+        return config == null ? DEFAULT_SHUTDOWN_TIMEOUT : Duration.ofSeconds(Long.parseLong(config.trim()));
+    }
+
+    /**
+     * Waits until the executor terminated or the deadline passed
+     * @param executor the shut down executor or null
+     * @param deadline the {@link System#nanoTime()} until which it waits
+     * @return true if the executor terminated
+     */
+    private static boolean awaitTermination(final ExecutorService executor, final long deadline) {
+        if (executor == null) {
+            return true;
+        }
+        try {
+            return executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return executor.isTerminated();
+        }
+    }
+
+    /**
+     * Method to schedule a cron task, which skips a run while the previous one is still executing
      * @param timePattern defines the frequence of the task
      * @param name defines a unique string
      * @param task defines the runnable task
      */
     public static void scheduleCronTask(final String timePattern, final String name, final Runnable task) {
-        if (!SCHEDULER.isStarted()) {
-            SCHEDULER.start();
+        scheduleCronTask(timePattern, name, task, OverlapPolicy.SKIP);
+    }
+
+    /**
+     * Method to schedule a cron task
+     * @param timePattern defines the frequence of the task
+     * @param name defines a unique string
+     * @param task defines the runnable task
+     * @param policy defines the handling of a trigger, while the previous run is still executing
+     */
+    public static void scheduleCronTask(final String timePattern, final String name, final Runnable task,
+                                        final OverlapPolicy policy) {
+        if (TASKS.containsKey(name)) {
+            LOGGER.error(String.format("A task with the name <\u001b[31m%s\u001b[0m> is scheduled already", name),
+                    new IllegalArgumentException());
+            return;
         }
+        final Executor executor = startCron();
         try {
+            // cron4j only triggers the entry, the task itself runs on the bounded executor
+            final String id = SCHEDULER.schedule(timePattern, () -> {
+                final Entry entry = TASKS.get(name);
+                if (entry != null) {
+                    entry.trigger(executor);
+                }
+            });
+            if (TASKS.putIfAbsent(name, new Entry(name, id, task, policy)) != null) {
+                SCHEDULER.deschedule(id);
+                LOGGER.error(String.format("A task with the name <\u001b[31m%s\u001b[0m> is scheduled already", name),
+                        new IllegalArgumentException());
+                return;
+            }
             final String msg = String.format("Scheduled Task <\u001b[32;1m%s\u001b[0m> with time <\u001b[32;1m%s\u001b[0m>", name, timePattern);
             LOGGER.info(msg);
-            TASKS.add(new Entry(name, SCHEDULER.schedule(timePattern, task), task));
         } catch (InvalidPatternException e) {
             LOGGER.error(String.format("Invalid pattern in Task scheduling <\u001b[31m%s\u001b[0m>", timePattern),e);
         }
     }
 
     /**
-     * Method to deschedule a cron task
+     * Method to run every cron firing on only one instance of the bot, if several instances schedule the same tasks.
+     * <br><br>
+     * The lease is claimed before each run, so it applies to the tasks, which are scheduled already, too
+     * @param leases the leases or null to run every firing locally
+     */
+    public static void setCronLeases(final CronLeases leases) {
+        LEASES = leases;
+    }
+
+    /**
+     * @return the leases of the cron tasks or null, if every firing runs locally
+     */
+    public static CronLeases getCronLeases() {
+        return LEASES;
+    }
+
+    /**
+     * Starts the scheduler and the executor of the cron tasks, if they arent running
+     * @return the executor of the cron tasks
+     */
+    private static synchronized Executor startCron() {
+        if (CRON == null || CRON.isShutdown()) {
+            final String config = Config.getConfig("cron_threads");
+            final int threads = config == null
+                    ? Math.max(2, Runtime.getRuntime().availableProcessors() / 2) : Integer.parseInt(config.trim());
+            final AtomicInteger count = new AtomicInteger();
+            CRON = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+                final Thread thread = new Thread(task, "Dispatcher_Cron-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            CRON.allowCoreThreadTimeOut(true);
+        }
+        if (!SCHEDULER.isStarted()) {
+            SCHEDULER.start();
+        }
+        return CRON;
+    }
+
+    /**
+     * Method to deschedule a cron task. A running task finishes its current run
      * @param name defines the unique string to find the task
      */
     public static void descheduleCronTask(final String name) {
-        final Optional<Entry> entry = TASKS.stream().filter(e -> e.getName()
-                .equals(name)).findFirst();
-        if (entry.isEmpty()) {
+        final Entry entry = TASKS.remove(name);
+        if (entry == null) {
             return;
         }
-        TASKS.remove(entry.get());
-        SCHEDULER.deschedule(entry.get().getId());
+        SCHEDULER.deschedule(entry.getId());
         final String msg = String.format("Descheduled Task <\u001b[32;1m%s\u001b[0m>", name);
         LOGGER.info(msg);
     }
 
     /**
-     * Method to force a cron task
+     * Method to force a cron task. The task runs on the cron executor and follows its {@link OverlapPolicy}
      * @param name defines the unique string to find the task
      */
     public static void forceCronTask(final String name) {
-        final Optional<Entry> entry = TASKS.stream().filter(e -> e.getName()
-                .equals(name)).findFirst();
-
-        if (entry.isEmpty()) {
+        final Entry entry = TASKS.get(name);
+        if (entry == null) {
             LOGGER.error("No matching task found!");
             return;
         }
-        entry.get().getTask().run();
+        entry.trigger(startCron());
+    }
+
+    /**
+     * Method to get a scheduled task
+     * @param name defines the unique string to find the task
+     * @return the {@link Entry} or null, if no task has the name
+     */
+    public static Entry getTask(final String name) {
+        return TASKS.get(name);
     }
 
     /**
      * Method to get the list of scheduled tasks
-     * @return a list of {@link Entry} objects
+     * @return a snapshot of the {@link Entry} objects, changes of it dont affect the scheduled tasks
      */
     public static ConcurrentLinkedQueue<Entry> getTaskList() {
-        return TASKS;
+        return new ConcurrentLinkedQueue<>(TASKS.values());
     }
 
     /**
      * Method to get the thread pool executor
-     * @return the used {@link ThreadPoolExecutor} from {@link Executors#newFixedThreadPool(int)}
+     * @return the used {@link AdaptiveExecutor}
      */
     public static ThreadPoolExecutor getThreadPool() {
         return SERVICE;
@@ -154,9 +494,38 @@ public class Dispatcher {
      * Method to get information about the current status of the service executor
      */
     public static void logStatus() {
+        final StringBuilder tasks = new StringBuilder();
+        for (Entry entry : TASKS.values()) {
+            tasks.append(String.format("%n%s [%s%s] - Runs %d, Failures \033[0;31m%d\033[0m, Skipped \033[0;33m%d\033[0m, " +
+                            "Elsewhere %d, Last %dms, Max %dms", entry.getName(), entry.getPolicy(), entry.isRunning() ? ", running" : "",
+                    entry.getRuns(), entry.getFailures(), entry.getSkipped(), entry.getLeaseMisses(),
+                    entry.getLastDuration(), entry.getMaxDuration()));
+        }
+        if (tasks.length() > 0) {
+            LOGGER.info("Cron tasks:{}", tasks);
+        }
+        final TimingWheel timers = TIMERS;
+        if (timers != null) {
+            LOGGER.info("Delayed tasks [Pending {}, Tick {}ms]", timers.size(), timers.getTick());
+        }
+        final JobScheduler jobs = getJobs();
+        if (jobs != null) {
+            LOGGER.info("Durable jobs [Loaded {}]", jobs.getLoadedCount());
+        }
+        if (SERVICE == null) {
+            return;
+        }
         LOGGER.info("\nSize [Current {}, Maximum \033[0;33m{}\033[0m, Peak \033[0;31m{}\033[0m] " +
                         "- Tasks [Total {}, Completed \033[0;32m{}\033[0m, Active \033[0;34m{}\033[0m]"
                 , SERVICE.getPoolSize(), SERVICE.getMaximumPoolSize(), SERVICE.getLargestPoolSize()
         , SERVICE.getTaskCount(), SERVICE.getCompletedTaskCount(), SERVICE.getActiveCount());
+        if (SERVICE instanceof AdaptiveExecutor) {
+            final AdaptiveExecutor adaptive = (AdaptiveExecutor) SERVICE;
+            LOGGER.info("Adaptive [Bounds {}-{}, Queued {}, p99 wait {}ms, Throughput {}/s, Utilization {}%] " +
+                            "- Resizes [Grown {}, Shrunk {}]", adaptive.getMinSize(), adaptive.getMaxSize(),
+                    adaptive.getQueue().size(), String.format("%.1f", adaptive.getLastWait()),
+                    String.format("%.1f", adaptive.getLastThroughput()), Math.round(adaptive.getLastUtilization() * 100),
+                    adaptive.getGrown(), adaptive.getShrunk());
+        }
     }
 }
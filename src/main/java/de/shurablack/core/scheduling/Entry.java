@@ -1,8 +1,22 @@
 package de.shurablack.core.scheduling;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
 /**
  * Represents a scheduling entry with a name, an ID, and an associated task.
  * This class is used to encapsulate information about a scheduled task.
+ * <br><br>
+ * The entry runs its task at most once at a time. A trigger during a run is handled by its {@link OverlapPolicy}.
+ * It also records the statistics of the runs, like the last start, the duration, failures and skipped runs.
+ * With {@link CronLeases} a run only starts, if this instance claimed the lease of the firing.
  *
  * @version core-1.1.0
  * @date 12.04.2025
@@ -10,6 +24,8 @@ package de.shurablack.core.scheduling;
  */
 public class Entry {
 
+    private static final Logger LOGGER = LogManager.getLogger(Entry.class);
+
     /**
      * The name of the scheduling entry.
      */
@@ -25,6 +41,32 @@ public class Entry {
      */
     private final Runnable task;
 
+    /**
+     * The handling of a trigger during a run.
+     */
+    private final OverlapPolicy policy;
+
+    /**
+     * The number of requested runs, the current one included (0 idle, 1 running, 2 running with a queued run).
+     */
+    private final AtomicInteger demand = new AtomicInteger();
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong leaseMisses = new AtomicLong();
+    private final LongAccumulator maxDuration = new LongAccumulator(Math::max, 0);
+
+    /**
+     * The start (epoch millis) of the last run, or 0 if it never ran.
+     */
+    private volatile long lastStart = 0;
+
+    /**
+     * The duration (nanos) of the last finished run.
+     */
+    private volatile long lastDuration = 0;
+
     /**
      * Constructs a new Entry with the specified name, ID, and task.
      *
@@ -33,9 +75,118 @@ public class Entry {
      * @param task The task associated with the scheduling entry.
      */
     protected Entry(final String name, final String id, final Runnable task) {
+        this(name, id, task, OverlapPolicy.SKIP);
+    }
+
+    /**
+     * Constructs a new Entry with the specified name, ID, task and overlap policy.
+     *
+     * @param name   The name of the scheduling entry.
+     * @param id     The unique identifier of the scheduling entry.
+     * @param task   The task associated with the scheduling entry.
+     * @param policy The handling of a trigger during a run.
+     */
+    protected Entry(final String name, final String id, final Runnable task, final OverlapPolicy policy) {
         this.name = name;
         this.id = id;
         this.task = task;
+        this.policy = policy;
+    }
+
+    /**
+     * Runs the task on the executor, unless a run is executing already.
+     * In that case the trigger is queued or skipped according to the overlap policy.
+     *
+     * @param executor The executor of the run.
+     * @return True if a run got started or queued, false if the trigger was skipped.
+     */
+    boolean trigger(final Executor executor) {
+        while (true) {
+            final int current = demand.get();
+            if (current == 0) {
+                if (demand.compareAndSet(0, 1)) {
+                    try {
+                        executor.execute(this::runLoop);
+                        return true;
+                    } catch (RejectedExecutionException e) {
+                        demand.set(0);
+                        LOGGER.error(String.format("Couldnt start task <%s>, the executor is shut down", name), e);
+                        return false;
+                    }
+                }
+            } else if (current == 1 && policy == OverlapPolicy.QUEUE) {
+                if (demand.compareAndSet(1, 2)) {
+                    LOGGER.debug("Task <{}> is still running, queued the next run", name);
+                    return true;
+                }
+            } else {
+                skipped.incrementAndGet();
+                LOGGER.warn("Task <{}> is still running since {}ms, skipped the run", name,
+                        System.currentTimeMillis() - lastStart);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Runs the task until no run is queued anymore.
+     */
+    private void runLoop() {
+        try {
+            do {
+                final CronLeases leases = Dispatcher.getCronLeases();
+                if (leases == null) {
+                    run(null);
+                    continue;
+                }
+                CronLeases.Lease lease = null;
+                try {
+                    lease = leases.acquire(name);
+                } catch (RuntimeException e) {
+                    LOGGER.error(String.format("Couldnt acquire the lease of task <%s>, skipped the run", name), e);
+                }
+                if (lease == null) {
+                    leaseMisses.incrementAndGet();
+                    continue;
+                }
+                run(lease);
+            } while (demand.decrementAndGet() > 0);
+        } catch (Error e) {
+            // the next trigger has to start a new loop
+            demand.set(0);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the task once and records its statistics.
+     *
+     * @param lease The acquired lease of the run, which gets released afterwards, or null.
+     */
+    private void run(final CronLeases.Lease lease) {
+        final long start = System.nanoTime();
+        lastStart = System.currentTimeMillis();
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            LOGGER.error(String.format("Task <%s> failed", name), e);
+        } catch (Error e) {
+            failures.incrementAndGet();
+            throw e;
+        } finally {
+            if (lease != null) {
+                try {
+                    lease.release();
+                } catch (RuntimeException e) {
+                    LOGGER.error(String.format("Couldnt release the lease of task <%s>", name), e);
+                }
+            }
+            final long duration = System.nanoTime() - start;
+            lastDuration = duration;
+            maxDuration.accumulate(duration);
+            runs.incrementAndGet();
+        }
     }
 
     /**
@@ -65,6 +216,87 @@ public class Entry {
         return task;
     }
 
+    /**
+     * Retrieves the handling of a trigger during a run.
+     *
+     * @return The overlap policy.
+     */
+    public OverlapPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Checks if a run of the task is executing.
+     *
+     * @return True if the task is running.
+     */
+    public boolean isRunning() {
+        return demand.get() > 0;
+    }
+
+    /**
+     * Retrieves the number of finished runs, failed ones included.
+     *
+     * @return The number of runs.
+     */
+    public long getRuns() {
+        return runs.get();
+    }
+
+    /**
+     * Retrieves the number of runs, which ended with an exception.
+     *
+     * @return The number of failures.
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * Retrieves the number of triggers, which were dropped because of a running task.
+     *
+     * @return The number of skipped runs.
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * Retrieves the number of firings, which ran on another instance, because the {@link CronLeases} were taken.
+     *
+     * @return The number of firings of other instances.
+     */
+    public long getLeaseMisses() {
+        return leaseMisses.get();
+    }
+
+    /**
+     * Retrieves the start of the last run.
+     *
+     * @return The epoch millis of the last start, or 0 if the task never ran.
+     */
+    public long getLastStart() {
+        return lastStart;
+    }
+
+    /**
+     * Retrieves the duration of the last finished run.
+     *
+     * @return The duration in millis.
+     */
+    public long getLastDuration() {
+        return TimeUnit.NANOSECONDS.toMillis(lastDuration);
+    }
+
+    /**
+     * Retrieves the longest duration of a run.
+     *
+     * @return The duration in millis.
+     */
+    public long getMaxDuration() {
+        return TimeUnit.NANOSECONDS.toMillis(maxDuration.get());
+    }
+
     /**
      * Compares this entry to another object for equality.
      * Two entries are considered equal if their IDs are the same.
@@ -76,4 +308,4 @@ public class Entry {
     public boolean equals(Object obj) {
         return obj instanceof Entry && ((Entry) obj).id.equals(id);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,513 @@
+package de.shurablack.core.scheduling;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * <p>
+ * The FileJobStore class keeps the durable jobs in a local directory, bucketed by their due time.
+ * <br><br>
+ * Every bucket covers a fixed time span (default one minute) and is an append-only file, which holds the new
+ * versions of its jobs and the removals of finished ones. Loading a time window only reads the buckets of the
+ * window, so the start of the application doesnt depend on the number of pending jobs. A bucket file is deleted,
+ * once every job of it finished. Every append is synced to the disk, before the call returns.
+ * <br><br>
+ * The bucket of every job, which isnt loaded yet, is kept in a compact index file of ids. So a new version
+ * or the cancellation of such a job writes a removal of the old version into its old bucket, without reading
+ * the buckets. The index is pruned once the buckets of its jobs got loaded.
+ * </p>
+ *
+ * @see JobScheduler
+ * @version core-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public class FileJobStore implements JobStore {
+
+    private static final Logger LOGGER = LogManager.getLogger(FileJobStore.class);
+
+    /** Default time span of a bucket */
+    public static final Duration DEFAULT_BUCKET = Duration.ofMinutes(1);
+
+    private static final String BUCKET_SUFFIX = ".jobs";
+    private static final String INDEX = "index.log";
+
+    /** Bucket of an index record, which removes the id from the index */
+    private static final long UNINDEXED = Long.MIN_VALUE;
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    /** Directory of the bucket files */
+    private final Path directory;
+
+    /** Time span (millis) of a bucket */
+    private final long bucketSpan;
+
+    /** Start of every bucket with a file */
+    private final NavigableSet<Long> buckets = new TreeSet<>();
+
+    /** Loaded jobs by their id, to find their bucket */
+    private final Map<String, Job> loaded = new HashMap<>();
+
+    /** Number of loaded jobs per bucket */
+    private final Map<Long, Integer> live = new HashMap<>();
+
+    /** Bucket per id of a job, which isnt loaded yet */
+    private final Map<String, Long> index = new HashMap<>();
+
+    /** Number of records in the index file, which are outdated */
+    private int outdatedIndex = 0;
+
+    /** End (epoch millis, exclusive) of the loaded time */
+    private long loadedUntil = Long.MIN_VALUE;
+
+    /**
+     * This constructs a new FileJobStore object
+     * @param directory the directory of the bucket files
+     * @param bucketSpan the time span of a bucket in millis
+     */
+    private FileJobStore(final Path directory, final long bucketSpan) {
+        this.directory = directory;
+        this.bucketSpan = bucketSpan;
+    }
+
+    /**
+     * Opens or creates the store with the default bucket span
+     * @param directory the directory of the bucket files
+     * @return the store or null, if the directory couldnt be read
+     */
+    public static FileJobStore open(final Path directory) {
+        return open(directory, DEFAULT_BUCKET);
+    }
+
+    /**
+     * Opens or creates the store. Only the names of the bucket files and the index of the pending ids are read
+     * @param directory the directory of the bucket files
+     * @param bucketSpan the time span of a bucket, which must stay the same for an existing directory
+     * @return the store or null, if the directory couldnt be read
+     */
+    public static FileJobStore open(final Path directory, final Duration bucketSpan) {
+        if (bucketSpan.toMillis() < 1) {
+            LOGGER.error("Bucket span must be at least 1ms", new IllegalArgumentException());
+            return null;
+        }
+        final FileJobStore store = new FileJobStore(directory, bucketSpan.toMillis());
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + BUCKET_SUFFIX)) {
+                for (Path file : files) {
+                    final String name = file.getFileName().toString();
+                    try {
+                        store.buckets.add(Long.parseLong(name.substring(0, name.length() - BUCKET_SUFFIX.length())));
+                    } catch (NumberFormatException e) {
+                        LOGGER.warn("Ignored unknown file in the job store <{}>", file);
+                    }
+                }
+            }
+            store.readIndex();
+        } catch (IOException e) {
+            LOGGER.error(String.format("Couldnt open job store <%s>", directory), e);
+            return null;
+        }
+        return store;
+    }
+
+    @Override
+    public boolean save(final Job job) {
+        final long bucket = bucketOf(job.getDueAt());
+        if (!append(bucket, record(PUT, job))) {
+            return false;
+        }
+        // The old version is removed after the new one is stored, so a crash in between runs the job twice instead of never
+        final Job old = loaded.remove(job.getId());
+        final Long oldBucket = index.get(job.getId());
+        if (job.getDueAt() < loadedUntil) {
+            track(job);
+            unindex(job.getId());
+        } else if (oldBucket == null || oldBucket != bucket) {
+            index(job.getId(), bucket);
+        }
+        if (old != null) {
+            untrack(old);
+        } else if (oldBucket != null) {
+            // every older version of the job is below the new version
+            append(oldBucket, delete(job.getId(), job.getVersion() - 1));
+        }
+        return true;
+    }
+
+    @Override
+    public void remove(final Job job) {
+        final Job old = loaded.remove(job.getId());
+        if (old != null) {
+            untrack(old);
+        } else {
+            append(bucketOf(job.getDueAt()), record(DELETE, job));
+            unindex(job.getId());
+        }
+    }
+
+    @Override
+    public void cancel(final String id) {
+        final Job old = loaded.remove(id);
+        if (old != null) {
+            untrack(old);
+            return;
+        }
+        final Long bucket = index.get(id);
+        if (bucket != null) {
+            append(bucket, delete(id, Job.nextVersion()));
+            unindex(id);
+        }
+    }
+
+    @Override
+    public List<Job> load(final long from, final long until) {
+        final List<Job> due = new ArrayList<>();
+        final long first = from == Long.MIN_VALUE ? Long.MIN_VALUE : bucketOf(from);
+        for (Long bucket : new ArrayList<>(buckets.subSet(first, true, bucketOf(until - 1), true))) {
+            for (Job job : read(bucket)) {
+                if (job.getDueAt() >= from && job.getDueAt() < until && !loaded.containsKey(job.getId())) {
+                    track(job);
+                    due.add(job);
+                    if (index.remove(job.getId()) != null) {
+                        outdatedIndex++;
+                    }
+                }
+            }
+            if (bucket + bucketSpan <= until && live.getOrDefault(bucket, 0) == 0) {
+                deleteBucket(bucket);
+            }
+        }
+        loadedUntil = Math.max(loadedUntil, until);
+        // the jobs of fully loaded buckets are loaded or finished, so their entries are outdated
+        final int indexed = index.size();
+        index.values().removeIf(bucket -> bucket + bucketSpan <= until);
+        outdatedIndex += indexed - index.size();
+        compactIndex();
+        return due;
+    }
+
+    /**
+     * @return the number of bucket files
+     */
+    public int getBucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Reads the current versions of the jobs in a bucket
+     * @param bucket the start of the bucket
+     * @return the jobs, which are not removed
+     */
+    private List<Job> read(final long bucket) {
+        final Map<String, Job> jobs = new LinkedHashMap<>();
+        final Map<String, Long> deleted = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fileOf(bucket))))) {
+            while (true) {
+                final byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException end) {
+                    break;
+                }
+                final long version = in.readLong();
+                final String id = in.readUTF();
+                if (op == PUT) {
+                    final String type = in.readUTF();
+                    final long dueAt = in.readLong();
+                    final long interval = in.readLong();
+                    final int attempts = in.readInt();
+                    final byte[] payload = new byte[in.readInt()];
+                    in.readFully(payload);
+                    final Job previous = jobs.get(id);
+                    if (previous == null || previous.getVersion() < version) {
+                        jobs.put(id, new Job(id, type, payload.length == 0 ? null : new String(payload, StandardCharsets.UTF_8),
+                                dueAt, interval, attempts, version));
+                    }
+                } else if (op == DELETE) {
+                    deleted.merge(id, version, Math::max);
+                } else {
+                    throw new IOException("Unknown record type " + op);
+                }
+            }
+        } catch (EOFException e) {
+            LOGGER.warn("Ignored incomplete record at the end of bucket <{}>", fileOf(bucket));
+        } catch (IOException e) {
+            LOGGER.error(String.format("Couldnt read bucket <%s>", fileOf(bucket)), e);
+        }
+
+        final List<Job> result = new ArrayList<>(jobs.size());
+        for (Job job : jobs.values()) {
+            final Long deletedVersion = deleted.get(job.getId());
+            if (deletedVersion != null && deletedVersion >= job.getVersion()) {
+                continue;
+            }
+            result.add(job);
+        }
+        return result;
+    }
+
+    /**
+     * Remembers the bucket of a loaded job
+     * @param job the loaded job
+     */
+    private void track(final Job job) {
+        loaded.put(job.getId(), job);
+        live.merge(bucketOf(job.getDueAt()), 1, Integer::sum);
+    }
+
+    /**
+     * Removes the job from its bucket and deletes the bucket, if it has no jobs left
+     * @param job the removed job
+     */
+    private void untrack(final Job job) {
+        final long bucket = bucketOf(job.getDueAt());
+        final Integer count = live.get(bucket);
+        if (count != null) {
+            if (count <= 1) {
+                live.remove(bucket);
+            } else {
+                live.put(bucket, count - 1);
+            }
+        }
+        if (!live.containsKey(bucket) && bucket + bucketSpan <= loadedUntil) {
+            deleteBucket(bucket);
+        } else {
+            append(bucket, record(DELETE, job));
+        }
+    }
+
+    /**
+     * Encodes a record of a bucket
+     * @param op the type of the record
+     * @param job the job
+     * @return the encoded record
+     */
+    private static byte[] record(final byte op, final Job job) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(op);
+            out.writeLong(job.getVersion());
+            out.writeUTF(job.getId());
+            if (op == PUT) {
+                out.writeUTF(job.getType());
+                out.writeLong(job.getDueAt());
+                out.writeLong(job.getInterval());
+                out.writeInt(job.getAttempts());
+                final byte[] payload = job.getPayload() == null ? new byte[0] : job.getPayload().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(payload.length);
+                out.write(payload);
+            }
+        } catch (IOException e) {
+            // cant happen with a byte array
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Encodes the removal of every version of a job up to the given one
+     * @param id the id of the job
+     * @param version the highest removed version
+     * @return the encoded record
+     */
+    private static byte[] delete(final String id, final long version) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(DELETE);
+            out.writeLong(version);
+            out.writeUTF(id);
+        } catch (IOException e) {
+            // cant happen with a byte array
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Appends a record to the file of a bucket
+     * @param bucket the start of the bucket
+     * @param record the encoded record
+     * @return true if the record got written
+     */
+    private boolean append(final long bucket, final byte[] record) {
+        if (!write(fileOf(bucket), record)) {
+            return false;
+        }
+        buckets.add(bucket);
+        return true;
+    }
+
+    /**
+     * Appends the bytes to a file and syncs it
+     * @param file the file
+     * @param bytes the bytes
+     * @return true if the bytes got written
+     */
+    private static boolean write(final Path file, final byte[] bytes) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            return true;
+        } catch (IOException e) {
+            LOGGER.error(String.format("Couldnt write job store file <%s>", file), e);
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the file of a bucket without jobs
+     * @param bucket the start of the bucket
+     */
+    private void deleteBucket(final long bucket) {
+        try {
+            Files.deleteIfExists(fileOf(bucket));
+            buckets.remove(bucket);
+            live.remove(bucket);
+        } catch (IOException e) {
+            LOGGER.error(String.format("Couldnt delete bucket <%s>", fileOf(bucket)), e);
+        }
+    }
+
+    /**
+     * Reads the index of the jobs, which arent loaded yet
+     * @throws IOException if the file couldnt be read
+     */
+    private void readIndex() throws IOException {
+        final Path file = directory.resolve(INDEX);
+        if (!Files.exists(file)) {
+            return;
+        }
+        int records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                final long bucket;
+                try {
+                    bucket = in.readLong();
+                } catch (EOFException end) {
+                    break;
+                }
+                final String id = in.readUTF();
+                records++;
+                if (bucket == UNINDEXED) {
+                    index.remove(id);
+                } else {
+                    index.put(id, bucket);
+                }
+            }
+        } catch (EOFException e) {
+            LOGGER.warn("Ignored incomplete index record <{}>", file);
+        }
+        outdatedIndex = records - index.size();
+    }
+
+    /**
+     * Stores the bucket of a job, which isnt loaded yet
+     * @param id the id of the job
+     * @param bucket the start of the bucket
+     */
+    private void index(final String id, final long bucket) {
+        if (index.put(id, bucket) != null) {
+            outdatedIndex++;
+        }
+        write(directory.resolve(INDEX), indexRecord(bucket, id));
+    }
+
+    /**
+     * Removes a job from the index
+     * @param id the id of the job
+     */
+    private void unindex(final String id) {
+        if (index.remove(id) != null) {
+            outdatedIndex += 2;
+            write(directory.resolve(INDEX), indexRecord(UNINDEXED, id));
+        }
+    }
+
+    /**
+     * Encodes a record of the index
+     * @param bucket the start of the bucket or {@link #UNINDEXED}
+     * @param id the id of the job
+     * @return the encoded record
+     */
+    private static byte[] indexRecord(final long bucket, final String id) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(bucket);
+            out.writeUTF(id);
+        } catch (IOException e) {
+            // cant happen with a byte array
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Rewrites the index file, once most of its records are outdated
+     */
+    private void compactIndex() {
+        if (outdatedIndex < 64 || outdatedIndex < index.size()) {
+            return;
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (Map.Entry<String, Long> entry : index.entrySet()) {
+            bytes.writeBytes(indexRecord(entry.getValue(), entry.getKey()));
+        }
+        final Path file = directory.resolve(INDEX);
+        final Path temp = directory.resolve(INDEX + ".tmp");
+        try {
+            Files.deleteIfExists(temp);
+            if (write(temp, bytes.toByteArray())) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                outdatedIndex = 0;
+            }
+        } catch (IOException e) {
+            LOGGER.error(String.format("Couldnt compact the index <%s>", file), e);
+        }
+    }
+
+    /**
+     * @param time the epoch millis
+     * @return the start of the bucket, which contains the time
+     */
+    private long bucketOf(final long time) {
+        return Math.floorDiv(time, bucketSpan) * bucketSpan;
+    }
+
+    /**
+     * @param bucket the start of the bucket
+     * @return the file of the bucket
+     */
+    private Path fileOf(final long bucket) {
+        return directory.resolve(bucket + BUCKET_SUFFIX);
+    }
+}
@@ -0,0 +1,188 @@
+package de.shurablack.core.scheduling;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents a durable job of the {@link JobScheduler}, which survives a restart of the application.
+ * <br><br>
+ * The id identifies the job and is its idempotency key: a job is run at least once, so a handler which gets
+ * the same id twice (e.g. after a crash during the run) can detect the repetition.
+ * A job is immutable, every reschedule creates a new version of it.
+ *
+ * @version core-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public final class Job {
+
+    /** Source of the versions, which order the changes of a job */
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    /**
+     * The unique id and idempotency key of the job.
+     */
+    private final String id;
+
+    /**
+     * The type, which selects the {@link JobHandler}.
+     */
+    private final String type;
+
+    /**
+     * The data of the job for the handler, may be null.
+     */
+    private final String payload;
+
+    /**
+     * The time (epoch millis) at which the job is due.
+     */
+    private final long dueAt;
+
+    /**
+     * The interval (millis) of a recurring job, or 0 for a one-shot job.
+     */
+    private final long interval;
+
+    /**
+     * The number of failed runs since the last successful one.
+     */
+    private final int attempts;
+
+    /**
+     * The version of the job, which increases with every change.
+     */
+    private final long version;
+
+    /**
+     * Constructs a new Job.
+     *
+     * @param id       The unique id and idempotency key of the job.
+     * @param type     The type, which selects the handler.
+     * @param payload  The data of the job for the handler.
+     * @param dueAt    The time (epoch millis) at which the job is due.
+     * @param interval The interval (millis) of a recurring job, or 0 for a one-shot job.
+     * @param attempts The number of failed runs.
+     * @param version  The version of the job.
+     */
+    Job(final String id, final String type, final String payload, final long dueAt,
+        final long interval, final int attempts, final long version) {
+        this.id = id;
+        this.type = type;
+        this.payload = payload;
+        this.dueAt = dueAt;
+        this.interval = interval;
+        this.attempts = attempts;
+        this.version = version;
+    }
+
+    /**
+     * Creates a new version of the job, which is due at another time.
+     *
+     * @param dueAt    The time (epoch millis) at which the new version is due.
+     * @param attempts The number of failed runs.
+     * @return The new version.
+     */
+    Job reschedule(final long dueAt, final int attempts) {
+        return new Job(id, type, payload, dueAt, interval, attempts, nextVersion());
+    }
+
+    /**
+     * Creates the version of the next interval of a recurring job. Missed intervals are skipped,
+     * so a job which was due during a downtime runs once instead of catching up every interval.
+     *
+     * @param now The current time (epoch millis).
+     * @return The next version.
+     */
+    Job next(final long now) {
+        final long missed = Math.max(0, now - dueAt) / interval;
+        return reschedule(dueAt + (missed + 1) * interval, 0);
+    }
+
+    /**
+     * Creates a new version number, which is higher than every version before, also across restarts
+     * as long as the clock doesnt go back.
+     *
+     * @return The version.
+     */
+    static long nextVersion() {
+        final long now = System.currentTimeMillis() * 1000;
+        return VERSIONS.accumulateAndGet(now, (last, time) -> Math.max(last + 1, time));
+    }
+
+    /**
+     * Retrieves the unique id of the job, which is also its idempotency key.
+     *
+     * @return The id of the job.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Retrieves the type of the job, which selects the handler.
+     *
+     * @return The type of the job.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Retrieves the data of the job.
+     *
+     * @return The payload or null.
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * Retrieves the time at which the job is due.
+     *
+     * @return The epoch millis.
+     */
+    public long getDueAt() {
+        return dueAt;
+    }
+
+    /**
+     * Retrieves the interval of a recurring job.
+     *
+     * @return The interval in millis, or 0 for a one-shot job.
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Checks if the job runs repeatedly.
+     *
+     * @return True if the job has an interval.
+     */
+    public boolean isRecurring() {
+        return interval > 0;
+    }
+
+    /**
+     * Retrieves the number of failed runs since the last successful one.
+     *
+     * @return The number of attempts.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Retrieves the version of the job.
+     *
+     * @return The version.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Job[%s, %s, due %d]", id, type, dueAt);
+    }
+}
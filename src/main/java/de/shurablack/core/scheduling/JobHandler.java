@@ -0,0 +1,23 @@
+package de.shurablack.core.scheduling;
+
+/**
+ * Runs the durable jobs of one type of the {@link JobScheduler}.
+ * <br><br>
+ * A job is run at least once, so the handler should use {@link Job#getId()} as idempotency key,
+ * if a repeated run would do harm (e.g. sending a reminder twice).
+ *
+ * @version core-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+@FunctionalInterface
+public interface JobHandler {
+
+    /**
+     * Runs the job. If it throws, the job is retried with an increasing delay
+     *
+     * @param job The due job.
+     * @throws Exception to retry the job later.
+     */
+    void handle(Job job) throws Exception;
+}
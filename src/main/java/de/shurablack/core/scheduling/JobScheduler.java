@@ -0,0 +1,300 @@
+package de.shurablack.core.scheduling;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * The JobScheduler class runs durable one-shot and recurring jobs, which survive a restart of the application.
+ * <br><br>
+ * Every job is written to a {@link JobStore} before it is scheduled. Only the jobs of the next time window
+ * (default five minutes) are loaded into the {@link TimingWheel} of the {@link Dispatcher}, the following window
+ * is loaded in the background before it starts. So the start of the application reads one window instead of every
+ * pending job, overdue jobs included.
+ * <br><br>
+ * Due jobs run on the service executor with the {@link JobHandler} of their type. A job is removed from the store
+ * after its handler finished, so it runs at least once: a crash during the run repeats it after the restart.
+ * The id of the job is its idempotency key for the handler. A failed job is retried with a doubling delay
+ * up to one hour, a recurring job continues with its next interval after a successful run.
+ * </p>
+ * <pre>{@code
+ * Dispatcher.startJobs(FileJobStore.open(Paths.get("data/jobs")));
+ * Dispatcher.registerJobHandler("unmute", job -> unmute(job.getPayload()));
+ * Dispatcher.scheduleJob("unmute:" + memberId, "unmute", memberId, Instant.now().plus(Duration.ofHours(2)));
+ * }</pre>
+ * <p>
+ * Ids must be unique among the pending jobs. Scheduling an id, which is pending, replaces the job.
+ * </p>
+ *
+ * @see Dispatcher#startJobs(JobStore)
+ * @version core-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public class JobScheduler {
+
+    private static final Logger LOGGER = LogManager.getLogger(JobScheduler.class);
+
+    /** Default time span of the loaded jobs */
+    public static final Duration DEFAULT_WINDOW = Duration.ofMinutes(5);
+
+    /** First delay (millis) of a retry */
+    private static final long RETRY_DELAY = 1_000L;
+
+    /** Maximum delay (millis) of a retry */
+    private static final long MAX_RETRY_DELAY = 3_600_000L;
+
+    /** Store of the jobs */
+    private final JobStore store;
+
+    /** Time span (millis) of the loaded jobs */
+    private final long window;
+
+    /** Handlers by the type of the job */
+    private final Map<String, JobHandler> handlers = new ConcurrentHashMap<>();
+
+    /** Loaded jobs by their id */
+    private final Map<String, Loaded> loaded = new HashMap<>();
+
+    /** End (epoch millis, exclusive) of the loaded window */
+    private long loadedUntil = Long.MIN_VALUE;
+
+    /** Timer of the next window */
+    private TimingWheel.Timeout loader;
+
+    /** Indicates whether the scheduler got stopped */
+    private boolean stopped = false;
+
+    /**
+     * This constructs a new JobScheduler object
+     * @param store the store of the jobs
+     * @param window the time span of the loaded jobs
+     */
+    public JobScheduler(final JobStore store, final Duration window) {
+        this.store = store;
+        this.window = Math.max(1000, window.toMillis());
+    }
+
+    /**
+     * Loads the overdue jobs and the jobs of the first window
+     * @return the scheduler for chaining
+     */
+    public synchronized JobScheduler start() {
+        if (loadedUntil == Long.MIN_VALUE && !stopped) {
+            loadWindow();
+        }
+        return this;
+    }
+
+    /**
+     * Stops the scheduler. The pending jobs stay in the store
+     */
+    public synchronized void stop() {
+        stopped = true;
+        if (loader != null) {
+            loader.cancel();
+        }
+        loaded.values().forEach(job -> job.timeout.cancel());
+        loaded.clear();
+    }
+
+    /**
+     * Registers the handler of a job type
+     * @param type the type of the jobs
+     * @param handler the handler
+     * @return the scheduler for chaining
+     */
+    public JobScheduler register(final String type, final JobHandler handler) {
+        handlers.put(type, handler);
+        return this;
+    }
+
+    /**
+     * Schedules a job, which runs once at the due time
+     * @param id the unique id and idempotency key of the job
+     * @param type the type, which selects the handler
+     * @param payload the data of the job for the handler, may be null
+     * @param dueAt the time at which the job is due
+     * @return true if the job got stored and scheduled
+     */
+    public boolean schedule(final String id, final String type, final String payload, final Instant dueAt) {
+        return add(new Job(id, type, payload, dueAt.toEpochMilli(), 0, 0, Job.nextVersion()));
+    }
+
+    /**
+     * Schedules a job, which runs at the first due time and then repeatedly after the interval
+     * @param id the unique id and idempotency key of the job
+     * @param type the type, which selects the handler
+     * @param payload the data of the job for the handler, may be null
+     * @param first the time of the first run
+     * @param interval the interval between two runs
+     * @return true if the job got stored and scheduled
+     */
+    public boolean scheduleRecurring(final String id, final String type, final String payload,
+                                     final Instant first, final Duration interval) {
+        if (interval.toMillis() < 1) {
+            LOGGER.error("Interval of a recurring job must be at least 1ms", new IllegalArgumentException());
+            return false;
+        }
+        return add(new Job(id, type, payload, first.toEpochMilli(), interval.toMillis(), 0, Job.nextVersion()));
+    }
+
+    /**
+     * Cancels a pending job
+     * @param id the id of the job
+     */
+    public synchronized void cancel(final String id) {
+        final Loaded job = loaded.remove(id);
+        if (job != null) {
+            job.timeout.cancel();
+        }
+        store.cancel(id);
+    }
+
+    /**
+     * @return the number of jobs in the loaded window
+     */
+    public synchronized int getLoadedCount() {
+        return loaded.size();
+    }
+
+    /**
+     * Stores the job and schedules it, if it is due in the loaded window
+     * @param job the job
+     * @return true if the job got stored
+     */
+    private synchronized boolean add(final Job job) {
+        if (stopped) {
+            LOGGER.error(String.format("Job scheduler is stopped, %s isnt scheduled", job), new IllegalStateException());
+            return false;
+        }
+        if (!store.save(job)) {
+            LOGGER.error(String.format("Couldnt store %s, it isnt scheduled", job), new IllegalStateException());
+            return false;
+        }
+        if (job.getDueAt() < loadedUntil) {
+            arm(job);
+        } else {
+            disarm(job.getId());
+        }
+        return true;
+    }
+
+    /**
+     * Loads the jobs of the next window and schedules the following load
+     */
+    private synchronized void loadWindow() {
+        if (stopped) {
+            return;
+        }
+        final long until = System.currentTimeMillis() + window;
+        try {
+            int count = 0;
+            for (Job job : store.load(loadedUntil, until)) {
+                arm(job);
+                count++;
+            }
+            loadedUntil = until;
+            LOGGER.debug("Loaded {} jobs until {}", count, Instant.ofEpochMilli(until));
+        } catch (RuntimeException e) {
+            LOGGER.error("Couldnt load the next window of jobs", e);
+        }
+        // loaded at half of the window, so the next jobs are ready before they are due
+        loader = Dispatcher.schedule(window / 2, TimeUnit.MILLISECONDS, this::loadWindow);
+    }
+
+    /**
+     * Schedules the timer of a loaded job and replaces the timer of an older version
+     * @param job the job
+     */
+    private void arm(final Job job) {
+        final long delay = job.getDueAt() - System.currentTimeMillis();
+        final TimingWheel.Timeout timeout = Dispatcher.schedule(Math.max(0, delay), TimeUnit.MILLISECONDS, () -> run(job));
+        final Loaded previous = loaded.put(job.getId(), new Loaded(job, timeout));
+        if (previous != null) {
+            previous.timeout.cancel();
+        }
+    }
+
+    /**
+     * Removes the timer of a loaded job
+     * @param id the id of the job
+     */
+    private void disarm(final String id) {
+        final Loaded previous = loaded.remove(id);
+        if (previous != null) {
+            previous.timeout.cancel();
+        }
+    }
+
+    /**
+     * Runs a due job and removes, reschedules or retries it afterwards
+     * @param job the due job
+     */
+    private void run(final Job job) {
+        synchronized (this) {
+            final Loaded current = loaded.get(job.getId());
+            if (stopped || current == null || current.job != job) {
+                return;
+            }
+        }
+
+        Exception failure = null;
+        final JobHandler handler = handlers.get(job.getType());
+        if (handler == null) {
+            failure = new IllegalStateException(String.format("No handler is registered for the job type <%s>", job.getType()));
+        } else {
+            try {
+                handler.handle(job);
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+
+        synchronized (this) {
+            final Loaded current = loaded.get(job.getId());
+            if (stopped || current == null || current.job != job) {
+                // replaced or cancelled during the run, the new version is stored already
+                return;
+            }
+            final long now = System.currentTimeMillis();
+            if (failure != null) {
+                final int attempts = job.getAttempts() + 1;
+                final long delay = Math.min(MAX_RETRY_DELAY, RETRY_DELAY << Math.min(attempts - 1, 20));
+                LOGGER.error(String.format("%s failed %d times, retrying in %dms", job, attempts, delay), failure);
+                if (!add(job.reschedule(now + delay, attempts))) {
+                    // the stored version runs again after the restart
+                    loaded.remove(job.getId());
+                }
+            } else if (job.isRecurring()) {
+                if (!add(job.next(now))) {
+                    loaded.remove(job.getId());
+                }
+            } else {
+                loaded.remove(job.getId());
+                store.remove(job);
+            }
+        }
+    }
+
+    /**
+     * A loaded job with its timer
+     */
+    private static final class Loaded {
+
+        private final Job job;
+        private final TimingWheel.Timeout timeout;
+
+        private Loaded(final Job job, final TimingWheel.Timeout timeout) {
+            this.job = job;
+            this.timeout = timeout;
+        }
+    }
+}
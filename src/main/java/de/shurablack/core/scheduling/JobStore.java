@@ -0,0 +1,53 @@
+package de.shurablack.core.scheduling;
+
+import java.util.List;
+
+/**
+ * Persists the durable jobs of the {@link JobScheduler}.
+ * <br><br>
+ * The scheduler only keeps the jobs of the next time window in memory and loads the following window
+ * before it starts, so the store has to find jobs by their due time without reading every job.
+ * Every method is called while the scheduler holds its lock, so implementations dont need to synchronize
+ * against the scheduler.
+ *
+ * @see FileJobStore
+ * @see SqlJobStore
+ * @version core-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public interface JobStore {
+
+    /**
+     * Stores a new job or a new version of a job, which replaces the older version.
+     * The scheduler only schedules the job, if it got stored.
+     *
+     * @param job The job.
+     * @return True if the job got stored, false if the write failed.
+     */
+    boolean save(Job job);
+
+    /**
+     * Removes a job, which finished or got cancelled, and every older version of it.
+     *
+     * @param job The loaded job.
+     */
+    void remove(Job job);
+
+    /**
+     * Removes the job with the id, which may not be loaded yet.
+     *
+     * @param id The id of the job.
+     */
+    void cancel(String id);
+
+    /**
+     * Loads the jobs, which are due in the time window. The first call of a scheduler
+     * passes {@link Long#MIN_VALUE} as start, to load every overdue job.
+     *
+     * @param from  The start (epoch millis, inclusive) of the window.
+     * @param until The end (epoch millis, exclusive) of the window.
+     * @return The due jobs.
+     */
+    List<Job> load(long from, long until);
+}
@@ -0,0 +1,23 @@
+package de.shurablack.core.scheduling;
+
+/**
+ * Defines what happens, if a cron task gets triggered while its previous run is still executing.
+ *
+ * @see Dispatcher#scheduleCronTask(String, String, Runnable, OverlapPolicy)
+ * @version core-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public enum OverlapPolicy {
+
+    /**
+     * The trigger is dropped and counted as skipped run
+     */
+    SKIP,
+
+    /**
+     * The task runs once more after the current run. Further triggers meanwhile are skipped,
+     * so a slow task never has more than one run waiting
+     */
+    QUEUE
+}
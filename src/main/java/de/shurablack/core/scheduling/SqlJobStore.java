@@ -0,0 +1,112 @@
+package de.shurablack.core.scheduling;
+
+import de.shurablack.sql.SQLRequest;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * The SqlJobStore class keeps the durable jobs in a database table through {@link SQLRequest}.
+ * <br><br>
+ * The table is indexed by the due time, so loading a time window only reads the jobs of the window.
+ * Writes use {@link SQLRequest#runUpdate(String, Object...)} and are never spooled, so a job, which couldnt be
+ * stored, isnt scheduled either. Windows are read from the primary, since a replica may miss the latest jobs.
+ * </p>
+ * <pre>{@code
+ * CREATE TABLE scheduled_jobs (
+ *     id VARCHAR(191) PRIMARY KEY,
+ *     type VARCHAR(64) NOT NULL,
+ *     payload TEXT,
+ *     due_at BIGINT NOT NULL,
+ *     interval_ms BIGINT NOT NULL,
+ *     attempts INT NOT NULL,
+ *     version BIGINT NOT NULL,
+ *     INDEX (due_at)
+ * )
+ * }</pre>
+ *
+ * @see JobScheduler
+ * @version core-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public class SqlJobStore implements JobStore {
+
+    /** Default name of the table */
+    public static final String DEFAULT_TABLE = "scheduled_jobs";
+
+    /** Name of the table */
+    private final String table;
+
+    /**
+     * This constructs a new SqlJobStore object with the default table
+     */
+    public SqlJobStore() {
+        this(DEFAULT_TABLE);
+    }
+
+    /**
+     * This constructs a new SqlJobStore object
+     * @param table the name of the table
+     */
+    public SqlJobStore(final String table) {
+        this.table = table;
+    }
+
+    /**
+     * Creates the table, if it doesnt exist
+     * @return the store for chaining
+     */
+    public SqlJobStore createTable() {
+        SQLRequest.runUpdate(String.format("CREATE TABLE IF NOT EXISTS %s (id VARCHAR(191) PRIMARY KEY, " +
+                "type VARCHAR(64) NOT NULL, payload TEXT, due_at BIGINT NOT NULL, interval_ms BIGINT NOT NULL, " +
+                "attempts INT NOT NULL, version BIGINT NOT NULL, INDEX (due_at))", table));
+        return this;
+    }
+
+    @Override
+    public boolean save(final Job job) {
+        return SQLRequest.runUpdate(String.format("INSERT INTO %s (id, type, payload, due_at, interval_ms, attempts, version) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE type = VALUES(type), payload = VALUES(payload), " +
+                        "due_at = VALUES(due_at), interval_ms = VALUES(interval_ms), attempts = VALUES(attempts), " +
+                        "version = VALUES(version)", table),
+                job.getId(), job.getType(), job.getPayload(), job.getDueAt(), job.getInterval(),
+                job.getAttempts(), job.getVersion()) >= 0;
+    }
+
+    @Override
+    public void remove(final Job job) {
+        // a newer version, which got saved meanwhile, stays
+        SQLRequest.runUpdate(String.format("DELETE FROM %s WHERE id = ? AND version <= ?", table), job.getId(), job.getVersion());
+    }
+
+    @Override
+    public void cancel(final String id) {
+        SQLRequest.runUpdate(String.format("DELETE FROM %s WHERE id = ?", table), id);
+    }
+
+    @Override
+    public List<Job> load(final long from, final long until) {
+        // the transaction runs on the primary and throws on failure, so the scheduler retries the window
+        return SQLRequest.transactionResult(request -> {
+            final List<Job> jobs = new ArrayList<>();
+            request.result(String.format("SELECT id, type, payload, due_at, interval_ms, attempts, version " +
+                    "FROM %s WHERE due_at >= ? AND due_at < ? ORDER BY due_at", table), SqlJobStore::map, jobs, from, until);
+            return jobs;
+        });
+    }
+
+    /**
+     * Converts the current row into a job
+     * @param rs the result set, positioned on the row
+     * @return the job
+     * @throws SQLException if a column couldnt be read
+     */
+    private static Job map(final ResultSet rs) throws SQLException {
+        return new Job(rs.getString("id"), rs.getString("type"), rs.getString("payload"), rs.getLong("due_at"),
+                rs.getLong("interval_ms"), rs.getInt("attempts"), rs.getLong("version"));
+    }
+}
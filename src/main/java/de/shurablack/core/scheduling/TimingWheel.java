@@ -0,0 +1,403 @@
+package de.shurablack.core.scheduling;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * The TimingWheel class runs one-shot tasks after a delay, like reminders, temporary mutes or button expiries.
+ * <br><br>
+ * The timers are kept in a hierarchical hashed timing wheel: {@value #LEVELS} wheels of {@value #WHEEL_SIZE} buckets,
+ * where every bucket of a wheel spans a full turn of the wheel below. With a tick of 10ms the first wheel covers
+ * 5 seconds, the second 43 minutes, the third 15 days and the last 21 years. A timer is linked into the bucket
+ * of its deadline and moves down a wheel, once the wheel below reaches its bucket. So scheduling and cancelling
+ * are O(1) and a tick only touches the timers, which are due or move down, no matter how many timers are pending.
+ * <br><br>
+ * A single ticker thread owns the wheels. Other threads hand new and cancelled timers over lock-free queues,
+ * and expired tasks are passed to the executor, so a slow task never delays the other timers.
+ * Without pending timers the ticker sleeps until the next one is scheduled.
+ * </p>
+ *
+ * @see Dispatcher#schedule(long, TimeUnit, Runnable)
+ * @version core-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public final class TimingWheel {
+
+    private static final Logger LOGGER = LogManager.getLogger(TimingWheel.class);
+
+    /** Default duration (millis) of a tick */
+    public static final long DEFAULT_TICK = 10L;
+
+    private static final int WHEEL_BITS = 9;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    /** Largest distance in ticks, which the wheels can hold. Later timers are moved down repeatedly */
+    private static final long MAX_TICKS = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    /** Longest time (nanos) the idle ticker sleeps without a new timer */
+    private static final long IDLE_PARK = TimeUnit.SECONDS.toNanos(1);
+
+    /** Duration (nanos) of a tick */
+    private final long tickNanos;
+
+    /** Executor of the expired tasks */
+    private final Executor executor;
+
+    /** First timer of every bucket per wheel */
+    private final Timeout[][] buckets = new Timeout[LEVELS][WHEEL_SIZE];
+
+    /** Scheduled timers, which the ticker didnt link yet */
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+
+    /** Cancelled timers, which the ticker didnt unlink yet */
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+    /** Number of pending timers */
+    private final AtomicLong pending = new AtomicLong();
+
+    /** Start (nanos) of the first tick */
+    private final long start;
+
+    /** The ticker thread */
+    private final Thread ticker;
+
+    /** Next tick to process, only used by the ticker */
+    private long tick = 0;
+
+    /** Number of linked timers, only used by the ticker */
+    private long linked = 0;
+
+    /** Indicates whether the ticker sleeps without pending timers */
+    private volatile boolean idle = false;
+
+    /** Indicates whether the wheel got stopped */
+    private volatile boolean stopped = false;
+
+    /**
+     * This constructs a new TimingWheel object and starts its ticker thread
+     * @param tick the duration of a tick in millis, which is the precision of the timers
+     * @param executor the executor of the expired tasks
+     */
+    public TimingWheel(final long tick, final Executor executor) {
+        if (tick < 1) {
+            LOGGER.error("Tick of the timing wheel must be at least 1ms", new IllegalArgumentException());
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tick));
+        this.executor = executor;
+        this.start = System.nanoTime();
+        this.ticker = new Thread(this::runTicker, "TimingWheel_Ticker");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * Schedules a task, which runs once after the delay
+     * @param delay the delay
+     * @param unit the unit of the delay
+     * @param task the task
+     * @return the timeout to cancel the task, or null if the wheel is stopped
+     */
+    public Timeout schedule(final long delay, final TimeUnit unit, final Runnable task) {
+        if (stopped) {
+            LOGGER.error("Timing wheel is stopped, the task isnt scheduled", new IllegalStateException());
+            return null;
+        }
+        // Limited, so the deadline cant overflow
+        final long nanos = Math.min(Math.max(0, unit.toNanos(delay)), Long.MAX_VALUE / 4);
+        final Timeout timeout = new Timeout(this, task, System.nanoTime() + nanos);
+        pending.incrementAndGet();
+        added.add(timeout);
+        if (idle) {
+            LockSupport.unpark(ticker);
+        }
+        return timeout;
+    }
+
+    /**
+     * Stops the ticker. Pending timers are dropped
+     * @return the number of dropped timers
+     */
+    public long stop() {
+        stopped = true;
+        LockSupport.unpark(ticker);
+        if (Thread.currentThread() != ticker) {
+            try {
+                ticker.join(TimeUnit.NANOSECONDS.toMillis(tickNanos) + 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return pending.getAndSet(0);
+    }
+
+    /**
+     * @return the number of timers, which are neither expired nor cancelled
+     */
+    public long size() {
+        return pending.get();
+    }
+
+    /**
+     * @return the duration of a tick in millis
+     */
+    public long getTick() {
+        return TimeUnit.NANOSECONDS.toMillis(tickNanos);
+    }
+
+    /**
+     * Processes the ticks in time, until the wheel gets stopped
+     */
+    private void runTicker() {
+        while (!stopped) {
+            try {
+                final long now = System.nanoTime();
+                final long current = (now - start) / tickNanos;
+                if (linked == 0 && added.isEmpty()) {
+                    // Nothing to move or expire, so the skipped ticks dont need to be processed
+                    tick = Math.max(tick, current + 1);
+                    drainCancelled();
+                    idle = true;
+                    if (added.isEmpty() && !stopped) {
+                        LockSupport.parkNanos(this, IDLE_PARK);
+                    }
+                    idle = false;
+                    continue;
+                }
+                while (tick <= current && !stopped) {
+                    drainAdded();
+                    drainCancelled();
+                    cascade();
+                    expire();
+                    tick++;
+                }
+                final long sleep = start + tick * tickNanos - System.nanoTime();
+                if (sleep > 0) {
+                    LockSupport.parkNanos(this, sleep);
+                }
+            } catch (Exception e) {
+                LOGGER.error("An error occurred in the timing wheel", e);
+            }
+        }
+    }
+
+    /**
+     * Links the new timers into the buckets of their deadlines
+     */
+    private void drainAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state != Timeout.PENDING) {
+                continue;
+            }
+            final long deadline = timeout.deadline - start;
+            timeout.deadlineTick = deadline <= 0 ? 0 : (deadline + tickNanos - 1) / tickNanos;
+            link(timeout);
+        }
+    }
+
+    /**
+     * Unlinks the cancelled timers from their buckets
+     */
+    private void drainCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.level >= 0) {
+                unlink(timeout);
+            }
+        }
+    }
+
+    /**
+     * Moves the timers of the buckets, which the wheels below reached, down a wheel.
+     * The upper wheels go first, so a timer can move down multiple wheels in the same tick
+     */
+    private void cascade() {
+        for (int level = LEVELS - 1; level > 0; level--) {
+            final int shift = WHEEL_BITS * level;
+            if ((tick & ((1L << shift) - 1)) != 0) {
+                continue;
+            }
+            final int index = (int) ((tick >>> shift) & WHEEL_MASK);
+            Timeout timeout = buckets[level][index];
+            buckets[level][index] = null;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                timeout.prev = null;
+                timeout.next = null;
+                timeout.level = -1;
+                linked--;
+                link(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    /**
+     * Hands the timers of the current bucket to the executor
+     */
+    private void expire() {
+        final int index = (int) (tick & WHEEL_MASK);
+        Timeout timeout = buckets[0][index];
+        buckets[0][index] = null;
+        while (timeout != null) {
+            final Timeout next = timeout.next;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.level = -1;
+            linked--;
+            if (Timeout.STATE.compareAndSet(timeout, Timeout.PENDING, Timeout.EXPIRED)) {
+                pending.decrementAndGet();
+                try {
+                    executor.execute(timeout::execute);
+                } catch (RejectedExecutionException e) {
+                    LOGGER.error("Executor rejected an expired task", e);
+                }
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Links the timer into the bucket of the lowest wheel, which reaches its deadline
+     * @param timeout the timer
+     */
+    private void link(final Timeout timeout) {
+        long deadline = Math.max(timeout.deadlineTick, tick);
+        final long distance = deadline - tick;
+        int level = 0;
+        while (level < LEVELS - 1 && distance >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        if (distance > MAX_TICKS) {
+            deadline = tick + MAX_TICKS;
+        }
+        final int index = (int) ((deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        final Timeout head = buckets[level][index];
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        buckets[level][index] = timeout;
+        timeout.level = level;
+        timeout.index = index;
+        linked++;
+    }
+
+    /**
+     * Removes the timer from its bucket
+     * @param timeout the linked timer
+     */
+    private void unlink(final Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.level][timeout.index] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.level = -1;
+        linked--;
+    }
+
+    /**
+     * A scheduled task of the {@link TimingWheel}, which can be cancelled until it expired
+     */
+    public static final class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimingWheel wheel;
+        private final Runnable task;
+
+        /** Deadline (nanos) of the task */
+        private final long deadline;
+
+        private volatile int state = PENDING;
+
+        /** Tick of the deadline and the position in the wheels, only used by the ticker */
+        private long deadlineTick;
+        private int level = -1;
+        private int index;
+        private Timeout prev;
+        private Timeout next;
+
+        /**
+         * This constructs a new Timeout object
+         * @param wheel the wheel of the timer
+         * @param task the task
+         * @param deadline the deadline in nanos
+         */
+        private Timeout(final TimingWheel wheel, final Runnable task, final long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task, if it didnt expire yet
+         * @return true if the task got cancelled by this call
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.pending.decrementAndGet();
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * @return true if the task got cancelled
+         */
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        /**
+         * @return true if the task got handed to the executor
+         */
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        /**
+         * @param unit the unit of the result
+         * @return the remaining delay, negative if the deadline passed
+         */
+        public long getDelay(final TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Runs the task and logs its failure
+         */
+        private void execute() {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("A delayed task failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package de.shurablack.sql;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * The BulkWriter class inserts or upserts a collection of rows with as few statements as possible.
+ * <br><br>
+ * The rows are split into multi-row {@code INSERT ... VALUES (?,?),(?,?)} statements, which are bounded by the
+ * maximum number of rows and by the estimated size of the statement in bytes, so a single statement doesnt
+ * exceed the "max_allowed_packet" of the database. The values are bound as parameters and statements with the
+ * same number of rows share one cached prepared statement. The remaining rows, which dont fill a statement, are
+ * written with statements of a power of two rows (e.g. 37 rows as 32, 4 and 1), so only a few statement shapes
+ * are rendered and prepared per connection.
+ * <br><br>
+ * Rows can be passed as arrays in the order of the columns, mapped from any object with a function,
+ * or read from beans, whose getters (or record accessors) match the column names.
+ * <br><br>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * BulkWriter.into("members", "guild_id", "user_id", "name")
+ *     .upsert("name")
+ *     .write(members, member -> new Object[] {guildId, member.getIdLong(), member.getEffectiveName()});
+ * }</pre>
+ *
+ * @see FluentSqlBuilder#INSERT_ROWS(String, List, int)
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public class BulkWriter {
+
+    /** Class Logger */
+    private static final Logger LOGGER = LogManager.getLogger(BulkWriter.class);
+
+    /** Default maximum number of rows per statement */
+    public static final int DEFAULT_MAX_ROWS = 1000;
+
+    /** Default maximum estimated size (bytes) of a statement */
+    public static final int DEFAULT_MAX_BYTES = 1 << 20;
+
+    /** Maximum number of placeholders of a prepared statement in MySQL */
+    private static final int MAX_PLACEHOLDERS = 65_535;
+
+    /** Lookup to create the getter handles */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /** The table of the rows */
+    private final String table;
+
+    /** The columns of the rows in order */
+    private final List<String> columns;
+
+    /** The columns which are updated, if the row exists, or null for a plain insert */
+    private List<String> updateColumns;
+
+    /** Maximum number of rows per statement */
+    private int maxRows = DEFAULT_MAX_ROWS;
+
+    /** Maximum estimated size (bytes) of a statement */
+    private int maxBytes = DEFAULT_MAX_BYTES;
+
+    /** Indicates whether all statements are committed in one transaction */
+    private boolean transactional = false;
+
+    /** Rendered statements per number of rows */
+    private final Map<Integer, String> statements = new ConcurrentHashMap<>();
+
+    /** Getters of the columns per bean class */
+    private final Map<Class<?>, MethodHandle[]> getters = new ConcurrentHashMap<>();
+
+    /**
+     * This constructs a new BulkWriter object
+     * @param table the table of the rows
+     * @param columns the columns of the rows in order
+     */
+    private BulkWriter(final String table, final List<String> columns) {
+        this.table = table;
+        this.columns = columns;
+    }
+
+    /**
+     * Creates a new writer, which inserts rows into the table
+     * @param table the specified table
+     * @param columns the columns of the rows in order
+     * @return the writer for chaining or null, if no column is given
+     */
+    public static BulkWriter into(final String table, final String... columns) {
+        if (columns.length == 0) {
+            LOGGER.error("A bulk write needs at least one column", new IllegalArgumentException());
+            return null;
+        }
+        return new BulkWriter(table, Collections.unmodifiableList(Arrays.asList(columns.clone())));
+    }
+
+    /**
+     * Updates existing rows instead of failing on a duplicate key (ON DUPLICATE KEY UPDATE)
+     * @param columns the columns which will be updated, none to update every column
+     * @return the writer for chaining
+     */
+    public BulkWriter upsert(final String... columns) {
+        this.updateColumns = columns.length == 0 ? this.columns : Collections.unmodifiableList(Arrays.asList(columns.clone()));
+        this.statements.clear();
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of rows per statement
+     * @param maxRows the number of rows
+     * @return the writer for chaining
+     */
+    public BulkWriter setMaxRows(final int maxRows) {
+        if (maxRows < 1) {
+            LOGGER.error("Bulk write rows must be greater than 0", new IllegalArgumentException());
+            return this;
+        }
+        this.maxRows = maxRows;
+        return this;
+    }
+
+    /**
+     * Sets the maximum estimated size of a statement. Should be below the "max_allowed_packet" of the database
+     * @param maxBytes the size in bytes
+     * @return the writer for chaining
+     */
+    public BulkWriter setMaxBytes(final int maxBytes) {
+        if (maxBytes < 1) {
+            LOGGER.error("Bulk write bytes must be greater than 0", new IllegalArgumentException());
+            return this;
+        }
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    /**
+     * Writes all rows in one transaction, which is rolled back if a statement fails
+     * @param transactional true to use one transaction
+     * @return the writer for chaining
+     */
+    public BulkWriter setTransactional(final boolean transactional) {
+        this.transactional = transactional;
+        return this;
+    }
+
+    /**
+     * Writes the rows
+     * @param rows the values of every row in the order of the columns
+     * @return the number of written rows
+     */
+    public int write(final Collection<Object[]> rows) {
+        return write(rows, Function.identity());
+    }
+
+    /**
+     * Writes the objects as rows
+     * @param items the objects
+     * @param mapper converts an object into the values of the columns in order
+     * @param <T> the class type of the objects
+     * @return the number of written rows
+     */
+    public <T> int write(final Collection<T> items, final Function<? super T, Object[]> mapper) {
+        final List<Chunk> chunks = split(items, mapper);
+        if (chunks.isEmpty()) {
+            return 0;
+        }
+
+        if (transactional) {
+            try {
+                return SQLRequest.transactionResult(request -> {
+                    int written = 0;
+                    for (Chunk chunk : chunks) {
+                        request.execute(statement(chunk.rows), chunk.params.toArray());
+                        written += chunk.rows;
+                    }
+                    return written;
+                });
+            } catch (SQLRequestException | ConnectionPoolException e) {
+                LOGGER.error(String.format("Bulk write into <%s> failed and got rolled back", table), e);
+                return 0;
+            }
+        }
+
+        int written = 0;
+        for (Chunk chunk : chunks) {
+            final String sql = statement(chunk.rows);
+            try {
+                SQLRequest.executeChecked(sql, chunk.params.toArray());
+                written += chunk.rows;
+            } catch (SQLException | ConnectionPoolException e) {
+                LOGGER.error(String.format("Couldnt write %d rows into <%s>\nSQL: <%s>", chunk.rows, table, sql), e);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Writes the beans as rows. The values are read from the getters or record accessors,
+     * which match the column names (case-insensitive, underscores ignored)
+     * @param beans the beans
+     * @param <T> the class type of the beans
+     * @return the number of written rows
+     * @throws SQLRequestException if a column has no getter in the bean class
+     */
+    public <T> int writeBeans(final Collection<T> beans) {
+        return write(beans, this::readBean);
+    }
+
+    /**
+     * Splits the rows into chunks, which keep the row, byte and placeholder limits
+     * @param items the objects
+     * @param mapper converts an object into the values of the columns
+     * @return the chunks
+     */
+    private <T> List<Chunk> split(final Collection<T> items, final Function<? super T, Object[]> mapper) {
+        final int rowLimit = Math.max(1, Math.min(maxRows, MAX_PLACEHOLDERS / columns.size()));
+        final int baseBytes = statement(1).length();
+        final List<Chunk> chunks = new ArrayList<>();
+        Chunk chunk = null;
+        for (T item : items) {
+            final Object[] row = mapper.apply(item);
+            if (row == null || row.length != columns.size()) {
+                LOGGER.error(String.format("Row for <%s> needs %d values, but got %s", table, columns.size(),
+                        Arrays.toString(row)), new IllegalArgumentException());
+                continue;
+            }
+            final int rowBytes = estimate(row);
+            if (chunk == null || chunk.rows >= rowLimit || (chunk.rows > 0 && chunk.bytes + rowBytes > maxBytes)) {
+                chunk = new Chunk(baseBytes);
+                chunks.add(chunk);
+            }
+            chunk.add(row, rowBytes);
+        }
+
+        final List<Chunk> shaped = new ArrayList<>(chunks.size());
+        for (Chunk full : chunks) {
+            if (full.rows == rowLimit) {
+                shaped.add(full);
+                continue;
+            }
+            int offset = 0;
+            for (int rows = Integer.highestOneBit(full.rows); rows > 0; rows >>= 1) {
+                if ((full.rows & rows) != 0) {
+                    shaped.add(full.part(offset, rows, columns.size()));
+                    offset += rows;
+                }
+            }
+        }
+        return shaped;
+    }
+
+    /**
+     * Returns the rendered statement for a number of rows
+     * @param rows the number of rows
+     * @return the SQL statement with ? placeholders
+     */
+    private String statement(final int rows) {
+        return statements.computeIfAbsent(rows, count -> {
+            final FluentSqlBuilder builder = FluentSqlBuilder.create().INSERT_ROWS(table, columns, count);
+            if (updateColumns != null) {
+                builder.ON_DUPLICATE_UPDATE(updateColumns);
+            }
+            return builder.freeze().getSql();
+        });
+    }
+
+    /**
+     * @return the number of rendered statement shapes
+     */
+    int getStatementShapes() {
+        return statements.size();
+    }
+
+    /**
+     * Estimates the size of a row in the statement, as the driver sends the values inlined as text
+     * @param row the values
+     * @return the estimated size in bytes
+     */
+    private static int estimate(final Object[] row) {
+        int bytes = 3;
+        for (Object value : row) {
+            if (value == null) {
+                bytes += 5;
+            } else if (value instanceof CharSequence) {
+                bytes += ((CharSequence) value).length() * 4 + 3;
+            } else if (value instanceof byte[]) {
+                bytes += ((byte[]) value).length * 2 + 4;
+            } else if (value instanceof Number || value instanceof Boolean) {
+                bytes += 21;
+            } else {
+                bytes += value.toString().getBytes(StandardCharsets.UTF_8).length * 2 + 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Reads the values of the columns from a bean
+     * @param bean the bean
+     * @return the values in the order of the columns
+     */
+    private Object[] readBean(final Object bean) {
+        final MethodHandle[] handles = getters.computeIfAbsent(bean.getClass(), this::resolveGetters);
+        final Object[] row = new Object[handles.length];
+        for (int i = 0; i < handles.length; i++) {
+            try {
+                row[i] = (Object) handles[i].invokeExact(bean);
+            } catch (Throwable t) {
+                throw new SQLRequestException(String.format("Couldnt read column <%s> from %s",
+                        columns.get(i), bean.getClass().getName()), t);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Finds the getter or accessor of every column
+     * @param cls the bean class
+     * @return the getter handles in the order of the columns
+     */
+    private MethodHandle[] resolveGetters(final Class<?> cls) {
+        final PropertyDescriptor[] properties;
+        try {
+            properties = Introspector.getBeanInfo(cls).getPropertyDescriptors();
+        } catch (IntrospectionException e) {
+            throw new SQLRequestException(String.format("Couldnt inspect %s", cls.getName()), e);
+        }
+
+        final MethodHandle[] handles = new MethodHandle[columns.size()];
+        for (int i = 0; i < handles.length; i++) {
+            Method getter = null;
+            for (PropertyDescriptor property : properties) {
+                if (property.getReadMethod() != null && RowMappers.matches(property.getName(), columns.get(i))) {
+                    getter = property.getReadMethod();
+                    break;
+                }
+            }
+            if (getter == null) {
+                for (Method method : cls.getMethods()) {
+                    if (method.getParameterCount() == 0 && !Modifier.isStatic(method.getModifiers())
+                            && method.getReturnType() != void.class && RowMappers.matches(method.getName(), columns.get(i))) {
+                        getter = method;
+                        break;
+                    }
+                }
+            }
+            if (getter == null) {
+                throw new SQLRequestException(String.format("%s has no getter for column <%s>",
+                        cls.getName(), columns.get(i)), new NoSuchMethodException());
+            }
+            try {
+                getter.trySetAccessible();
+                handles[i] = LOOKUP.unreflect(getter).asType(MethodType.methodType(Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                throw new SQLRequestException(String.format("Couldnt access the getter of column <%s>", columns.get(i)), e);
+            }
+        }
+        return handles;
+    }
+
+    /**
+     * Rows of one statement
+     */
+    private static final class Chunk {
+
+        private final List<Object> params = new ArrayList<>();
+        private int rows = 0;
+        private int bytes;
+
+        Chunk(final int bytes) {
+            this.bytes = bytes;
+        }
+
+        void add(final Object[] row, final int rowBytes) {
+            params.addAll(Arrays.asList(row));
+            rows++;
+            bytes += rowBytes;
+        }
+
+        /**
+         * @param offset the first row of the part
+         * @param count the number of rows of the part
+         * @param width the number of values per row
+         * @return a chunk with the rows of this chunk in the range
+         */
+        Chunk part(final int offset, final int count, final int width) {
+            final Chunk part = new Chunk(0);
+            part.params.addAll(params.subList(offset * width, (offset + count) * width));
+            part.rows = count;
+            return part;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package de.shurablack.sql;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * The CircuitBreaker class stops the {@link ConnectionPool} from waiting on a database, which is unreachable.
+ * <br><br>
+ * After a number of consecutive failed connection attempts the circuit opens and every request fails
+ * immediately with a {@link ConnectionPoolException}, instead of blocking its thread for the connection timeout.
+ * After the open time one request is let through as trial (half open). If it gets a connection the circuit
+ * closes again, otherwise it stays open and the open time doubles up to its maximum.
+ * <br><br>
+ * The housekeeper of the pool keeps trying to open its minimum idle connections in the background,
+ * so the circuit also closes without requests, once the database is reachable again.
+ * </p>
+ *
+ * @see ConnectionPool#getCircuitBreaker()
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public class CircuitBreaker {
+
+    /** Class Logger */
+    private static final Logger LOGGER = LogManager.getLogger(CircuitBreaker.class);
+
+    /** Default number of consecutive failures, which open the circuit */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+
+    /** Default time (millis) the circuit stays open before a trial */
+    public static final long DEFAULT_OPEN_TIME = 5_000L;
+
+    /** Default maximum time (millis) the circuit stays open before a trial */
+    public static final long DEFAULT_MAX_OPEN_TIME = 60_000L;
+
+    /**
+     * State of the circuit
+     */
+    public enum State {
+        /** Requests pass */
+        CLOSED,
+        /** Requests fail immediately */
+        OPEN,
+        /** A single trial request passes */
+        HALF_OPEN
+    }
+
+    /** Name of the guarded resource for the log */
+    private final String name;
+
+    /** Current state */
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    /** Consecutive failures */
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /** Number of consecutive failures, which open the circuit */
+    private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+
+    /** Time (nanos) the circuit stays open at first */
+    private long openTime = TimeUnit.MILLISECONDS.toNanos(DEFAULT_OPEN_TIME);
+
+    /** Maximum time (nanos) the circuit stays open */
+    private long maxOpenTime = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_OPEN_TIME);
+
+    /** Time (nanos) the circuit stays open after the current failure */
+    private volatile long currentOpenTime = openTime;
+
+    /** Time (nanos) until which the circuit is open, or the trial is running */
+    private volatile long openUntil = System.nanoTime();
+
+    /**
+     * This constructs a new CircuitBreaker object
+     * @param name the name of the guarded resource for the log
+     */
+    CircuitBreaker(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Sets the number of consecutive failed connection attempts, which open the circuit
+     * @param threshold the number of failures or 0 to never open it
+     * @return the breaker for chaining
+     */
+    public CircuitBreaker setFailureThreshold(final int threshold) {
+        if (threshold < 0) {
+            LOGGER.error("Circuit failure threshold cant be negative", new IllegalArgumentException());
+            return this;
+        }
+        this.failureThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Sets the time the circuit stays open, which doubles with every failed trial up to the maximum
+     * @param openTime the first open time in millis
+     * @param maxOpenTime the maximum open time in millis
+     * @return the breaker for chaining
+     */
+    public CircuitBreaker setOpenTime(final long openTime, final long maxOpenTime) {
+        if (openTime < 1 || maxOpenTime < openTime) {
+            LOGGER.error("Circuit open time must be greater than 0 and not exceed the maximum", new IllegalArgumentException());
+            return this;
+        }
+        this.openTime = TimeUnit.MILLISECONDS.toNanos(openTime);
+        this.maxOpenTime = TimeUnit.MILLISECONDS.toNanos(maxOpenTime);
+        this.currentOpenTime = this.openTime;
+        return this;
+    }
+
+    /**
+     * Takes the thresholds of another breaker
+     * @param other the breaker with the settings
+     */
+    void copySettings(final CircuitBreaker other) {
+        this.failureThreshold = other.failureThreshold;
+        this.openTime = other.openTime;
+        this.maxOpenTime = other.maxOpenTime;
+        this.currentOpenTime = other.openTime;
+    }
+
+    /**
+     * Checks if a request may pass. An open circuit lets a single trial pass after its open time
+     * @return true if the request may try to get a connection
+     */
+    boolean allowRequest() {
+        final State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        final long now = System.nanoTime();
+        if (now - openUntil < 0) {
+            return false;
+        }
+        // the open time passed or the previous trial didnt report back, let one request try
+        if (state.compareAndSet(current, State.HALF_OPEN)) {
+            openUntil = now + currentOpenTime;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a successful connection attempt and closes the circuit
+     */
+    void recordSuccess() {
+        if (failures.get() != 0) {
+            failures.set(0);
+        }
+        if (state.get() != State.CLOSED && state.getAndSet(State.CLOSED) != State.CLOSED) {
+            currentOpenTime = openTime;
+            LOGGER.info("Circuit closed, the database is reachable again <{}>", name);
+        }
+    }
+
+    /**
+     * Records a failed connection attempt and opens the circuit, if the threshold is reached or the trial failed
+     */
+    void recordFailure() {
+        final int count = failures.incrementAndGet();
+        final State current = state.get();
+        if (current == State.HALF_OPEN) {
+            final long next = Math.min(currentOpenTime * 2, maxOpenTime);
+            if (state.compareAndSet(State.HALF_OPEN, State.OPEN)) {
+                currentOpenTime = next;
+                openUntil = System.nanoTime() + next;
+                LOGGER.warn("Circuit trial failed, failing fast for {}ms <{}>", TimeUnit.NANOSECONDS.toMillis(next), name);
+            }
+        } else if (current == State.CLOSED && failureThreshold > 0 && count >= failureThreshold
+                && state.compareAndSet(State.CLOSED, State.OPEN)) {
+            openUntil = System.nanoTime() + currentOpenTime;
+            LOGGER.error("Circuit opened after {} failed connection attempts, failing fast for {}ms <{}>",
+                    count, TimeUnit.NANOSECONDS.toMillis(currentOpenTime), name);
+        }
+    }
+
+    /**
+     * @return the current state of the circuit
+     */
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * @return true if requests fail immediately at the moment
+     */
+    public boolean isOpen() {
+        return state.get() != State.CLOSED && System.nanoTime() - openUntil < 0;
+    }
+
+    /**
+     * @return the number of consecutive failed connection attempts
+     */
+    public int getFailures() {
+        return failures.get();
+    }
+}
@@ -0,0 +1,191 @@
+package de.shurablack.sql;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * The ConcurrentBag class is the lock-free storage behind the {@link ConnectionPool}.
+ * <br><br>
+ * A borrowing thread first checks the entries it returned itself (thread-local fast reuse), then scans
+ * the shared list and finally waits on a handoff queue. Returning threads hand their entry directly
+ * to a waiting thread, if there is one. No step of this takes a monitor, so borrowers never serialize
+ * on a single lock.
+ * </p>
+ *
+ * @see PoolEntry
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+final class ConcurrentBag {
+
+    /** Maximum number of entries which are remembered per thread */
+    private static final int THREAD_LIST_SIZE = 16;
+
+    /** All entries of the bag */
+    private final CopyOnWriteArrayList<PoolEntry> sharedList = new CopyOnWriteArrayList<>();
+
+    /** Entries which got returned by the current thread */
+    private final ThreadLocal<List<WeakReference<PoolEntry>>> threadList = ThreadLocal.withInitial(ArrayList::new);
+
+    /** Number of threads which are currently waiting for an entry */
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    /** Queue to hand over returned entries directly to waiting threads */
+    private final SynchronousQueue<PoolEntry> handoffQueue = new SynchronousQueue<>(true);
+
+    /**
+     * Borrows an entry from the bag and waits up to the given timeout if none is available
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return the borrowed entry (state {@link PoolEntry#STATE_IN_USE}) or null on timeout
+     * @throws InterruptedException if the thread got interrupted while waiting
+     */
+    PoolEntry borrow(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final List<WeakReference<PoolEntry>> list = threadList.get();
+        for (int i = list.size() - 1; i >= 0; i--) {
+            final PoolEntry entry = list.remove(i).get();
+            if (entry != null && entry.compareAndSet(PoolEntry.STATE_NOT_IN_USE, PoolEntry.STATE_IN_USE)) {
+                return entry;
+            }
+        }
+
+        waiters.incrementAndGet();
+        try {
+            for (PoolEntry entry : sharedList) {
+                if (entry.compareAndSet(PoolEntry.STATE_NOT_IN_USE, PoolEntry.STATE_IN_USE)) {
+                    return entry;
+                }
+            }
+
+            long remaining = unit.toNanos(timeout);
+            while (remaining > 0) {
+                final long start = System.nanoTime();
+                final PoolEntry entry = handoffQueue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (entry == null) {
+                    return null;
+                }
+                if (entry.compareAndSet(PoolEntry.STATE_NOT_IN_USE, PoolEntry.STATE_IN_USE)) {
+                    return entry;
+                }
+                remaining -= System.nanoTime() - start;
+            }
+            return null;
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns a borrowed entry to the bag. If another thread is waiting, the entry gets handed over directly
+     * @param entry the returned entry
+     */
+    void requite(final PoolEntry entry) {
+        entry.setState(PoolEntry.STATE_NOT_IN_USE);
+
+        for (int i = 0; waiters.get() > 0; i++) {
+            if (entry.getState() != PoolEntry.STATE_NOT_IN_USE || handoffQueue.offer(entry)) {
+                return;
+            }
+            if ((i & 0xff) == 0xff) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+            } else {
+                Thread.yield();
+            }
+        }
+
+        final List<WeakReference<PoolEntry>> list = threadList.get();
+        if (list.size() < THREAD_LIST_SIZE) {
+            list.add(new WeakReference<>(entry));
+        }
+    }
+
+    /**
+     * Adds a new entry to the bag. The entry keeps its current state
+     * @param entry the new entry
+     */
+    void add(final PoolEntry entry) {
+        sharedList.add(entry);
+
+        while (waiters.get() > 0 && entry.getState() == PoolEntry.STATE_NOT_IN_USE && !handoffQueue.offer(entry)) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Removes a borrowed or reserved entry from the bag
+     * @param entry the entry which will be removed
+     * @return true if the entry got removed
+     */
+    boolean remove(final PoolEntry entry) {
+        if (!entry.compareAndSet(PoolEntry.STATE_IN_USE, PoolEntry.STATE_REMOVED)
+                && !entry.compareAndSet(PoolEntry.STATE_RESERVED, PoolEntry.STATE_REMOVED)) {
+            return false;
+        }
+        return sharedList.remove(entry);
+    }
+
+    /**
+     * Reserves an idle entry, so it can not be borrowed until it gets unreserved or removed
+     * @param entry the entry which will be reserved
+     * @return true if the entry got reserved
+     */
+    boolean reserve(final PoolEntry entry) {
+        return entry.compareAndSet(PoolEntry.STATE_NOT_IN_USE, PoolEntry.STATE_RESERVED);
+    }
+
+    /**
+     * Makes a reserved entry available again
+     * @param entry the reserved entry
+     */
+    void unreserve(final PoolEntry entry) {
+        if (entry.compareAndSet(PoolEntry.STATE_RESERVED, PoolEntry.STATE_NOT_IN_USE)) {
+            while (waiters.get() > 0 && entry.getState() == PoolEntry.STATE_NOT_IN_USE && !handoffQueue.offer(entry)) {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * @return a snapshot of all entries in the bag
+     */
+    List<PoolEntry> values() {
+        return new ArrayList<>(sharedList);
+    }
+
+    /**
+     * Counts the entries with the given state
+     * @param state the state to count
+     * @return the number of matching entries
+     */
+    int getCount(final int state) {
+        int count = 0;
+        for (PoolEntry entry : sharedList) {
+            if (entry.getState() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of entries in the bag
+     */
+    int size() {
+        return sharedList.size();
+    }
+
+    /**
+     * @return the number of threads waiting for an entry
+     */
+    int getWaitingThreadCount() {
+        return waiters.get();
+    }
+}
@@ -1,13 +1,24 @@
 package de.shurablack.sql;
 
+import de.shurablack.core.util.Config;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.*;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * <p>
@@ -18,6 +29,31 @@ import java.util.*;
  * <br><br>
  * This is especially useful when there are multiple threads
  * or processes that need to access the database simultaneously.
+ * <br><br>
+ * The pool never opens more than the maximum pool size of connections. If all of them are in use,
+ * {@link ConnectionPool#getConnection()} waits up to the connection timeout for a returned connection
+ * and throws a {@link ConnectionPoolException} afterwards.
+ * <br><br>
+ * A connection is only validated on checkout, if its last validation is older than the validation threshold.
+ * Connections which got validated shortly before are handed out without any network traffic, connections which
+ * failed with a connection error are closed on their return. Idle connections
+ * are tested in the background by a housekeeper, which gets started with {@link ConnectionPool#start()}.
+ * <br><br>
+ * The housekeeper also keeps at least the minimum idle connections opened, closes connections which
+ * were idle longer than the idle timeout and retires connections which reached their maximum lifetime.
+ * Borrowed connections are never closed by the housekeeper, they get retired when they are returned.
+ * <br><br>
+ * Every borrow is tracked. Connections which are held longer than the leak threshold get reported
+ * (with the stack trace of the borrower, if leak tracing is enabled) and can be reclaimed after the
+ * reclaim threshold. Returning a connection twice is logged and has no effect on the pool.
+ * <br><br>
+ * Each pooled connection keeps a LRU cache of its prepared statements, which is used by the parameterized
+ * methods of {@link SQLRequest}. Statements of the same shape are therefore parsed only once per connection.
+ * <br><br>
+ * A pool can have read replicas, which are pools of their own. {@link ConnectionPool#getReadConnection()}
+ * hands out a connection of the least loaded replica, while {@link ConnectionPool#getConnection()} always uses
+ * this (primary) pool for writes and transactions. Connections of a replica can be returned to the primary,
+ * they are routed to the owning pool.
  * </p>
  *
  * @version core-1.0.0
@@ -29,6 +65,30 @@ public class ConnectionPool {
     /** Class Logger */
     private static final Logger LOGGER = LogManager.getLogger(ConnectionPool.class);
 
+    /** Default time (millis) a caller waits for a connection */
+    public static final long DEFAULT_CONNECTION_TIMEOUT = 30_000L;
+
+    /** Default idle time (millis) after which a connection gets validated on checkout */
+    public static final long DEFAULT_VALIDATION_IDLE = 500L;
+
+    /** Default time (seconds) a validation may take */
+    public static final int DEFAULT_VALIDATION_TIMEOUT = 5;
+
+    /** Default interval (millis) of the housekeeper */
+    public static final long DEFAULT_HOUSEKEEPING_INTERVAL = 30_000L;
+
+    /** Default lifetime (millis) of a connection */
+    public static final long DEFAULT_MAX_LIFETIME = 1_800_000L;
+
+    /** Default idle time (millis) after which a connection gets closed */
+    public static final long DEFAULT_IDLE_TIMEOUT = 600_000L;
+
+    /** Default number of cached prepared statements per connection */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    /** Default number of rows which are fetched at once by a streamed query */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
     /** URL of the database to connect to */
     private final String databaseUrl;
 
@@ -41,27 +101,87 @@ public class ConnectionPool {
     /** Maximum number of connections that can be stored in the pool */
     private final int maxPoolSize;
 
-    /** Number of connections currently in the pool */
-    private int connNum = 0;
+    /** Time (millis) a caller waits for a connection before a {@link ConnectionPoolException} is thrown */
+    private long connectionTimeout = DEFAULT_CONNECTION_TIMEOUT;
+
+    /** Idle time (millis) after which a connection gets validated before it is handed out */
+    private long validationIdle = DEFAULT_VALIDATION_IDLE;
+
+    /** Time (seconds) a validation via {@link Connection#isValid(int)} may take */
+    private int validationTimeout = DEFAULT_VALIDATION_TIMEOUT;
 
-    /** SQL query used to verify that a Connection object is still valid */
-    private static final String SQL_VERIFYCONN = "SELECT 1";
+    /** Interval (millis) in which the housekeeper tests the idle connections */
+    private long housekeepingInterval = DEFAULT_HOUSEKEEPING_INTERVAL;
 
-    /** Stack of Connection objects that are currently not in use and available for use */
-    private final Deque<Connection> freePool = new LinkedList<>();
+    /** Minimum number of idle connections the pool keeps opened */
+    private int minIdle = 0;
 
-    /** Set of Connection objects that are currently in use and not available for use */
-    private final Set<Connection> occupiedPool = new HashSet<>();
+    /** Time (millis) after which a connection gets retired, or 0 to disable */
+    private long maxLifetime = DEFAULT_MAX_LIFETIME;
+
+    /** Idle time (millis) after which a connection above the minimum idle gets closed, or 0 to disable */
+    private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    /** Time (millis) a connection may be borrowed before it gets reported as possible leak, or 0 to disable */
+    private long leakThreshold = 0;
+
+    /** Indicates whether the stack trace of every borrower gets captured */
+    private boolean leakTrace = false;
+
+    /** Time (millis) a connection may be borrowed before it gets closed and removed from the pool, or 0 to disable */
+    private long leakReclaim = 0;
+
+    /** Maximum number of cached prepared statements per connection */
+    private int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+
+    /** Number of rows which are fetched at once by a streamed query */
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    /** Number of connections currently in the pool (opened or in creation) */
+    private final AtomicInteger connNum = new AtomicInteger();
+
+    /** Background thread which maintains the idle connections */
+    private ScheduledExecutorService housekeeper;
+
+    /** Indicates whether the pool got closed */
+    private volatile boolean closed = false;
+
+    /** Lock-free storage of all pooled connections */
+    private final ConcurrentBag bag = new ConcurrentBag();
+
+    /** Maps the handed out Connection objects to their pool entries */
+    private final Map<Connection, PoolEntry> entries = new ConcurrentHashMap<>();
+
+    /** Pools of the read replicas */
+    private final List<ConnectionPool> replicas = new CopyOnWriteArrayList<>();
+
+    /** Time (nanos) until which the pool is skipped as replica, after it couldnt hand out a connection */
+    private volatile long unavailableUntil = System.nanoTime();
+
+    /** Fails requests fast, while the database is unreachable */
+    private final CircuitBreaker breaker;
 
     /** Driver name for MySQL Database*/
     public static final String DRIVER_MYSQL = "com.mysql.cj.jdbc.Driver";
 
-    public static void registerDriver(final String driver) {
+    /** Driver name for MariaDB Database */
+    public static final String DRIVER_MARIADB = "org.mariadb.jdbc.Driver";
+
+    /** Driver name for the embedded H2 Database (use MODE=MySQL in the URL for MySQL syntax) */
+    public static final String DRIVER_H2 = "org.h2.Driver";
+
+    /**
+     * Loads the driver class, which registers itself at the {@link DriverManager}
+     * @param driver the full class name of the driver, e.g. {@link ConnectionPool#DRIVER_MYSQL}
+     * @return true if the driver is registered
+     */
+    public static boolean registerDriver(final String driver) {
         try {
-            Class.forName(driver).newInstance();
-        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
-            final String msg = "Couldnt register sql driver";
-            LOGGER.error(msg, e);
+            Class.forName(driver);
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            LOGGER.error(String.format("Couldnt register sql driver <%s>", driver), e);
+            return false;
         }
     }
 
@@ -78,6 +198,7 @@ public class ConnectionPool {
         this.username = username;
         this.password = password;
         this.maxPoolSize = maxSize;
+        this.breaker = new CircuitBreaker(databaseUrl);
         if (maxSize < 1) {
             LOGGER.error("Database Poolsize cant be lower than 1", new IllegalArgumentException());
             System.exit(1);
@@ -85,60 +206,709 @@ public class ConnectionPool {
     }
 
     /**
-     * Returns a {@link Connection} object from the pool. If the pool is full, it logs an error and returns null.
+     * Creates a new ConnectionPool with the database properties of the "config.properties" file.
+     * <br><br>
+     * Used properties are "db_url", "db_username", "db_password", "db_poolsize", "db_connection_timeout" (millis),
+     * "db_validation_idle" (millis), "db_validation_timeout" (seconds), "db_housekeeping_interval" (millis),
+     * "db_min_idle", "db_max_lifetime" (millis), "db_idle_timeout" (millis), "db_leak_threshold" (millis),
+     * "db_leak_trace" (true/false), "db_leak_reclaim" (millis), "db_statement_cache", "db_fetch_size",
+     * "db_circuit_failures" and "db_circuit_open" (millis).
+     * <br><br>
+     * Read replicas are numbered from 1 with the properties "db_replica_1_url", "db_replica_1_username",
+     * "db_replica_1_password" and "db_replica_1_poolsize" and so on. Missing credentials and pool size are
+     * taken from the primary, every other setting is the same as for the primary.
+     * <br><br>
+     * The returned pool and its replicas are already started and hold the minimum idle connections
+     * @return the created pool
+     */
+    public static ConnectionPool fromConfig() {
+        final String size = Config.getConfig("db_poolsize");
+        final ConnectionPool pool = new ConnectionPool(
+                Config.getConfig("db_url"),
+                Config.getConfig("db_username"),
+                Config.getConfig("db_password"),
+                size == null ? 1 : Integer.parseInt(size)
+        );
+
+        readConfig("db_connection_timeout", value -> pool.setConnectionTimeout(Long.parseLong(value)));
+        readConfig("db_validation_idle", value -> pool.setValidationIdle(Long.parseLong(value)));
+        readConfig("db_validation_timeout", value -> pool.setValidationTimeout(Integer.parseInt(value)));
+        readConfig("db_housekeeping_interval", value -> pool.setHousekeepingInterval(Long.parseLong(value)));
+        readConfig("db_min_idle", value -> pool.setMinIdle(Integer.parseInt(value)));
+        readConfig("db_max_lifetime", value -> pool.setMaxLifetime(Long.parseLong(value)));
+        readConfig("db_idle_timeout", value -> pool.setIdleTimeout(Long.parseLong(value)));
+        readConfig("db_leak_threshold", value -> pool.setLeakDetection(Long.parseLong(value), pool.leakTrace));
+        readConfig("db_leak_trace", value -> pool.setLeakDetection(pool.leakThreshold, Boolean.parseBoolean(value)));
+        readConfig("db_leak_reclaim", value -> pool.setLeakReclaim(Long.parseLong(value)));
+        readConfig("db_statement_cache", value -> pool.setStatementCacheSize(Integer.parseInt(value)));
+        readConfig("db_fetch_size", value -> pool.setFetchSize(Integer.parseInt(value)));
+        readConfig("db_slow_query", value -> QueryStats.setSlowThreshold(Long.parseLong(value)));
+        readConfig("db_circuit_failures", value -> pool.breaker.setFailureThreshold(Integer.parseInt(value)));
+        readConfig("db_circuit_open", value -> pool.breaker.setOpenTime(Long.parseLong(value),
+                Math.max(Long.parseLong(value), CircuitBreaker.DEFAULT_MAX_OPEN_TIME)));
+
+        for (int i = 1; Config.getConfig(String.format("db_replica_%d_url", i)) != null; i++) {
+            final String prefix = String.format("db_replica_%d_", i);
+            final String username = Config.getConfig(prefix + "username");
+            final String password = Config.getConfig(prefix + "password");
+            final String replicaSize = Config.getConfig(prefix + "poolsize");
+            final ConnectionPool replica = new ConnectionPool(
+                    Config.getConfig(prefix + "url").trim(),
+                    username == null ? pool.username : username,
+                    password == null ? pool.password : password,
+                    replicaSize == null ? pool.maxPoolSize : Integer.parseInt(replicaSize.trim())
+            );
+            pool.addReplica(replica.copySettings(pool));
+        }
+        return pool.start();
+    }
+
+    /**
+     * Takes every setting except the database and pool size from another pool
+     * @param other the pool with the settings
+     * @return the pool for chaining
+     */
+    private ConnectionPool copySettings(final ConnectionPool other) {
+        this.connectionTimeout = other.connectionTimeout;
+        this.validationIdle = other.validationIdle;
+        this.validationTimeout = other.validationTimeout;
+        this.housekeepingInterval = other.housekeepingInterval;
+        this.minIdle = Math.min(other.minIdle, this.maxPoolSize);
+        this.maxLifetime = other.maxLifetime;
+        this.idleTimeout = other.idleTimeout;
+        this.leakThreshold = other.leakThreshold;
+        this.leakTrace = other.leakTrace;
+        this.leakReclaim = other.leakReclaim;
+        this.statementCacheSize = other.statementCacheSize;
+        this.fetchSize = other.fetchSize;
+        this.breaker.copySettings(other.breaker);
+        return this;
+    }
+
+    /**
+     * Adds a read replica, which serves the connections of {@link ConnectionPool#getReadConnection()}.
+     * The replica gets started and closed together with this pool
+     * @param replica the pool of the replica
+     * @return the pool for chaining
+     */
+    public ConnectionPool addReplica(final ConnectionPool replica) {
+        if (replica == this || replica.replicas.size() > 0) {
+            LOGGER.error("A replica cant be the primary pool or have replicas itself", new IllegalArgumentException());
+            return this;
+        }
+        replicas.add(replica);
+        if (housekeeper != null) {
+            replica.start();
+        }
+        return this;
+    }
+
+    /**
+     * @return the pools of the read replicas
+     */
+    public List<ConnectionPool> getReplicas() {
+        return Collections.unmodifiableList(replicas);
+    }
+
+    /**
+     * Passes the value of a configuration property to the setter, if the property is present
+     * @param name the name of the property
+     * @param setter the setter which will receive the value
+     */
+    private static void readConfig(final String name, final Consumer<String> setter) {
+        final String value = Config.getConfig(name);
+        if (value != null) {
+            setter.accept(value.trim());
+        }
+    }
+
+    /**
+     * Sets the time a caller waits for a connection, if every connection of the pool is in use
+     * @param timeout the timeout in millis
+     * @return the pool for chaining
+     */
+    public ConnectionPool setConnectionTimeout(final long timeout) {
+        if (timeout < 0) {
+            LOGGER.error("Connection timeout cant be negative", new IllegalArgumentException());
+            return this;
+        }
+        this.connectionTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * Sets the idle time after which a connection gets validated before it is handed out.
+     * Connections which were validated more recently are handed out without another check
+     * @param idle the idle time in millis
+     * @return the pool for chaining
+     */
+    public ConnectionPool setValidationIdle(final long idle) {
+        if (idle < 0) {
+            LOGGER.error("Validation idle time cant be negative", new IllegalArgumentException());
+            return this;
+        }
+        this.validationIdle = idle;
+        return this;
+    }
+
+    /**
+     * Sets the time a single validation via {@link Connection#isValid(int)} may take
+     * @param timeout the timeout in seconds
+     * @return the pool for chaining
+     */
+    public ConnectionPool setValidationTimeout(final int timeout) {
+        if (timeout < 0) {
+            LOGGER.error("Validation timeout cant be negative", new IllegalArgumentException());
+            return this;
+        }
+        this.validationTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * Sets the interval in which the housekeeper tests the idle connections.
+     * Takes effect on the next call of {@link ConnectionPool#start()}
+     * @param interval the interval in millis
+     * @return the pool for chaining
+     */
+    public ConnectionPool setHousekeepingInterval(final long interval) {
+        if (interval < 1) {
+            LOGGER.error("Housekeeping interval must be greater than 0", new IllegalArgumentException());
+            return this;
+        }
+        this.housekeepingInterval = interval;
+        return this;
+    }
+
+    /**
+     * Sets the minimum number of idle connections the pool keeps opened.
+     * The value is limited by the maximum pool size
+     * @param minIdle the minimum number of idle connections
+     * @return the pool for chaining
+     */
+    public ConnectionPool setMinIdle(final int minIdle) {
+        if (minIdle < 0) {
+            LOGGER.error("Minimum idle connections cant be negative", new IllegalArgumentException());
+            return this;
+        }
+        this.minIdle = Math.min(minIdle, maxPoolSize);
+        return this;
+    }
+
+    /**
+     * Sets the time after which a connection gets retired. The database should not close
+     * connections earlier (e.g. MySQL's wait_timeout)
+     * @param lifetime the lifetime in millis or 0 to disable the retirement
+     * @return the pool for chaining
+     */
+    public ConnectionPool setMaxLifetime(final long lifetime) {
+        if (lifetime < 0) {
+            LOGGER.error("Maximum lifetime cant be negative", new IllegalArgumentException());
+            return this;
+        }
+        this.maxLifetime = lifetime;
+        return this;
+    }
+
+    /**
+     * Sets the idle time after which a connection gets closed, as long as more than
+     * the minimum idle connections are opened
+     * @param timeout the idle timeout in millis or 0 to keep idle connections forever
+     * @return the pool for chaining
+     */
+    public ConnectionPool setIdleTimeout(final long timeout) {
+        if (timeout < 0) {
+            LOGGER.error("Idle timeout cant be negative", new IllegalArgumentException());
+            return this;
+        }
+        this.idleTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * Enables the leak detection. Connections which are borrowed longer than the threshold get reported
+     * by the housekeeper, so the threshold should be greater than the housekeeping interval
+     * @param threshold the time in millis or 0 to disable the detection
+     * @param trace true to capture the stack trace of every borrower (costs time on every borrow)
+     * @return the pool for chaining
+     */
+    public ConnectionPool setLeakDetection(final long threshold, final boolean trace) {
+        if (threshold < 0) {
+            LOGGER.error("Leak detection threshold cant be negative", new IllegalArgumentException());
+            return this;
+        }
+        this.leakThreshold = threshold;
+        this.leakTrace = trace;
+        return this;
+    }
+
+    /**
+     * Sets the time after which a borrowed connection counts as leaked and gets closed and removed from the pool.
+     * The borrower will receive errors on further use of the connection
+     * @param reclaim the time in millis or 0 to never reclaim connections
+     * @return the pool for chaining
+     */
+    public ConnectionPool setLeakReclaim(final long reclaim) {
+        if (reclaim < 0) {
+            LOGGER.error("Leak reclaim time cant be negative", new IllegalArgumentException());
+            return this;
+        }
+        this.leakReclaim = reclaim;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of cached prepared statements per connection.
+     * Applies to connections which are opened afterwards
+     * @param size the cache size or 0 to disable the cache
+     * @return the pool for chaining
+     */
+    public ConnectionPool setStatementCacheSize(final int size) {
+        if (size < 0) {
+            LOGGER.error("Statement cache size cant be negative", new IllegalArgumentException());
+            return this;
+        }
+        this.statementCacheSize = size;
+        return this;
+    }
+
+    /**
+     * Sets the number of rows which are fetched from the database at once by a streamed query
+     * (e.g. {@link SQLRequest#stream(String, Class, Object...)})
+     * @param fetchSize the fetch size (Integer.MIN_VALUE enables row-by-row streaming for MySQL)
+     * @return the pool for chaining
+     */
+    public ConnectionPool setFetchSize(final int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * @return the number of rows which are fetched from the database at once by a streamed query
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * @return the circuit breaker, which fails requests fast while the database is unreachable
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    /**
+     * Opens the minimum idle connections and starts the housekeeper of the pool,
+     * which maintains the idle connections in the background.
+     * Calling this method on a started pool has no effect
+     * @return the pool for chaining
+     */
+    public synchronized ConnectionPool start() {
+        if (housekeeper != null) {
+            return this;
+        }
+        fillPool();
+        LOGGER.info("Connection pool started <{}> [Total {}, Minimum idle {}, Maximum {}]",
+                databaseUrl, connNum.get(), minIdle, maxPoolSize);
+        housekeeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            final Thread thread = new Thread(task, "ConnectionPool_Housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, housekeepingInterval, housekeepingInterval, TimeUnit.MILLISECONDS);
+        replicas.forEach(ConnectionPool::start);
+        return this;
+    }
+
+    /**
+     * Stops the housekeeper and closes every idle connection of the pool and its replicas.
+     * Borrowed connections get closed as soon as they are returned
+     */
+    public synchronized void close() {
+        closed = true;
+        replicas.forEach(ConnectionPool::close);
+        if (housekeeper != null) {
+            housekeeper.shutdown();
+            try {
+                housekeeper.awaitTermination(validationTimeout + 1L, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            housekeeper = null;
+        }
+        for (PoolEntry entry : bag.values()) {
+            if (bag.reserve(entry)) {
+                closeEntry(entry);
+            }
+        }
+    }
+
+    /**
+     * Returns a {@link Connection} object from the pool.
      * <br><br>
      * If there are available connections in the pool, it returns one of those.
+     * Otherwise, it creates a new connection as long as the maximum pool size isn't reached.
      * <br><br>
-     * Otherwise, it creates a new connection, adds it to the occupiedPool set, and returns it
-     * @return a connection if possible or null
+     * If the pool is full, the caller waits up to the connection timeout for a returned connection.
+     * While the {@link CircuitBreaker} is open, the caller fails immediately
+     * @return a valid connection
+     * @throws ConnectionPoolException if no connection got available within the connection timeout
      */
-    public synchronized Connection getConnection() {
-        Connection conn;
+    public Connection getConnection() {
+        if (closed) {
+            throw new ConnectionPoolException(String.format("The connection pool is closed <%s>", databaseUrl));
+        }
+        if (!breaker.allowRequest()) {
+            throw circuitOpen();
+        }
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectionTimeout);
+        try {
+            long remaining;
+            do {
+                PoolEntry entry = bag.borrow(0, TimeUnit.NANOSECONDS);
+                if (entry == null) {
+                    entry = createNewEntry(true);
+                    if (entry == null && breaker.isOpen()) {
+                        throw circuitOpen();
+                    }
+                }
+                if (entry == null) {
+                    entry = bag.borrow(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
 
-        if (isFull()) {
-            LOGGER.error("The connection pool is full", new SQLException());
+                if (entry != null) {
+                    final long now = System.currentTimeMillis();
+                    if (!entry.isRetired(now)) {
+                        if (now - entry.getLastValidated() <= validationIdle) {
+                            entry.markBorrowed(leakTrace ? new Throwable("Connection borrowed here") : null);
+                            return entry.getConnection();
+                        }
+                        if (isConnectionAvailable(entry)) {
+                            entry.markBorrowed(leakTrace ? new Throwable("Connection borrowed here") : null);
+                            breaker.recordSuccess();
+                            return entry.getConnection();
+                        }
+                    }
+                    closeEntry(entry);
+                }
+                remaining = deadline - System.nanoTime();
+            } while (remaining > 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectionPoolException("Interrupted while waiting for a connection", e);
         }
 
-        conn = getConnectionFromPool();
-        if (conn == null) {
-            conn = createNewConnectionForPool();
+        throw new ConnectionPoolException(String.format(
+                "Connection is not available, request timed out after %dms <%s> [Total %d, Active %d, Waiting %d]",
+                connectionTimeout, databaseUrl, connNum.get(),
+                bag.getCount(PoolEntry.STATE_IN_USE), bag.getWaitingThreadCount()));
+    }
+
+    /**
+     * @return the exception for a request, which got rejected by the open circuit
+     */
+    private ConnectionPoolException circuitOpen() {
+        return new ConnectionPoolException(String.format(
+                "Database is unreachable, circuit is open after %d failed connection attempts <%s>",
+                breaker.getFailures(), databaseUrl));
+    }
+
+    /**
+     * Returns a {@link Connection} object of a read replica for queries, which dont write.
+     * <br><br>
+     * Two random replicas are compared and the one with less borrowed connections and waiting threads
+     * relative to its size is used. A replica which couldnt hand out a connection is skipped for one
+     * housekeeping interval. Without an available replica the connection is taken from this pool.
+     * <br><br>
+     * Replicas can lag behind the primary, so a read directly after a write may not see the written data
+     * @return a valid connection
+     * @throws ConnectionPoolException if no connection got available within the connection timeout
+     */
+    public Connection getReadConnection() {
+        final ConnectionPool replica = selectReplica();
+        if (replica != null) {
+            try {
+                return replica.getConnection();
+            } catch (ConnectionPoolException e) {
+                replica.unavailableUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(replica.housekeepingInterval);
+                LOGGER.warn(String.format("Replica <%s> couldnt hand out a connection, reading from the primary", replica.databaseUrl), e);
+            }
         }
+        return getConnection();
+    }
 
-        conn = makeAvailable(conn);
-        return conn;
+    /**
+     * Selects the least loaded of two random available replicas
+     * @return the replica or null, if none is available
+     */
+    private ConnectionPool selectReplica() {
+        final int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int first = random.nextInt(size);
+        ConnectionPool selected = null;
+        for (int i = 0; i < size && selected == null; i++) {
+            final ConnectionPool replica = replicas.get((first + i) % size);
+            if (replica.isAvailable()) {
+                selected = replica;
+            }
+        }
+        if (selected == null || size == 1) {
+            return selected;
+        }
+        final ConnectionPool other = replicas.get(random.nextInt(size));
+        return other.isAvailable() && other.getLoad() < selected.getLoad() ? other : selected;
+    }
+
+    /**
+     * @return true if the pool is open and wasnt skipped because of a failed checkout
+     */
+    private boolean isAvailable() {
+        return !closed && System.nanoTime() - unavailableUntil >= 0;
+    }
+
+    /**
+     * @return the borrowed connections and waiting threads relative to the pool size
+     */
+    private double getLoad() {
+        return (double) (getActiveConnections() + getWaitingThreads()) / maxPoolSize;
+    }
+
+    /**
+     * Finds the pool of a borrowed connection among this pool and its replicas
+     * @param conn the borrowed connection
+     * @return the owning pool, or this pool if the connection is unknown
+     */
+    private ConnectionPool owner(final Connection conn) {
+        if (conn == null || replicas.isEmpty() || entries.containsKey(conn)) {
+            return this;
+        }
+        for (ConnectionPool replica : replicas) {
+            if (replica.entries.containsKey(conn)) {
+                return replica;
+            }
+        }
+        return this;
     }
 
     /**
-     * returns a {@link Connection} object to the pool. If conn is null, it throws a {@link NullPointerException}.
+     * returns a {@link Connection} object to the pool.
      * <br><br>
-     * If the conn object is not in the occupiedPool set, it logs an error.
-     * Otherwise, it removes conn from the occupiedPool set and adds it to the freePool stack.
+     * If the conn object is not borrowed from this pool (returned twice, reclaimed or from another pool),
+     * it logs an error and leaves the pool untouched.
+     * Otherwise, it hands the connection to a waiting thread or makes it available for the next request.
      * @param conn the {@link Connection} which will be returned
      */
-    public synchronized void returnConnection(final Connection conn) {
-        if (!occupiedPool.remove(conn)) {
-            LOGGER.error("The connection is returned already or it isn't for this pool", new SQLException());
+    public void returnConnection(final Connection conn) {
+        final ConnectionPool owner = owner(conn);
+        if (owner != this) {
+            owner.returnConnection(conn);
+            return;
+        }
+        final PoolEntry entry = conn == null ? null : entries.get(conn);
+        if (entry == null) {
+            LOGGER.error("The connection was reclaimed or it isn't for this pool", new SQLException());
+            return;
         }
-        freePool.push(conn);
+        // Claims the return, so concurrent or repeated returns cant hand out the connection twice
+        if (!entry.compareAndSet(PoolEntry.STATE_IN_USE, PoolEntry.STATE_RESERVED)) {
+            LOGGER.error("The connection is returned already or got reclaimed", new SQLException());
+            return;
+        }
+        final long held = System.currentTimeMillis() - entry.getBorrowedAt();
+        if (entry.isLeakReported()) {
+            LOGGER.info("Previously reported connection got returned after {}ms <{}>", held, databaseUrl);
+        }
+        entry.touch();
+        if (closed || entry.isRetired(System.currentTimeMillis())) {
+            closeEntry(entry);
+            return;
+        }
+        bag.requite(entry);
     }
 
     /**
-     * Check if the pool is full
-     * @return true if the pool is empty and the number of connections is equal to the maximum
+     * Evicts a borrowed connection, if the exception was caused by the connection instead of the statement.
+     * The connection gets closed on its return instead of being handed out again
+     * @param conn the borrowed connection
+     * @param e the exception of the execution
      */
-    private synchronized boolean isFull() {
-        return ((freePool.isEmpty()) && (connNum >= maxPoolSize));
+    void evictOnError(final Connection conn, final SQLException e) {
+        if (!SQLRequest.isConnectionError(e)) {
+            return;
+        }
+        final ConnectionPool owner = owner(conn);
+        if (owner != this) {
+            owner.evictOnError(conn, e);
+            return;
+        }
+        final PoolEntry entry = conn == null ? null : entries.get(conn);
+        if (entry != null) {
+            entry.evict();
+        }
     }
 
     /**
-     * Creates a new Connection object and adds it to the occupiedPool set
-     * @return te new Connection
+     * Takes a prepared statement for the SQL from the statement cache of the borrowed connection.
+     * The statement must be handed back with {@link ConnectionPool#releaseStatement(Connection, String, PreparedStatement)}
+     * and must not be closed by the caller
+     * @param conn the borrowed connection
+     * @param sql the SQL with ? placeholders
+     * @return the prepared statement
+     * @throws SQLException if the statement couldnt be prepared
      */
-    private Connection createNewConnectionForPool() {
+    PreparedStatement prepareStatement(final Connection conn, final String sql) throws SQLException {
+        final ConnectionPool owner = owner(conn);
+        if (owner != this) {
+            return owner.prepareStatement(conn, sql);
+        }
+        final PoolEntry entry = entries.get(conn);
+        if (entry == null) {
+            return conn.prepareStatement(sql);
+        }
+        return entry.getStatements().take(conn, sql);
+    }
+
+    /**
+     * Hands a prepared statement back to the statement cache of the borrowed connection
+     * @param conn the borrowed connection
+     * @param sql the SQL of the statement
+     * @param statement the statement which got taken before
+     */
+    void releaseStatement(final Connection conn, final String sql, final PreparedStatement statement) {
+        final ConnectionPool owner = owner(conn);
+        if (owner != this) {
+            owner.releaseStatement(conn, sql, statement);
+            return;
+        }
+        final PoolEntry entry = entries.get(conn);
+        if (entry == null) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                LOGGER.debug("Couldnt close statement", e);
+            }
+            return;
+        }
+        entry.getStatements().release(sql, statement);
+    }
+
+    /**
+     * Maintains the pool in the background.
+     * <br><br>
+     * Idle connections which reached their lifetime or were idle longer than the idle timeout get closed,
+     * connections which were idle longer than the validation threshold get tested and
+     * the pool gets filled up to the minimum idle connections afterwards.
+     * Borrowed connections which reached their lifetime get closed on return and
+     * borrowed connections which exceed the leak thresholds get reported or reclaimed
+     */
+    private void housekeep() {
+        try {
+            final long now = System.currentTimeMillis();
+            int idle = bag.getCount(PoolEntry.STATE_NOT_IN_USE);
+            for (PoolEntry entry : bag.values()) {
+                if (entry.getState() == PoolEntry.STATE_IN_USE) {
+                    if (entry.isRetired(now)) {
+                        entry.evict();
+                    }
+                    checkLeak(entry, now);
+                    continue;
+                }
+                if (!bag.reserve(entry)) {
+                    continue;
+                }
+
+                if (entry.isRetired(now)) {
+                    LOGGER.debug("Retired connection after its maximum lifetime <{}>", databaseUrl);
+                    closeEntry(entry);
+                    idle--;
+                } else if (idleTimeout > 0 && idle > minIdle && now - entry.getLastAccessed() > idleTimeout) {
+                    LOGGER.debug("Closed connection after its idle timeout <{}>", databaseUrl);
+                    closeEntry(entry);
+                    idle--;
+                } else if (now - entry.getLastValidated() > validationIdle && !isConnectionAvailable(entry)) {
+                    LOGGER.warn("Removed broken idle connection <{}>", databaseUrl);
+                    closeEntry(entry);
+                    idle--;
+                } else {
+                    bag.unreserve(entry);
+                }
+            }
+            fillPool();
+        } catch (Exception e) {
+            LOGGER.error("An error occurred while housekeeping the connection pool", e);
+        }
+    }
+
+    /**
+     * Reports a borrowed connection as possible leak once it exceeds the leak threshold and
+     * closes it, if it exceeds the reclaim threshold
+     * @param entry the borrowed entry
+     * @param now the current timestamp (millis)
+     */
+    private void checkLeak(final PoolEntry entry, final long now) {
+        final long held = now - entry.getBorrowedAt();
+        if (leakThreshold > 0 && held > leakThreshold && entry.reportLeak()) {
+            final String msg = String.format("Connection is borrowed for %dms, possible connection leak <%s>",
+                    held, databaseUrl);
+            final Throwable trace = entry.getBorrowTrace();
+            if (trace != null) {
+                LOGGER.warn(msg, trace);
+            } else {
+                LOGGER.warn("{} (enable db_leak_trace to see the borrower)", msg);
+            }
+        }
+
+        if (leakReclaim > 0 && held > leakReclaim
+                && entry.compareAndSet(PoolEntry.STATE_IN_USE, PoolEntry.STATE_RESERVED)) {
+            LOGGER.error("Reclaimed connection which was borrowed for {}ms <{}>", held, databaseUrl);
+            closeEntry(entry);
+        }
+    }
+
+    /**
+     * Opens new idle connections until the minimum idle connections or the maximum pool size is reached
+     */
+    private void fillPool() {
+        while (!closed && bag.getCount(PoolEntry.STATE_NOT_IN_USE) < minIdle) {
+            if (createNewEntry(false) == null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Creates a new Connection as long as the maximum pool size isn't reached
+     * @param borrow true if the entry should be borrowed by the caller, false to add it as idle entry
+     * @return the new entry or null if the pool is full or the connection couldnt be established
+     */
+    private PoolEntry createNewEntry(final boolean borrow) {
+        int current;
+        do {
+            current = connNum.get();
+            if (current >= maxPoolSize) {
+                return null;
+            }
+        } while (!connNum.compareAndSet(current, current + 1));
+
         final Connection conn = createNewConnection();
-        connNum++;
-        occupiedPool.add(conn);
-        return conn;
+        if (conn == null) {
+            connNum.decrementAndGet();
+            breaker.recordFailure();
+            return null;
+        }
+        breaker.recordSuccess();
+
+        // Up to 2.5% variance, so connections which got opened together are not retired together
+        final long lifetime = maxLifetime > 0
+                ? maxLifetime - ThreadLocalRandom.current().nextLong(maxLifetime / 40 + 1) : 0;
+        final PoolEntry entry = new PoolEntry(conn, lifetime, statementCacheSize);
+        entry.setState(borrow ? PoolEntry.STATE_IN_USE : PoolEntry.STATE_NOT_IN_USE);
+        entries.put(conn, entry);
+        bag.add(entry);
+        return entry;
     }
 
     /**
@@ -158,56 +928,78 @@ public class ConnectionPool {
     }
 
     /**
-     * Returns a Connection object from the freePool stack, or null if the stack is empty
-     * @return a Connection or null
-     */
-    private Connection getConnectionFromPool() {
-        Connection conn = null;
-        if (!freePool.isEmpty()) {
-            conn = freePool.pop();
-            occupiedPool.add(conn);
-        }
-        return conn;
-    }
-
-    /**
-     * Checks if the conn connection is available and returns it if it is.
-     * Otherwise, it removes conn from the occupiedPool set, decrements the connNum field, closes the conn connection,
-     * creates a new connection, adds it to the occupiedPool set, and increments the connNum field
-     * @param conn to be checked
-     * @return the checked one or a new Connection
+     * Removes a borrowed or reserved entry from the pool and closes its connection.
+     * If threads are waiting for a connection, a new one is opened in its place and handed to them
+     * @param entry the entry which will be closed
      */
-    private Connection makeAvailable(Connection conn) {
-        if (isConnectionAvailable(conn)) {
-            return conn;
+    private void closeEntry(final PoolEntry entry) {
+        if (!bag.remove(entry)) {
+            return;
         }
-
-        occupiedPool.remove(conn);
-        connNum--;
+        entries.remove(entry.getConnection());
+        connNum.decrementAndGet();
         try {
-            conn.close();
+            // Closing the connection closes its cached statements as well
+            entry.getConnection().close();
         } catch (SQLException e) {
             final String msg = String.format("Couldnt close connection <%s>", databaseUrl);
             LOGGER.error(msg);
         }
-
-        conn = createNewConnection();
-        occupiedPool.add(conn);
-        connNum++;
-        return conn;
+        // Waiting threads only wake up on returned connections, so the freed capacity would be lost until they time out
+        if (!closed && bag.getWaitingThreadCount() > 0) {
+            createNewEntry(false);
+        }
     }
 
     /**
-     * Check if the connection is stil available
-     * @param conn the specified Connection which will be checkd
+     * Check if the connection is stil available via {@link Connection#isValid(int)}
+     * @param entry the specified entry which will be checkd
      * @return true if the Connection is stil valid
      */
-    private boolean isConnectionAvailable(Connection conn) {
-        try (Statement st = conn.createStatement()) {
-            st.executeQuery(SQL_VERIFYCONN);
-            return true;
+    private boolean isConnectionAvailable(final PoolEntry entry) {
+        try {
+            if (entry.getConnection().isValid(validationTimeout)) {
+                entry.markValidated();
+                return true;
+            }
         } catch (SQLException e) {
-            return false;
+            LOGGER.debug("Connection validation failed", e);
         }
+        return false;
+    }
+
+    /**
+     * @return the maximum number of connections of the pool
+     */
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * @return the number of opened connections
+     */
+    public int getTotalConnections() {
+        return connNum.get();
+    }
+
+    /**
+     * @return the number of connections which are currently borrowed
+     */
+    public int getActiveConnections() {
+        return bag.getCount(PoolEntry.STATE_IN_USE);
+    }
+
+    /**
+     * @return the number of connections which are currently idle
+     */
+    public int getIdleConnections() {
+        return bag.getCount(PoolEntry.STATE_NOT_IN_USE);
+    }
+
+    /**
+     * @return the number of threads which are waiting for a connection
+     */
+    public int getWaitingThreads() {
+        return bag.getWaitingThreadCount();
     }
 }
@@ -0,0 +1,26 @@
+package de.shurablack.sql;
+
+/**
+ * <p>
+ * The ConnectionPoolException class is a RuntimeException that indicates that the {@link ConnectionPool}
+ * couldnt provide a connection.
+ * <br><br>
+ * It is thrown when every connection of the pool is in use and none got returned within the configured
+ * connection timeout, or when the thread got interrupted while waiting for a connection
+ * </p>
+ *
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public class ConnectionPoolException extends RuntimeException {
+
+    public ConnectionPoolException(final String message) {
+        super(message);
+    }
+
+    public ConnectionPoolException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,312 @@
+package de.shurablack.sql;
+
+import de.shurablack.core.scheduling.Dispatcher;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * The CounterBuffer class collects increments of a counter column in memory and writes them behind in bulk.
+ * <br><br>
+ * Increments of the same row are coalesced in a {@link LongAdder}, which stripes concurrent updates over
+ * multiple cells, so message events of many threads dont contend on one value. A flush sends all pending rows as
+ * multi-row upsert ({@link FluentSqlBuilder#INCREMENT_CHAIN(String, List, List, int)}) in chunks of at most
+ * the chunk size, so thousands of increments become a few statements.
+ * <br><br>
+ * Started buffers get flushed by a cron task of the {@link Dispatcher} and on application exit.
+ * Rows of a failed chunk are kept and retried with the next flush.
+ * <br><br>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * CounterBuffer xp = CounterBuffer.create("user_xp", "xp", "guild_id", "user_id").start("* * * * *");
+ *
+ * // on every message
+ * xp.increment(5, guildId, userId);
+ * }</pre>
+ * <p>
+ * The key columns must be a primary or unique key of the table. Pending increments are lost, if the application
+ * gets killed without running its shutdown hooks.
+ * </p>
+ *
+ * @see FluentSqlBuilder
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public class CounterBuffer {
+
+    /** Class Logger */
+    private static final Logger LOGGER = LogManager.getLogger(CounterBuffer.class);
+
+    /** Default number of rows per statement */
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    /** Default number of pending rows, which triggers an early flush */
+    public static final int DEFAULT_MAX_PENDING = 10000;
+
+    /** Every started buffer, to flush them on exit */
+    private static final List<CounterBuffer> BUFFERS = new CopyOnWriteArrayList<>();
+
+    /** The table of the counters */
+    private final String table;
+
+    /** The counter column */
+    private final String counter;
+
+    /** The key columns, which identify a row */
+    private final List<String> keys;
+
+    /** Pending increments per row */
+    private final Map<Key, LongAdder> pending = new ConcurrentHashMap<>();
+
+    /** Indicates whether an early flush is queued */
+    private final AtomicBoolean flushQueued = new AtomicBoolean(false);
+
+    /** Number of rows per statement */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /** Number of pending rows, which triggers an early flush */
+    private int maxPending = DEFAULT_MAX_PENDING;
+
+    /** Name of the cron task */
+    private String taskName;
+
+    /** Rendered upsert of a full chunk, which is reused by every flush */
+    private String chunkSql;
+
+    /**
+     * This constructs a new CounterBuffer object
+     * @param table the table of the counters
+     * @param counter the counter column
+     * @param keys the key columns
+     */
+    private CounterBuffer(final String table, final String counter, final List<String> keys) {
+        this.table = table;
+        this.counter = counter;
+        this.keys = keys;
+    }
+
+    /**
+     * Creates a new buffer for a counter column
+     * @param table the table of the counters
+     * @param counter the counter column, which gets incremented
+     * @param keys the key columns, which identify a row (primary or unique key)
+     * @return the buffer for chaining or null, if no key column is given
+     */
+    public static CounterBuffer create(final String table, final String counter, final String... keys) {
+        if (keys.length == 0) {
+            LOGGER.error("A counter buffer needs at least one key column", new IllegalArgumentException());
+            return null;
+        }
+        return new CounterBuffer(table, counter, Collections.unmodifiableList(Arrays.asList(keys.clone())));
+    }
+
+    /**
+     * Sets the maximum number of rows, which are sent in one statement
+     * @param chunkSize the chunk size
+     * @return the buffer for chaining
+     */
+    public CounterBuffer setChunkSize(final int chunkSize) {
+        if (chunkSize < 1) {
+            LOGGER.error("Counter chunk size must be greater than 0", new IllegalArgumentException());
+            return this;
+        }
+        this.chunkSize = chunkSize;
+        this.chunkSql = null;
+        return this;
+    }
+
+    /**
+     * Sets the number of pending rows, which dispatches a flush before the next scheduled one
+     * @param maxPending the number of rows
+     * @return the buffer for chaining
+     */
+    public CounterBuffer setMaxPending(final int maxPending) {
+        if (maxPending < 1) {
+            LOGGER.error("Maximum pending counters must be greater than 0", new IllegalArgumentException());
+            return this;
+        }
+        this.maxPending = maxPending;
+        return this;
+    }
+
+    /**
+     * Schedules the flush as cron task and registers the buffer for the flush on exit
+     * @param timePattern the cron pattern of the flush
+     * @return the buffer for chaining
+     */
+    public synchronized CounterBuffer start(final String timePattern) {
+        if (taskName != null) {
+            LOGGER.error(String.format("Counter buffer <%s.%s> is already started", table, counter));
+            return this;
+        }
+        taskName = String.format("CounterBuffer_%s.%s", table, counter);
+        Dispatcher.scheduleCronTask(timePattern, taskName, this::flush);
+        BUFFERS.add(this);
+        return this;
+    }
+
+    /**
+     * Deschedules the flush and writes the pending increments
+     */
+    public synchronized void stop() {
+        if (taskName == null) {
+            return;
+        }
+        Dispatcher.descheduleCronTask(taskName);
+        BUFFERS.remove(this);
+        taskName = null;
+        flush();
+    }
+
+    /**
+     * Adds a value to the counter of a row
+     * @param delta the value which will be added
+     * @param key the values of the key columns in order
+     */
+    public void increment(final long delta, final Object... key) {
+        if (key.length != keys.size()) {
+            LOGGER.error(String.format("Counter <%s.%s> needs %d key values, but got %s",
+                    table, counter, keys.size(), Arrays.toString(key)), new IllegalArgumentException());
+            return;
+        }
+        final Key k = new Key(key.clone());
+        final LongAdder adder = pending.computeIfAbsent(k, ignored -> new LongAdder());
+        adder.add(delta);
+        if (pending.get(k) != adder) {
+            // the row got flushed as idle meanwhile, move the increment into the current adder
+            restore(k, adder.sumThenReset());
+        }
+
+        if (pending.size() > maxPending && Dispatcher.getThreadPool() != null && flushQueued.compareAndSet(false, true)) {
+            Dispatcher.dispatch(this::flush);
+        }
+    }
+
+    /**
+     * Writes every pending increment in chunks to the database.
+     * Rows without increments are removed from the buffer
+     * @return the number of written rows
+     */
+    public synchronized int flush() {
+        flushQueued.set(false);
+        final List<Object[]> rows = new ArrayList<>();
+        final List<Key> rowKeys = new ArrayList<>();
+        for (Map.Entry<Key, LongAdder> entry : pending.entrySet()) {
+            final long delta = entry.getValue().sumThenReset();
+            if (delta == 0) {
+                if (pending.remove(entry.getKey(), entry.getValue())) {
+                    // increments between the reset and the removal
+                    restore(entry.getKey(), entry.getValue().sumThenReset());
+                }
+                continue;
+            }
+            final Object[] row = Arrays.copyOf(entry.getKey().values, keys.size() + 1);
+            row[keys.size()] = delta;
+            rows.add(row);
+            rowKeys.add(entry.getKey());
+        }
+
+        int written = 0;
+        for (int start = 0; start < rows.size(); start += chunkSize) {
+            final int end = Math.min(rows.size(), start + chunkSize);
+            final List<Object[]> chunk = rows.subList(start, end);
+            if (chunk.size() == chunkSize && chunkSql == null) {
+                chunkSql = render(chunkSize);
+            }
+            final String sql = chunk.size() == chunkSize ? chunkSql : render(chunk.size());
+            final Object[] params = new Object[chunk.size() * (keys.size() + 1)];
+            int i = 0;
+            for (Object[] row : chunk) {
+                System.arraycopy(row, 0, params, i, row.length);
+                i += row.length;
+            }
+
+            try {
+                SQLRequest.executeChecked(sql, params);
+                written += chunk.size();
+            } catch (SQLException | ConnectionPoolException e) {
+                LOGGER.error(String.format("Couldnt flush %d counters of <%s.%s>. They will be retried with the next flush",
+                        chunk.size(), table, counter), e);
+                for (int r = start; r < end; r++) {
+                    restore(rowKeys.get(r), (long) rows.get(r)[keys.size()]);
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * @return the number of rows with pending increments
+     */
+    public int getPendingRows() {
+        return pending.size();
+    }
+
+    /**
+     * Flushes every started buffer. Called by the exit hook of the application
+     */
+    public static void flushAll() {
+        for (CounterBuffer buffer : BUFFERS) {
+            buffer.flush();
+        }
+    }
+
+    /**
+     * Renders the upsert for a number of rows
+     * @param rows the number of rows
+     * @return the SQL statement with ? placeholders
+     */
+    private String render(final int rows) {
+        return FluentSqlBuilder.create()
+                .INCREMENT_CHAIN(table, keys, Collections.singletonList(counter), rows)
+                .toString();
+    }
+
+    /**
+     * Adds a value back to the pending increments of a row
+     * @param key the row
+     * @param delta the value
+     */
+    private void restore(final Key key, final long delta) {
+        if (delta != 0) {
+            pending.computeIfAbsent(key, ignored -> new LongAdder()).add(delta);
+        }
+    }
+
+    /**
+     * Values of the key columns of a row
+     */
+    private static final class Key {
+
+        private final Object[] values;
+        private final int hash;
+
+        Key(final Object[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Key && Arrays.equals(values, ((Key) obj).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
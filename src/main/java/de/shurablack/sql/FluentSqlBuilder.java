@@ -1,8 +1,13 @@
 package de.shurablack.sql;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * <p>
@@ -26,6 +31,19 @@ import java.util.stream.Collectors;
  *
  * String sql = builder.toString();
  * }</pre>
+ * <p>
+ * Values can be bound to {@link FluentSqlBuilder#PARAM} placeholders instead of being written into the SQL.
+ * The query is then the same string for every value and can be frozen into a {@link QueryTemplate},
+ * which is executed via {@link SQLRequest} with a cached prepared statement.
+ * </p>
+ * <pre>{@code
+ * QueryTemplate byLevel = FluentSqlBuilder.create()
+ *  .SELECT("*").FROM("users")
+ *  .WHERE(FluentSqlBuilder.CONDITION("level", FluentSqlBuilder.GREATER, FluentSqlBuilder.PARAM))
+ *  .freeze();
+ *
+ * List<User> users = byLevel.list(User.class, 10);
+ * }</pre>
  *
  * @version sql-1.0.0
  * @date 09.06.2023
@@ -35,6 +53,9 @@ public class FluentSqlBuilder implements Serializable {
 
     private static final long serialVersionUID = 4413271984887210214L;
 
+    /** Class Logger */
+    private static final Logger LOGGER = LogManager.getLogger(FluentSqlBuilder.class);
+
     /** Variable for equal (example 1 EQUAL 1)*/
     public static final String EQUAL = "=";
 
@@ -74,9 +95,21 @@ public class FluentSqlBuilder implements Serializable {
     /** Variable for cross joined tables */
     public static final String CROSSJOIN = "CROSSJOIN";
 
+    /** Placeholder for a value, which is bound with {@link FluentSqlBuilder#BIND(Object...)} */
+    public static final String PARAM = "?";
+
     /** The currently building sql string */
     private final StringBuilder sql = new StringBuilder();
 
+    /** The bound values of the ? placeholders in order */
+    private final List<Object> params = new ArrayList<>();
+
+    /** Indicates whether the query has a WHERE clause */
+    private boolean filtered = false;
+
+    /** Indicates whether the query has a SET clause */
+    private boolean changing = false;
+
     /**
      * Creates a new instance of the FluentSqlBuilder
      * @return the builder for chaining
@@ -95,12 +128,113 @@ public class FluentSqlBuilder implements Serializable {
      */
     public FluentSqlBuilder UPDATE_CHAIN(final String table, final List<String> columns, List<String> values) {
         sql.append("INSERT INTO ").append(table).append(" (").append(String.join(", ", columns)).append(")")
-                .append(" VALUES ").append(String.join(",", values))
-                .append(" ON DUPLICATE KEY UPDATE ")
-                .append(columns.stream().map(col -> String.format("%s=VALUES(%s)", col, col)).collect(Collectors.joining(",")));
+                .append(" VALUES ").append(String.join(",", values));
+        appendDuplicateUpdate(columns, false);
         return this;
     }
 
+    /**
+     * Convenience Method to make multiple changes in one request with ? placeholders.
+     * <br>The values are bound with {@link FluentSqlBuilder#BIND(Object...)}, a value per column for every row in order.
+     * <br><b>This is a closed SQL Request.</b>
+     * @param table the specified table
+     * @param columns the specified colums in the table, which will be updated
+     * @param rows the number of rows
+     * @return the builder for chaining
+     */
+    public FluentSqlBuilder UPDATE_CHAIN(final String table, final List<String> columns, final int rows) {
+        return INSERT_ROWS(table, columns, rows).ON_DUPLICATE_UPDATE(columns);
+    }
+
+    /**
+     * Adds an INSERT INTO clause for multiple rows with ? placeholders.
+     * <br>The values are bound with {@link FluentSqlBuilder#BIND(Object...)}, a value per column for every row in order.
+     * @param table the specified table
+     * @param columns the specified colums in the table
+     * @param rows the number of rows
+     * @return the builder for chaining
+     */
+    @Starter
+    public FluentSqlBuilder INSERT_ROWS(final String table, final List<String> columns, final int rows) {
+        sql.append("INSERT INTO ").append(table).append(" (").append(String.join(", ", columns)).append(")")
+                .append(" VALUES ");
+        appendParamRows(columns.size(), rows);
+        return this;
+    }
+
+    /**
+     * Adds an ON DUPLICATE KEY UPDATE clause, which replaces the columns of existing rows with the inserted values
+     * @param columns the specified columns, which will be updated
+     * @return the builder for chaining
+     */
+    public FluentSqlBuilder ON_DUPLICATE_UPDATE(final List<String> columns) {
+        appendDuplicateUpdate(columns, false);
+        return this;
+    }
+
+    /**
+     * Convenience Method to add to the counters of multiple rows in one request.
+     * Missing rows are inserted, existing rows get the values added to their counter columns.
+     * <br>The values are ? placeholders, which need a value per key and counter column for every row in order.
+     * <br><b>This is a closed SQL Request.</b>
+     * @param table the specified table
+     * @param keys the specified key columns, which identify a row
+     * @param counters the specified counter columns, which will be incremented
+     * @param rows the number of rows
+     * @return the builder for chaining
+     */
+    public FluentSqlBuilder INCREMENT_CHAIN(final String table, final List<String> keys, final List<String> counters, final int rows) {
+        sql.append("INSERT INTO ").append(table).append(" (").append(String.join(", ", keys));
+        for (String counter : counters) {
+            sql.append(", ").append(counter);
+        }
+        sql.append(") VALUES ");
+        appendParamRows(keys.size() + counters.size(), rows);
+        appendDuplicateUpdate(counters, true);
+        return this;
+    }
+
+    /**
+     * Appends rows of ? placeholders
+     * @param columns the number of placeholders per row
+     * @param rows the number of rows
+     */
+    private void appendParamRows(final int columns, final int rows) {
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                sql.append(',');
+            }
+            sql.append('(');
+            for (int col = 0; col < columns; col++) {
+                if (col > 0) {
+                    sql.append(',');
+                }
+                sql.append('?');
+            }
+            sql.append(')');
+        }
+    }
+
+    /**
+     * Appends the ON DUPLICATE KEY UPDATE clause, which takes the inserted values of the columns
+     * @param columns the updated columns
+     * @param increment true to add the inserted values instead of replacing the old ones
+     */
+    private void appendDuplicateUpdate(final List<String> columns, final boolean increment) {
+        sql.append(" ON DUPLICATE KEY UPDATE ");
+        for (int i = 0; i < columns.size(); i++) {
+            final String col = columns.get(i);
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(col).append('=');
+            if (increment) {
+                sql.append(col).append('+');
+            }
+            sql.append("VALUES(").append(col).append(')');
+        }
+    }
+
     /**
      * Adds a SELECT clause to the query with the specified columns.
      * @param columns the specified columns
@@ -184,7 +318,8 @@ public class FluentSqlBuilder implements Serializable {
     }
 
     /**
-     * Returns a string representation of the values in parentheses, suitable for use in an INSERT clause
+     * Returns a string representation of the values in parentheses, suitable for use in an INSERT clause.
+     * The values are inlined, use {@link FluentSqlBuilder#VALUE_PARAM(Object...)} for user input
      * @param value which will be used to build the representation
      * @return the SQL subtext
      */
@@ -192,6 +327,27 @@ public class FluentSqlBuilder implements Serializable {
         return String.format("(%s)", String.join(",", value));
     }
 
+    /**
+     * Returns a string representation of ? placeholders in parentheses, suitable for use in an INSERT clause.
+     * The values are bound with {@link FluentSqlBuilder#BIND(Object...)}
+     * @param count the number of placeholders
+     * @return the SQL subtext
+     */
+    public static String VALUE_PARAMS(final int count) {
+        return "(" + String.join(",", Collections.nCopies(count, PARAM)) + ")";
+    }
+
+    /**
+     * Adds ? placeholders in parentheses for the values and binds the values at their position, e.g.
+     * {@code INSERT("users").VALUE_PARAM(id, name)}
+     * @param values the values of the placeholders
+     * @return the builder for chaining
+     */
+    public FluentSqlBuilder VALUE_PARAM(final Object... values) {
+        sql.append(VALUE_PARAMS(values.length)).append(" ");
+        return BIND(values);
+    }
+
     /**
      * Returns a string representation of the COUNT operation
      * @param column the specified column
@@ -221,9 +377,30 @@ public class FluentSqlBuilder implements Serializable {
     public FluentSqlBuilder SET(final String... changes) {
         String cols = String.join(", ", changes);
         sql.append("SET ").append(cols).append(" ");
+        changing = true;
         return this;
     }
 
+    /**
+     * Adds a change with a ? placeholder to the SET clause and binds the value at its position.
+     * The first change starts the SET clause, e.g. {@code UPDATE("users").SET_PARAM("name", name).SET_PARAM("level", 2)}
+     * @param column the changed column
+     * @param value the new value
+     * @return the builder for chaining
+     */
+    public FluentSqlBuilder SET_PARAM(final String column, final Object value) {
+        if (changing) {
+            // continues the clause before the trailing space
+            sql.setLength(sql.length() - 1);
+            sql.append(", ");
+        } else {
+            sql.append("SET ");
+            changing = true;
+        }
+        sql.append(column).append("=").append(PARAM).append(" ");
+        return BIND(value);
+    }
+
     /**
      * Adds an ORDER BY clause to the query with the specified order
      * @param order the specified column
@@ -276,11 +453,79 @@ public class FluentSqlBuilder implements Serializable {
     public FluentSqlBuilder WHERE (final String... conditions) {
         String cons = String.join(" ", conditions);
         sql.append("WHERE ").append(cons).append(" ");
+        filtered = true;
+        return this;
+    }
+
+    /**
+     * Adds a keyset (seek) pagination to the query, which continues after the sort keys of the cursor
+     * instead of skipping rows with an offset, e.g.
+     * {@code WHERE (xp, user_id) < (?, ?) ORDER BY xp DESC, user_id DESC LIMIT 10}.
+     * <br>The keys of the cursor are bound to the placeholders. Without cursor only the first page is selected.
+     * Add it after the WHERE clause, the seek condition is joined with AND.
+     * <br>The last column must be unique (e.g. the id), so rows with the same sort value are not skipped.
+     * All columns are sorted in the same direction, an index over them in that order makes every page equally fast.
+     * <br>A cursor with another number of keys than columns or with a null key is logged and the first page is selected
+     * @param cursor the cursor of the page or null for the first page
+     * @param limit the number of rows of the page
+     * @param sort the specified sorting {@link FluentSqlBuilder#ASC} or {@link FluentSqlBuilder#DESC}
+     * @param columns the sort columns, ending with a unique column
+     * @return the builder for chaining
+     * @see PageCursor
+     */
+    public FluentSqlBuilder SEEK(final PageCursor cursor, final int limit, final String sort, final String... columns) {
+        final boolean seek = cursor != null && isValidCursor(cursor, columns);
+        final boolean descending = DESC.equalsIgnoreCase(sort) != (seek && cursor.isBackward());
+        if (seek) {
+            final Object[] keys = cursor.getKeys();
+            sql.append(filtered ? "AND " : "WHERE ");
+            if (columns.length == 1) {
+                sql.append(columns[0]);
+            } else {
+                sql.append('(').append(String.join(", ", columns)).append(')');
+            }
+            sql.append(descending ? " < " : " > ");
+            sql.append(columns.length == 1 ? PARAM : VALUE_PARAMS(columns.length).replace(",", ", ")).append(' ');
+            BIND(keys);
+            filtered = true;
+        }
+
+        sql.append("ORDER BY ");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(columns[i]).append(' ').append(descending ? DESC : ASC);
+        }
+        sql.append(" LIMIT ").append(limit);
         return this;
     }
 
     /**
-     * Returns a string representation of an WHERE condition
+     * Checks if the keys of the cursor fit the sort columns
+     * @param cursor the cursor of the page
+     * @param columns the sort columns
+     * @return true if the cursor has one non-null key per column
+     */
+    private static boolean isValidCursor(final PageCursor cursor, final String... columns) {
+        final Object[] keys = cursor.getKeys();
+        if (keys.length != columns.length) {
+            LOGGER.error(String.format("The page cursor has %d keys, but the query is sorted by %s",
+                    keys.length, Arrays.toString(columns)), new IllegalArgumentException());
+            return false;
+        }
+        // a null key compares to unknown and would select an empty page
+        if (Arrays.asList(keys).contains(null)) {
+            LOGGER.error(String.format("The page cursor contains a null key %s, the sort columns must not be nullable",
+                    Arrays.toString(keys)), new IllegalArgumentException());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a string representation of an WHERE condition.
+     * The value is inlined, use {@link FluentSqlBuilder#CONDITION_PARAM(String, String, Object)} for user input
      * @param column the specified column
      * @param operator the comparing operator
      * @param value the value which will be used for comparison
@@ -290,6 +535,24 @@ public class FluentSqlBuilder implements Serializable {
         return String.format("%s%s%s", column, operator, value);
     }
 
+    /**
+     * Adds a condition with a ? placeholder and binds the value at its position. The first condition starts
+     * the WHERE clause, further conditions are joined with {@link FluentSqlBuilder#AND()} or {@link FluentSqlBuilder#OR()}, e.g.
+     * {@code CONDITION_PARAM("guild_id", EQUAL, guild).AND().CONDITION_PARAM("xp", GREATER, xp)}
+     * @param column the specified column
+     * @param operator the comparing operator
+     * @param value the value which will be used for comparison
+     * @return the builder for chaining
+     */
+    public FluentSqlBuilder CONDITION_PARAM(final String column, final String operator, final Object value) {
+        if (!filtered) {
+            sql.append("WHERE ");
+            filtered = true;
+        }
+        sql.append(column).append(operator).append(PARAM).append(" ");
+        return BIND(value);
+    }
+
     /**
      * Adds an AND clause to the query
      * @return the builder for chaining
@@ -410,7 +673,8 @@ public class FluentSqlBuilder implements Serializable {
     }
 
     /**
-     * Return a String which is valid for SQL
+     * Return a String which is valid for SQL. The value isnt escaped, bind user input with
+     * {@link FluentSqlBuilder#CONDITION_PARAM(String, String, Object)} or {@link FluentSqlBuilder#BIND(Object...)} instead
      * @param value the specifid value to wrap
      * @return the SQL subtext
      */
@@ -428,6 +692,35 @@ public class FluentSqlBuilder implements Serializable {
         return String.format("%s AS %s", table, name);
     }
 
+    /**
+     * Binds values to the next ? placeholders of the query in the order of the calls.
+     * Use {@link FluentSqlBuilder#PARAM} instead of the value in the SQL subtext, e.g.
+     * {@code WHERE(CONDITION("id", EQUAL, PARAM)).BIND(id)}.
+     * <br>The <b>_PARAM</b> methods bind their value together with their placeholder, so they cant get out of order
+     * @param values the values of the placeholders
+     * @return the builder for chaining
+     */
+    public FluentSqlBuilder BIND(final Object... values) {
+        params.addAll(Arrays.asList(values));
+        return this;
+    }
+
+    /**
+     * @return the bound values of the ? placeholders in order
+     */
+    public Object[] getParams() {
+        return params.toArray();
+    }
+
+    /**
+     * Freezes the built query into a {@link QueryTemplate}, which is rendered once and can be executed
+     * by multiple threads with new values for the placeholders. Bound values are not part of the template
+     * @return the template
+     */
+    public QueryTemplate freeze() {
+        return new QueryTemplate(sql.toString().trim());
+    }
+
     public String asSubQuery() {
         return "(" + sql + ")";
     }
@@ -0,0 +1,119 @@
+package de.shurablack.sql;
+
+/**
+ * <p>
+ * The FrequencySketch class estimates how often a key got accessed with a count-min sketch of 4-bit counters.
+ * <br><br>
+ * Every key increments four counters, the estimation is the smallest of them. After a sample of ten times the
+ * cache size all counters are halved, so old popularity fades and the sketch follows the current workload.
+ * </p>
+ *
+ * @see QueryCache
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+final class FrequencySketch {
+
+    /** Seeds of the four hash functions */
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    /** Mask to halve 16 counters of a long at once */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /** Every long holds 16 counters with 4 bits */
+    private final long[] table;
+
+    /** Mask for the table index */
+    private final int mask;
+
+    /** Number of increments until the counters get halved */
+    private final int sampleSize;
+
+    /** Number of increments since the last halving */
+    private int size = 0;
+
+    /**
+     * This constructs a new FrequencySketch object
+     * @param maximumSize the maximum number of cached keys
+     */
+    FrequencySketch(final int maximumSize) {
+        final int capacity = Integer.highestOneBit(Math.max(16, Math.min(maximumSize, 1 << 30)) - 1) << 1;
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+        this.sampleSize = 10 * Math.max(16, maximumSize);
+    }
+
+    /**
+     * Returns the estimated number of accesses of the key
+     * @param key the key
+     * @return the estimation between 0 and 15
+     */
+    int frequency(final Object key) {
+        final int hash = spread(key.hashCode());
+        final int start = (hash & 3) << 2;
+        int frequency = 15;
+        for (int i = 0; i < 4; i++) {
+            final int offset = (start + i) << 2;
+            final int count = (int) ((table[indexOf(hash, i)] >>> offset) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access of the key
+     * @param key the key
+     */
+    void increment(final Object key) {
+        final int hash = spread(key.hashCode());
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            final int index = indexOf(hash, i);
+            final int offset = (start + i) << 2;
+            if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Halves every counter
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size /= 2;
+    }
+
+    /**
+     * Returns the table index of the key for a hash function
+     * @param hash the spread hash of the key
+     * @param i the number of the hash function
+     * @return the table index
+     */
+    private int indexOf(final int hash, final int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & mask;
+    }
+
+    /**
+     * Spreads the bits of a weak hash code
+     * @param hash the hash code
+     * @return the spread hash
+     */
+    private static int spread(final int hash) {
+        int h = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        h = ((h >>> 16) ^ h) * 0x45d9f3b;
+        return (h >>> 16) ^ h;
+    }
+}
@@ -0,0 +1,57 @@
+package de.shurablack.sql;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * The MappedListHandler class converts every row of a result set with the cached {@link RowMapper}
+ * of the class and column layout, or with a given mapper.
+ * </p>
+ *
+ * @param <T> the class type of the rows
+ * @see RowMappers
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+final class MappedListHandler<T> implements ResultSetHandler<List<T>> {
+
+    /** The class type of the rows */
+    private final Class<T> cls;
+
+    /** The given mapper or null, to resolve it by the class */
+    private final RowMapper<T> rowMapper;
+
+    /**
+     * This constructs a new MappedListHandler object
+     * @param cls the class type of the rows
+     */
+    MappedListHandler(final Class<T> cls) {
+        this.cls = cls;
+        this.rowMapper = null;
+    }
+
+    /**
+     * This constructs a new MappedListHandler object with a given mapper
+     * @param mapper the mapper of the rows
+     */
+    MappedListHandler(final RowMapper<T> mapper) {
+        this.cls = null;
+        this.rowMapper = mapper;
+    }
+
+    @Override
+    public List<T> handle(final ResultSet rs) throws SQLException {
+        final RowMapper<T> mapper = rowMapper != null ? rowMapper : RowMappers.of(cls, rs.getMetaData());
+        final List<T> rows = new ArrayList<>();
+        while (rs.next()) {
+            rows.add(mapper.map(rs));
+        }
+        return rows;
+    }
+}
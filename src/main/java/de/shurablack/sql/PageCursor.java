@@ -0,0 +1,324 @@
+package de.shurablack.sql;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * The PageCursor class is the position of a page in a keyset (seek) pagination.
+ * <br><br>
+ * Instead of skipping rows with {@code LIMIT offset, n}, which reads and drops every skipped row, the next page
+ * continues after the sort keys of the last row ({@link FluentSqlBuilder#SEEK(PageCursor, int, String, String...)}).
+ * With an index on the sort columns, page 500 costs the same as page 1.
+ * <br><br>
+ * A cursor is encoded into a short url-safe token, which can be stored in the id of a button component
+ * and decoded again, when the button is pressed. Supported key types are integral numbers, floating point numbers,
+ * {@link BigDecimal}, {@link String}, {@link Boolean}, {@link Timestamp}, {@link Instant},
+ * {@link LocalDateTime} and null. Integral numbers are decoded as {@link Long}, timestamps as {@link Timestamp}.
+ * <br><br>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * PageCursor cursor = PageCursor.decode(tokenFromButton); // null for the first page
+ * FluentSqlBuilder builder = FluentSqlBuilder.create()
+ *  .SELECT("user_id", "xp").FROM("user_xp")
+ *  .WHERE(FluentSqlBuilder.CONDITION("guild_id", FluentSqlBuilder.EQUAL, FluentSqlBuilder.PARAM)).BIND(guildId)
+ *  .SEEK(cursor, 10, FluentSqlBuilder.DESC, "xp", "user_id");
+ *
+ * List<UserXp> page = SQLRequest.runList(builder.freeze().getSql(), UserXp.class, builder.getParams());
+ * if (cursor != null) {
+ *     page = cursor.arrange(page);
+ * }
+ * Button next = Button.primary("xp_next:" + PageCursor.after(page, row -> new Object[] {row.getXp(), row.getUserId()}).encode(), "Next");
+ * }</pre>
+ *
+ * @see FluentSqlBuilder#SEEK(PageCursor, int, String, String...)
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public final class PageCursor {
+
+    /** Class Logger */
+    private static final Logger LOGGER = LogManager.getLogger(PageCursor.class);
+
+    /** Maximum length of a component id */
+    public static final int MAX_COMPONENT_ID_LENGTH = 100;
+
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte STRING = 3;
+    private static final byte FALSE = 4;
+    private static final byte TRUE = 5;
+    private static final byte TIMESTAMP = 6;
+    private static final byte DECIMAL = 7;
+
+    /** Flag of the header for cursors before the keys */
+    private static final byte BACKWARD = 1;
+
+    /** The sort keys of the boundary row */
+    private final Object[] keys;
+
+    /** Indicates whether the page lies before the keys */
+    private final boolean backward;
+
+    /**
+     * This constructs a new PageCursor object
+     * @param keys the sort keys of the boundary row
+     * @param backward true if the page lies before the keys
+     */
+    private PageCursor(final Object[] keys, final boolean backward) {
+        this.keys = keys;
+        this.backward = backward;
+    }
+
+    /**
+     * Creates a cursor for the page after a row
+     * @param keys the sort keys of the last row of the current page in order of the sort columns
+     * @return the cursor
+     */
+    public static PageCursor after(final Object... keys) {
+        return new PageCursor(keys.clone(), false);
+    }
+
+    /**
+     * Creates a cursor for the page before a row
+     * @param keys the sort keys of the first row of the current page in order of the sort columns
+     * @return the cursor
+     */
+    public static PageCursor before(final Object... keys) {
+        return new PageCursor(keys.clone(), true);
+    }
+
+    /**
+     * Creates a cursor for the page after the last row of the page
+     * @param page the rows of the current page
+     * @param keys reads the sort keys of a row
+     * @param <T> the row class type
+     * @return the cursor or null, if the page is empty
+     */
+    public static <T> PageCursor after(final List<T> page, final Function<? super T, Object[]> keys) {
+        return page.isEmpty() ? null : after(keys.apply(page.get(page.size() - 1)));
+    }
+
+    /**
+     * Creates a cursor for the page before the first row of the page
+     * @param page the rows of the current page
+     * @param keys reads the sort keys of a row
+     * @param <T> the row class type
+     * @return the cursor or null, if the page is empty
+     */
+    public static <T> PageCursor before(final List<T> page, final Function<? super T, Object[]> keys) {
+        return page.isEmpty() ? null : before(keys.apply(page.get(0)));
+    }
+
+    /**
+     * Brings the rows of a seek query into the sort order. Pages before a row are queried in reversed
+     * order, so their rows are reversed again
+     * @param rows the rows of the query
+     * @param <T> the row class type
+     * @return the rows in sort order
+     */
+    public <T> List<T> arrange(final List<T> rows) {
+        if (!backward) {
+            return rows;
+        }
+        final List<T> arranged = new ArrayList<>(rows);
+        Collections.reverse(arranged);
+        return arranged;
+    }
+
+    /**
+     * @return the sort keys of the boundary row
+     */
+    public Object[] getKeys() {
+        return keys.clone();
+    }
+
+    /**
+     * @return true if the page lies before the keys
+     */
+    public boolean isBackward() {
+        return backward;
+    }
+
+    /**
+     * Encodes the cursor into an url-safe Base64 token. The token of a few numeric keys is about 20 characters long,
+     * long strings as key can exceed the {@link PageCursor#MAX_COMPONENT_ID_LENGTH} of a component id
+     * @return the token
+     */
+    public String encode() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(backward ? BACKWARD : 0);
+        for (Object key : keys) {
+            writeKey(out, key);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    /**
+     * Decodes a token of {@link PageCursor#encode()}
+     * @param token the token
+     * @return the cursor or null, if the token is null, empty or invalid
+     */
+    public static PageCursor decode(final String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            final ByteBuffer in = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            final byte header = in.get();
+            if ((header & ~BACKWARD) != 0) {
+                throw new IllegalArgumentException(String.format("Unknown header %d", header));
+            }
+            final List<Object> keys = new ArrayList<>();
+            while (in.hasRemaining()) {
+                keys.add(readKey(in));
+            }
+            if (keys.isEmpty()) {
+                throw new IllegalArgumentException("The token has no keys");
+            }
+            final boolean backward = header == BACKWARD;
+            return new PageCursor(keys.toArray(), backward);
+        } catch (RuntimeException e) {
+            LOGGER.error(String.format("Invalid page cursor <%s>", token), e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the type and value of a key
+     * @param out the output
+     * @param key the key
+     */
+    private static void writeKey(final ByteArrayOutputStream out, final Object key) {
+        if (key == null) {
+            out.write(NULL);
+        } else if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            out.write(LONG);
+            writeVarLong(out, zigZag(((Number) key).longValue()));
+        } else if (key instanceof Double || key instanceof Float) {
+            out.write(DOUBLE);
+            out.writeBytes(ByteBuffer.allocate(Double.BYTES).putDouble(((Number) key).doubleValue()).array());
+        } else if (key instanceof BigDecimal) {
+            out.write(DECIMAL);
+            writeString(out, ((BigDecimal) key).toString());
+        } else if (key instanceof Boolean) {
+            out.write((Boolean) key ? TRUE : FALSE);
+        } else if (key instanceof Timestamp || key instanceof Instant || key instanceof LocalDateTime) {
+            final Instant instant = key instanceof Instant ? (Instant) key
+                    : key instanceof Timestamp ? ((Timestamp) key).toInstant() : Timestamp.valueOf((LocalDateTime) key).toInstant();
+            out.write(TIMESTAMP);
+            writeVarLong(out, zigZag(instant.getEpochSecond()));
+            writeVarLong(out, instant.getNano());
+        } else if (key instanceof CharSequence) {
+            out.write(STRING);
+            writeString(out, key.toString());
+        } else {
+            throw new IllegalArgumentException(String.format("Unsupported page cursor key %s (%s)",
+                    key, key.getClass().getName()));
+        }
+    }
+
+    /**
+     * Reads the type and value of a key
+     * @param in the input
+     * @return the key
+     */
+    private static Object readKey(final ByteBuffer in) {
+        final byte type = in.get();
+        switch (type) {
+            case NULL:
+                return null;
+            case LONG:
+                return unZigZag(readVarLong(in));
+            case DOUBLE:
+                return in.getDouble();
+            case STRING:
+                return readString(in);
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case TIMESTAMP:
+                final long seconds = unZigZag(readVarLong(in));
+                return Timestamp.from(Instant.ofEpochSecond(seconds, readVarLong(in)));
+            case DECIMAL:
+                return new BigDecimal(readString(in));
+            default:
+                throw new IllegalArgumentException(String.format("Unknown key type %d", type));
+        }
+    }
+
+    private static void writeString(final ByteArrayOutputStream out, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static String readString(final ByteBuffer in) {
+        final long length = readVarLong(in);
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException("String key exceeds the token");
+        }
+        final byte[] bytes = new byte[(int) length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes an unsigned value with 7 bits per byte, so small values take a single byte
+     * @param out the output
+     * @param value the value
+     */
+    private static void writeVarLong(final ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(final ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed number in the token");
+    }
+
+    /**
+     * Maps signed to unsigned values, so small negative values stay short
+     */
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PageCursor[%s %s]", backward ? "before" : "after", Arrays.toString(keys));
+    }
+}
@@ -0,0 +1,203 @@
+package de.shurablack.sql;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * The PoolEntry class wraps a single {@link Connection} which is managed by the {@link ConnectionPool}.
+ * <br><br>
+ * The state of an entry is changed with compare-and-set operations only, so a connection can be
+ * claimed by exactly one borrower without taking a lock.
+ * </p>
+ *
+ * @see ConcurrentBag
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+final class PoolEntry {
+
+    /** The entry is idle and can be borrowed */
+    static final int STATE_NOT_IN_USE = 0;
+
+    /** The entry is currently borrowed */
+    static final int STATE_IN_USE = 1;
+
+    /** The entry got removed from the pool and must not be used anymore */
+    static final int STATE_REMOVED = -1;
+
+    /** The entry is reserved by the pool itself (e.g. for closing) */
+    static final int STATE_RESERVED = -2;
+
+    /** The wrapped database connection */
+    private final Connection connection;
+
+    /** The current state of the entry */
+    private final AtomicInteger state = new AtomicInteger(STATE_NOT_IN_USE);
+
+    /** Timestamp (millis) of the last borrow or return */
+    private volatile long lastAccessed;
+
+    /** Timestamp (millis) at which the connection was known to be alive the last time */
+    private volatile long lastValidated;
+
+    /** Timestamp (millis) after which the connection gets retired, or 0 if it lives forever */
+    private final long retireAt;
+
+    /** Indicates whether the connection should be closed instead of reused */
+    private volatile boolean evicted = false;
+
+    /** Timestamp (millis) of the current borrow */
+    private volatile long borrowedAt;
+
+    /** Stack trace of the current borrower, if leak tracing is enabled */
+    private volatile Throwable borrowTrace;
+
+    /** Indicates whether the current borrow was already reported as possible leak */
+    private volatile boolean leakReported;
+
+    /** Prepared statements of the connection */
+    private final StatementCache statements;
+
+    /**
+     * This constructs a new PoolEntry object
+     * @param connection the wrapped connection
+     * @param lifetime the time (millis) after which the connection gets retired, or 0 if it lives forever
+     * @param statementCacheSize the maximum number of cached prepared statements
+     */
+    PoolEntry(final Connection connection, final long lifetime, final int statementCacheSize) {
+        this.connection = connection;
+        this.statements = new StatementCache(statementCacheSize);
+        this.lastAccessed = System.currentTimeMillis();
+        this.lastValidated = lastAccessed;
+        this.retireAt = lifetime > 0 ? lastAccessed + lifetime : 0;
+    }
+
+    /**
+     * @return the wrapped {@link Connection}
+     */
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * @return the prepared statement cache of the connection
+     */
+    StatementCache getStatements() {
+        return statements;
+    }
+
+    /**
+     * @return the current state of the entry
+     */
+    int getState() {
+        return state.get();
+    }
+
+    /**
+     * Sets the state of the entry without checking the previous one
+     * @param newState the new state
+     */
+    void setState(final int newState) {
+        state.set(newState);
+    }
+
+    /**
+     * Atomically changes the state of the entry
+     * @param expect the expected current state
+     * @param update the new state
+     * @return true if the state got changed
+     */
+    boolean compareAndSet(final int expect, final int update) {
+        return state.compareAndSet(expect, update);
+    }
+
+    /**
+     * @return timestamp (millis) of the last borrow or return
+     */
+    long getLastAccessed() {
+        return lastAccessed;
+    }
+
+    /**
+     * Marks the entry as accessed right now
+     */
+    void touch() {
+        this.lastAccessed = System.currentTimeMillis();
+    }
+
+    /**
+     * @return timestamp (millis) at which the connection was known to be alive the last time
+     */
+    long getLastValidated() {
+        return lastValidated;
+    }
+
+    /**
+     * Marks the connection as alive right now, after it got checked with {@link java.sql.Connection#isValid(int)}
+     */
+    void markValidated() {
+        this.lastValidated = System.currentTimeMillis();
+    }
+
+    /**
+     * Records a new borrow of the connection
+     * @param trace the stack trace of the borrower or null if leak tracing is disabled
+     */
+    void markBorrowed(final Throwable trace) {
+        this.borrowedAt = System.currentTimeMillis();
+        this.lastAccessed = borrowedAt;
+        this.borrowTrace = trace;
+        this.leakReported = false;
+    }
+
+    /**
+     * @return timestamp (millis) of the current borrow
+     */
+    long getBorrowedAt() {
+        return borrowedAt;
+    }
+
+    /**
+     * @return the stack trace of the current borrower or null if leak tracing is disabled
+     */
+    Throwable getBorrowTrace() {
+        return borrowTrace;
+    }
+
+    /**
+     * @return true if the current borrow was reported as possible leak
+     */
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    /**
+     * Marks the current borrow as reported possible leak
+     * @return true if the borrow wasnt reported before
+     */
+    boolean reportLeak() {
+        if (leakReported) {
+            return false;
+        }
+        leakReported = true;
+        return true;
+    }
+
+    /**
+     * Checks if the connection reached its lifetime or got evicted by the pool
+     * @param now the current timestamp (millis)
+     * @return true if the connection must not be reused anymore
+     */
+    boolean isRetired(final long now) {
+        return evicted || (retireAt > 0 && now >= retireAt);
+    }
+
+    /**
+     * Marks the connection to be closed on its next return instead of being reused
+     */
+    void evict() {
+        this.evicted = true;
+    }
+}
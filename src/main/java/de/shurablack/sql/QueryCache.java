@@ -0,0 +1,539 @@
+package de.shurablack.sql;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * The QueryCache class keeps the results of read queries in memory, so repeated reads dont need a round-trip
+ * to the database.
+ * <br><br>
+ * The cache is bounded by the number of results and evicts with a W-TinyLFU policy: new results enter a small
+ * LRU window and have to beat the least recently used result of the main area in estimated access frequency
+ * ({@link FrequencySketch}) to stay. Frequently read results move into a protected segment. This keeps popular
+ * queries like guild settings cached, while one-time queries dont push them out.
+ * <br><br>
+ * Every result expires after its time to live and is tagged with the tables of the query. Writes through
+ * {@link SQLRequest} and {@link SQLBatch} invalidate the results of every table they touch, and results which were
+ * loaded while one of their tables got invalidated are not stored, so a read after an own write never sees the old value.
+ * Writes from other applications are only visible after the time to live.
+ * <br><br>
+ * Reads dont block each other. The eviction policy is updated under a lock, which reads only take if it is free,
+ * so under contention some accesses are not counted for the eviction.
+ * <br><br>
+ * Expired results are kept up to the maximum staleness, so cached reads of {@link SQLRequest} can still answer
+ * with the last known result while the database is unreachable.
+ * <br><br>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * SQLRequest.setCache(new QueryCache(1000, Duration.ofMinutes(5)));
+ *
+ * Result<Settings> settings = SQLRequest.runSingleCached("SELECT * FROM settings WHERE guild_id = ?",
+ *         Settings.class, Duration.ofMinutes(10), guildId);
+ * }</pre>
+ * <p>
+ * Cached objects are shared between all callers and must not be modified.
+ * </p>
+ *
+ * @see SQLRequest
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public class QueryCache {
+
+    /** Class Logger */
+    private static final Logger LOGGER = LogManager.getLogger(QueryCache.class);
+
+    /** Default time to live of a result */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(1);
+
+    /** Default time an expired result is kept as fallback for an unreachable database */
+    public static final Duration DEFAULT_MAX_STALE = Duration.ofMinutes(10);
+
+    /** Maximum number of cached results */
+    private final int maximumSize;
+
+    /** Maximum number of results in the admission window */
+    private final int maxWindow;
+
+    /** Maximum number of results in the protected segment */
+    private final int maxProtected;
+
+    /** Time to live of results without an own one in nanos */
+    private final long defaultTtl;
+
+    /** Time (nanos) an expired result is kept as fallback */
+    private volatile long maxStale = DEFAULT_MAX_STALE.toNanos();
+
+    /** Estimated access frequency of the keys */
+    private final FrequencySketch sketch;
+
+    /** Every cached result by its key */
+    private final Map<Key, Node> data = new ConcurrentHashMap<>();
+
+    /** Guards the eviction policy, the tags and the invalidation epochs */
+    private final ReentrantLock policy = new ReentrantLock();
+
+    /** Admission window in LRU order */
+    private final LinkedHashMap<Key, Node> window = new LinkedHashMap<>();
+
+    /** Main results which got read once in LRU order */
+    private final LinkedHashMap<Key, Node> probation = new LinkedHashMap<>();
+
+    /** Main results which got read repeatedly in LRU order */
+    private final LinkedHashMap<Key, Node> protect = new LinkedHashMap<>();
+
+    /** Keys of the cached results per table */
+    private final Map<String, Set<Key>> tags = new HashMap<>();
+
+    /** Incremented with every invalidation of a table, to discard results of the table which were loaded meanwhile */
+    private final Map<String, AtomicLong> epochs = new ConcurrentHashMap<>();
+
+    /** Incremented if every result gets invalidated */
+    private final AtomicLong globalEpoch = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long evictions = 0;
+
+    /**
+     * This constructs a new QueryCache object with the default time to live
+     * @param maximumSize the maximum number of cached results
+     */
+    public QueryCache(final int maximumSize) {
+        this(maximumSize, DEFAULT_TTL);
+    }
+
+    /**
+     * This constructs a new QueryCache object
+     * @param maximumSize the maximum number of cached results
+     * @param defaultTtl the time to live of results, if the query doesnt define one
+     */
+    public QueryCache(final int maximumSize, final Duration defaultTtl) {
+        if (maximumSize < 1) {
+            LOGGER.error("Query cache size must be greater than 0", new IllegalArgumentException());
+        }
+        this.maximumSize = Math.max(1, maximumSize);
+        this.maxWindow = Math.max(1, this.maximumSize / 100);
+        this.maxProtected = (this.maximumSize - this.maxWindow) * 80 / 100;
+        this.defaultTtl = defaultTtl == null ? DEFAULT_TTL.toNanos() : defaultTtl.toNanos();
+        this.sketch = new FrequencySketch(this.maximumSize);
+    }
+
+    /**
+     * Sets the time an expired result is kept, to answer reads while the database is unreachable
+     * @param maxStale the time after the expiration or {@link Duration#ZERO} to drop expired results
+     * @return the cache for chaining
+     */
+    public QueryCache setMaxStale(final Duration maxStale) {
+        if (maxStale == null || maxStale.isNegative()) {
+            LOGGER.error("Maximum staleness cant be negative", new IllegalArgumentException());
+            return this;
+        }
+        this.maxStale = maxStale.toNanos();
+        return this;
+    }
+
+    /**
+     * Returns the cached result of the key and records the access
+     * @param key the key of the query
+     * @return the result or null, if it isnt cached or expired
+     */
+    Object get(final Key key) {
+        final Node node = data.get(key);
+        final long expired = node == null ? -1 : System.nanoTime() - node.expiresAt;
+        if (policy.tryLock()) {
+            try {
+                sketch.increment(key);
+                if (node != null && data.get(key) == node) {
+                    if (expired < 0) {
+                        onHit(node);
+                    } else if (expired >= maxStale) {
+                        remove(node);
+                    }
+                }
+            } finally {
+                policy.unlock();
+            }
+        }
+        // expired results are kept as fallback until the next load replaces them
+        if (node == null || expired >= 0) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return node.value;
+    }
+
+    /**
+     * Returns the cached result of the key, even if it expired within the maximum staleness.
+     * Used as fallback, if the database is unreachable
+     * @param key the key of the query
+     * @return the result or null, if it isnt cached or too old
+     */
+    Object getStale(final Key key) {
+        final Node node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (System.nanoTime() - node.expiresAt >= maxStale) {
+            policy.lock();
+            try {
+                if (data.get(key) == node) {
+                    remove(node);
+                }
+            } finally {
+                policy.unlock();
+            }
+            return null;
+        }
+        return node.value;
+    }
+
+    /**
+     * Returns the invalidation epoch of the tables, which has to be passed to {@link QueryCache#put}.
+     * It only changes if one of the tables or every result gets invalidated
+     * @param tables the tables which the query reads
+     * @return the current epoch of the tables
+     */
+    long epoch(final Set<String> tables) {
+        // the epochs only grow, so the sum only stays the same if none of them changed
+        long epoch = globalEpoch.get();
+        for (String table : tables) {
+            final AtomicLong tableEpoch = epochs.get(table);
+            if (tableEpoch != null) {
+                epoch += tableEpoch.get();
+            }
+        }
+        return epoch;
+    }
+
+    /**
+     * Caches the result of a query, if none of its tables got invalidated since the load started
+     * @param key the key of the query
+     * @param value the result
+     * @param tables the tables which the query reads
+     * @param ttl the time to live or null for the default one
+     * @param loadEpoch the epoch of the tables before the query got executed
+     */
+    void put(final Key key, final Object value, final Set<String> tables, final Duration ttl, final long loadEpoch) {
+        if (value == null) {
+            return;
+        }
+        policy.lock();
+        try {
+            if (loadEpoch == epoch(tables)) {
+                store(key, value, tables, ttl);
+            }
+        } finally {
+            policy.unlock();
+        }
+    }
+
+    /**
+     * Stores the result and evicts results to keep the size bound. Must be called under the policy lock
+     * @param key the key of the query
+     * @param value the result
+     * @param tables the tables which the query reads
+     * @param ttl the time to live or null for the default one
+     */
+    private void store(final Key key, final Object value, final Set<String> tables, final Duration ttl) {
+        final Node previous = data.get(key);
+        if (previous != null) {
+            remove(previous);
+        }
+
+        final Node node = new Node(key, value, tables, System.nanoTime() + (ttl == null ? defaultTtl : ttl.toNanos()));
+        data.put(key, node);
+        window.put(key, node);
+        for (String table : tables) {
+            tags.computeIfAbsent(table, k -> new HashSet<>()).add(key);
+        }
+
+        Node candidate = null;
+        if (window.size() > maxWindow) {
+            candidate = first(window);
+            window.remove(candidate.key);
+            candidate.segment = Segment.PROBATION;
+            probation.put(candidate.key, candidate);
+        }
+        evict(candidate);
+    }
+
+    /**
+     * Removes the cached results of the tables, e.g. after another application changed them
+     * @param tables the names of the tables, no names remove every result
+     */
+    public void invalidate(final String... tables) {
+        final Set<String> names = new HashSet<>();
+        for (String table : tables) {
+            names.add(table.toLowerCase(Locale.ROOT));
+        }
+        invalidate(names);
+    }
+
+    /**
+     * Removes the cached results of the tables
+     * @param tables the lower case names of the tables, an empty set removes every result
+     */
+    void invalidate(final Set<String> tables) {
+        if (tables.isEmpty()) {
+            invalidateAll();
+            return;
+        }
+        policy.lock();
+        try {
+            for (String table : tables) {
+                epochs.computeIfAbsent(table, k -> new AtomicLong()).incrementAndGet();
+                final Set<Key> keys = tags.remove(table);
+                if (keys == null) {
+                    continue;
+                }
+                for (Key key : keys) {
+                    final Node node = data.get(key);
+                    if (node != null) {
+                        remove(node);
+                    }
+                }
+            }
+        } finally {
+            policy.unlock();
+        }
+    }
+
+    /**
+     * Removes every cached result
+     */
+    public void invalidateAll() {
+        policy.lock();
+        try {
+            globalEpoch.incrementAndGet();
+            data.clear();
+            window.clear();
+            probation.clear();
+            protect.clear();
+            tags.clear();
+        } finally {
+            policy.unlock();
+        }
+    }
+
+    /**
+     * @return the number of cached results, including expired ones which werent read again
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * @return the maximum number of cached results
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return the number of reads which were answered from the cache
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of reads which had to query the database
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of results which got evicted because of the size bound
+     */
+    public long getEvictionCount() {
+        policy.lock();
+        try {
+            return evictions;
+        } finally {
+            policy.unlock();
+        }
+    }
+
+    /**
+     * @return the ratio of reads which were answered from the cache
+     */
+    public double getHitRate() {
+        final long hit = hits.sum();
+        final long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * Moves the result to the end of its segment. A repeated read in probation promotes the result
+     * into the protected segment, which demotes its least recently used result, if it is full
+     * @param node the read result
+     */
+    private void onHit(final Node node) {
+        switch (node.segment) {
+            case WINDOW:
+                window.remove(node.key);
+                window.put(node.key, node);
+                break;
+            case PROBATION:
+                probation.remove(node.key);
+                node.segment = Segment.PROTECTED;
+                protect.put(node.key, node);
+                if (protect.size() > maxProtected) {
+                    final Node demoted = first(protect);
+                    protect.remove(demoted.key);
+                    demoted.segment = Segment.PROBATION;
+                    probation.put(demoted.key, demoted);
+                }
+                break;
+            default:
+                protect.remove(node.key);
+                protect.put(node.key, node);
+        }
+    }
+
+    /**
+     * Evicts results until the size bound is kept. The candidate from the window competes with the least
+     * recently used main result and the one with the lower estimated frequency gets evicted
+     * @param candidate the result which left the window or null
+     */
+    private void evict(Node candidate) {
+        while (data.size() > maximumSize) {
+            Node victim = first(probation);
+            if (victim == null) {
+                victim = first(protect);
+            }
+            if (victim == null) {
+                victim = first(window);
+            }
+
+            Node evicted = victim;
+            if (candidate != null && candidate != victim) {
+                evicted = sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+            }
+            remove(evicted);
+            evictions++;
+            if (evicted == candidate) {
+                candidate = null;
+            }
+        }
+    }
+
+    /**
+     * Removes the result from every structure
+     * @param node the result
+     */
+    private void remove(final Node node) {
+        data.remove(node.key);
+        switch (node.segment) {
+            case WINDOW:
+                window.remove(node.key);
+                break;
+            case PROBATION:
+                probation.remove(node.key);
+                break;
+            default:
+                protect.remove(node.key);
+        }
+        for (String table : node.tables) {
+            final Set<Key> keys = tags.get(table);
+            if (keys != null) {
+                keys.remove(node.key);
+                if (keys.isEmpty()) {
+                    tags.remove(table);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the least recently used result of a segment
+     * @param segment the segment
+     * @return the result or null, if the segment is empty
+     */
+    private static Node first(final LinkedHashMap<Key, Node> segment) {
+        final Iterator<Node> iterator = segment.values().iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * Segments of the cached results
+     */
+    private enum Segment {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    /**
+     * A cached result
+     */
+    private static final class Node {
+
+        private final Key key;
+        private final Object value;
+        private final Collection<String> tables;
+        private final long expiresAt;
+        private Segment segment = Segment.WINDOW;
+
+        Node(final Key key, final Object value, final Collection<String> tables, final long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.tables = tables;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Key of a cached result: the kind of the request, the SQL, the class type and the bound values
+     */
+    static final class Key {
+
+        private final char kind;
+        private final String sql;
+        private final Class<?> cls;
+        private final Object[] params;
+        private final int hash;
+
+        Key(final char kind, final String sql, final Class<?> cls, final Object[] params) {
+            this.kind = kind;
+            this.sql = sql;
+            this.cls = cls;
+            this.params = params == null ? new Object[0] : params.clone();
+            this.hash = 31 * (31 * (31 * kind + sql.hashCode()) + cls.hashCode()) + Arrays.deepHashCode(this.params);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return kind == other.kind && cls == other.cls && sql.equals(other.sql)
+                    && Arrays.deepEquals(params, other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
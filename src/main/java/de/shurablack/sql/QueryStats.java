@@ -0,0 +1,499 @@
+package de.shurablack.sql;
+
+import de.shurablack.core.builder.CommandAction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * The QueryStats class records the duration and row count of every statement, which is executed through
+ * {@link SQLRequest}, {@link SQLBatch} or a streamed query.
+ * <br><br>
+ * Statements are grouped by their fingerprint, the SQL with every literal replaced by {@code ?} and every
+ * placeholder list collapsed, so {@code WHERE id IN (1, 2)} and {@code WHERE id IN (?, ?, ?)} are one statement.
+ * For every fingerprint it keeps the number of executions, errors and rows, the total and maximum time
+ * and a log-scaled histogram of the durations, which gives percentiles like the p99 with 12.5% precision.
+ * <br><br>
+ * Statements slower than the threshold (default 1000 ms) are logged with WARN to the logger
+ * {@code de.shurablack.sql.SlowQueryLog}, which can be routed to its own appender in the Log4j configuration.
+ * The console command {@code sql stats} lists the statements with the highest total or p99 time.
+ * <br><br>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * QueryStats.setSlowThreshold(200);
+ * for (QueryStats.Statement statement : QueryStats.top(QueryStats.BY_P99, 5)) {
+ *     System.out.println(statement.getPercentile(0.99) + " ms " + statement.getFingerprint());
+ * }
+ * }</pre>
+ *
+ * @see SQLRequest
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public final class QueryStats {
+
+    /** Class Logger */
+    private static final Logger LOGGER = LogManager.getLogger(QueryStats.class);
+
+    /** Logger of the slow statements */
+    private static final Logger SLOW_LOG = LogManager.getLogger("de.shurablack.sql.SlowQueryLog");
+
+    /** Default threshold (milliseconds) of the slow query log */
+    public static final long DEFAULT_SLOW_THRESHOLD = 1000;
+
+    /** Maximum number of fingerprints, further statements are counted together */
+    public static final int MAX_STATEMENTS = 1000;
+
+    /** Maximum number of cached fingerprints of SQL strings */
+    private static final int MAX_FINGERPRINTS = 10_000;
+
+    /** Orders by the total time, the statements which cost the most overall */
+    public static final Comparator<Statement> BY_TOTAL = Comparator.comparingLong(Statement::getTotalNanos).reversed();
+
+    /** Orders by the 99th percentile, the statements which are slow for the users */
+    public static final Comparator<Statement> BY_P99 = Comparator.comparingDouble((Statement s) -> s.getPercentile(0.99)).reversed();
+
+    /** Orders by the number of executions */
+    public static final Comparator<Statement> BY_COUNT = Comparator.comparingLong(Statement::getCount).reversed();
+
+    /** Collapses lists of placeholders like (?, ?, ?) */
+    private static final Pattern PARAM_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    /** Collapses multiple rows like (?+),(?+) */
+    private static final Pattern PARAM_ROWS = Pattern.compile("\\(\\?\\+\\)(?:\\s*,\\s*\\(\\?\\+\\))+");
+
+    /** Statistics per fingerprint */
+    private static final Map<String, Statement> STATEMENTS = new ConcurrentHashMap<>();
+
+    /** Cached fingerprints per SQL string */
+    private static final Map<String, String> FINGERPRINTS = new ConcurrentHashMap<>();
+
+    /** Statements, which exceed the maximum number of fingerprints */
+    private static final Statement OTHER = new Statement("<other statements>");
+
+    /** Threshold (nanoseconds) of the slow query log, 0 disables it */
+    private static volatile long slowThreshold = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_THRESHOLD);
+
+    /** Indicates whether the statements are recorded */
+    private static volatile boolean enabled = true;
+
+    private QueryStats() { }
+
+    /**
+     * Records an executed statement
+     * @param sql the executed SQL statement
+     * @param nanos the duration in nanoseconds
+     * @param rows the number of read or affected rows
+     * @param failed true if the execution failed
+     */
+    static void record(final String sql, final long nanos, final long rows, final boolean failed) {
+        if (!enabled) {
+            return;
+        }
+        final String fingerprint = fingerprintOf(sql);
+        Statement statement = STATEMENTS.get(fingerprint);
+        if (statement == null) {
+            statement = STATEMENTS.size() >= MAX_STATEMENTS ? OTHER : STATEMENTS.computeIfAbsent(fingerprint, Statement::new);
+        }
+        statement.record(nanos, rows, failed);
+
+        final long threshold = slowThreshold;
+        if (threshold > 0 && nanos >= threshold) {
+            SLOW_LOG.warn(String.format("Slow statement took %.1f ms (%d rows%s)\nSQL: <%s>",
+                    nanos / 1_000_000.0, rows, failed ? ", failed" : "", sql));
+        }
+    }
+
+    /**
+     * Sets the threshold of the slow query log
+     * @param millis the duration in milliseconds, 0 disables the log
+     */
+    public static void setSlowThreshold(final long millis) {
+        if (millis < 0) {
+            LOGGER.error("Slow query threshold must be 0 or greater", new IllegalArgumentException());
+            return;
+        }
+        slowThreshold = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * @return the threshold of the slow query log in milliseconds
+     */
+    public static long getSlowThreshold() {
+        return TimeUnit.NANOSECONDS.toMillis(slowThreshold);
+    }
+
+    /**
+     * Enables or disables the recording of statements. Enabled by default
+     * @param enabled false to disable it
+     */
+    public static void setEnabled(final boolean enabled) {
+        QueryStats.enabled = enabled;
+    }
+
+    /**
+     * @return every recorded statement
+     */
+    public static List<Statement> getStatements() {
+        final List<Statement> statements = new ArrayList<>(STATEMENTS.values());
+        if (OTHER.getCount() > 0) {
+            statements.add(OTHER);
+        }
+        return statements;
+    }
+
+    /**
+     * Returns the statements with the highest values
+     * @param order the order like {@link QueryStats#BY_TOTAL} or {@link QueryStats#BY_P99}
+     * @param limit the maximum number of statements
+     * @return the statements in order
+     */
+    public static List<Statement> top(final Comparator<Statement> order, final int limit) {
+        return getStatements().stream().sorted(order).limit(limit).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the statistics of a statement
+     * @param sql the SQL statement
+     * @return the statistics or null, if it wasnt executed
+     */
+    public static Statement get(final String sql) {
+        return STATEMENTS.get(fingerprintOf(sql));
+    }
+
+    /**
+     * Removes every recorded statement
+     */
+    public static void reset() {
+        STATEMENTS.clear();
+        OTHER.reset();
+    }
+
+    /**
+     * Logs the statements with the highest values as table
+     * @param order the order like {@link QueryStats#BY_TOTAL} or {@link QueryStats#BY_P99}
+     * @param limit the maximum number of statements
+     */
+    public static void logStatus(final Comparator<Statement> order, final int limit) {
+        final StringBuilder s = new StringBuilder(String.format("\n%8s %6s %10s %9s %9s %9s %9s  %s",
+                "Count", "Errors", "Rows", "Total ms", "Mean ms", "P99 ms", "Max ms", "Statement"));
+        for (Statement statement : top(order, limit)) {
+            final String fingerprint = statement.getFingerprint();
+            s.append(String.format("\n%8d %6d %10d %9.1f %9.2f %9.2f %9.2f  %s", statement.getCount(), statement.getErrors(),
+                    statement.getRows(), statement.getTotalTime(), statement.getMeanTime(), statement.getPercentile(0.99),
+                    statement.getMaxTime(), fingerprint.length() > 120 ? fingerprint.substring(0, 117) + "..." : fingerprint));
+        }
+        LOGGER.info(s.toString());
+    }
+
+    /**
+     * Creates the "sql stats" action of the command line, which logs the statements with the highest total
+     * time, p99 time or count and optionally resets the statistics afterwards
+     * @return the command action
+     */
+    public static CommandAction command() {
+        return new CommandAction(
+                "sql stats",
+                "[total|p99|count] [reset] Shows the statements with the highest total or p99 time",
+                input -> {
+                    final String[] split = input.split(" ");
+                    final String order = split.length > 2 ? split[2] : "total";
+                    if (order.equals("reset")) {
+                        reset();
+                        LOGGER.info("SQL statistics reset");
+                        return;
+                    }
+                    logStatus(order.equals("p99") ? BY_P99 : order.equals("count") ? BY_COUNT : BY_TOTAL, 10);
+                    if (split.length > 3 && split[3].equals("reset")) {
+                        reset();
+                    }
+                }
+        );
+    }
+
+    /**
+     * Returns the cached fingerprint of the SQL statement
+     * @param sql the SQL statement
+     * @return the fingerprint
+     */
+    private static String fingerprintOf(final String sql) {
+        final String cached = FINGERPRINTS.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        final String fingerprint = fingerprint(sql);
+        // statements with inlined values are unique strings, they would fill the cache
+        if (FINGERPRINTS.size() < MAX_FINGERPRINTS) {
+            FINGERPRINTS.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Normalizes a SQL statement. String and number literals are replaced by ?, whitespace is collapsed,
+     * lists of placeholders and multiple rows of them become (?+)
+     * @param sql the SQL statement
+     * @return the fingerprint
+     */
+    static String fingerprint(final String sql) {
+        final StringBuilder s = new StringBuilder(sql.length());
+        final int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            final char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                i = skipString(sql, i, c);
+                s.append('?');
+            } else if (c == '`') {
+                final int end = sql.indexOf('`', i + 1);
+                final int stop = end < 0 ? length : end + 1;
+                s.append(sql, i, stop);
+                i = stop;
+            } else if ((Character.isDigit(c) && (s.length() == 0 || !isIdentifier(s.charAt(s.length() - 1))))
+                    || (c == '-' && i + 1 < length && Character.isDigit(sql.charAt(i + 1)) && isOperand(s))) {
+                i++;
+                while (i < length && (isIdentifier(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                s.append('?');
+            } else if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                s.append(' ');
+            } else {
+                s.append(c);
+                i++;
+            }
+        }
+
+        String fingerprint = s.toString().trim();
+        if (fingerprint.endsWith(";")) {
+            fingerprint = fingerprint.substring(0, fingerprint.length() - 1).trim();
+        }
+        fingerprint = PARAM_LIST.matcher(fingerprint).replaceAll("(?+)");
+        return PARAM_ROWS.matcher(fingerprint).replaceAll("(?+)");
+    }
+
+    /**
+     * Finds the end of a quoted string, which may contain escaped or doubled quotes
+     * @param sql the SQL statement
+     * @param start the index of the opening quote
+     * @param quote the quote character
+     * @return the index after the closing quote
+     */
+    private static int skipString(final String sql, final int start, final char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            final char c = sql.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return sql.length();
+    }
+
+    /**
+     * Checks if a minus at the end of the fingerprint would be a sign, because it follows an operator
+     * @param s the fingerprint so far
+     * @return true if the next value is an operand
+     */
+    private static boolean isOperand(final StringBuilder s) {
+        int i = s.length() - 1;
+        while (i >= 0 && s.charAt(i) == ' ') {
+            i--;
+        }
+        return i < 0 || "=<>(,+-*/".indexOf(s.charAt(i)) >= 0;
+    }
+
+    private static boolean isIdentifier(final char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    /**
+     * Statistics of the statements with the same fingerprint
+     */
+    public static final class Statement {
+
+        /** Number of sub-buckets per power of two, which bounds the error of a percentile to 1/8 */
+        private static final int SUB_BUCKETS = 8;
+
+        /** Number of histogram buckets, which cover durations up to 2^43 microseconds */
+        private static final int BUCKETS = SUB_BUCKETS * 41;
+
+        private final String fingerprint;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        /** Number of executions per duration bucket (microseconds, log-scaled) */
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        Statement(final String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        void record(final long nanos, final long rows, final boolean failed) {
+            count.increment();
+            if (failed) {
+                errors.increment();
+            }
+            this.rows.add(rows);
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            histogram.incrementAndGet(bucket(nanos / 1000));
+        }
+
+        void reset() {
+            count.reset();
+            errors.reset();
+            rows.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram.set(i, 0);
+            }
+        }
+
+        /**
+         * @return the normalized SQL statement
+         */
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        /**
+         * @return the number of executions
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @return the number of failed executions
+         */
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        /**
+         * @return the number of read or affected rows of every execution
+         */
+        public long getRows() {
+            return rows.sum();
+        }
+
+        /**
+         * @return the duration of every execution in nanoseconds
+         */
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        /**
+         * @return the duration of every execution in milliseconds
+         */
+        public double getTotalTime() {
+            return totalNanos.sum() / 1_000_000.0;
+        }
+
+        /**
+         * @return the mean duration in milliseconds
+         */
+        public double getMeanTime() {
+            final long executions = count.sum();
+            return executions == 0 ? 0 : getTotalTime() / executions;
+        }
+
+        /**
+         * @return the longest duration in milliseconds
+         */
+        public double getMaxTime() {
+            return maxNanos.get() / 1_000_000.0;
+        }
+
+        /**
+         * Returns the duration, which the given share of executions didnt exceed
+         * @param percentile the share between 0 and 1, e.g. 0.99
+         * @return the duration in milliseconds
+         */
+        public double getPercentile(final double percentile) {
+            long total = 0;
+            final long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = histogram.get(i);
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            final long target = Math.max(1, (long) Math.ceil(percentile * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(upperBound(i) / 1000.0, getMaxTime());
+                }
+            }
+            return getMaxTime();
+        }
+
+        /**
+         * Returns the bucket of a duration. Below 8 every microsecond has its own bucket,
+         * above every power of two is split into 8 buckets
+         * @param micros the duration in microseconds
+         * @return the bucket index
+         */
+        static int bucket(final long micros) {
+            if (micros < SUB_BUCKETS) {
+                return (int) Math.max(0, micros);
+            }
+            final int octave = 63 - Long.numberOfLeadingZeros(micros);
+            final int index = (octave - 2) * SUB_BUCKETS + (int) (micros >> (octave - 3)) - SUB_BUCKETS;
+            return Math.min(index, BUCKETS - 1);
+        }
+
+        /**
+         * @param index the bucket index
+         * @return the highest duration in microseconds of the bucket
+         */
+        static long upperBound(final int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            final int octave = index / SUB_BUCKETS + 2;
+            final long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+            return ((mantissa + 1) << (octave - 3)) - 1;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Statement[count=%d, total=%.1f ms, p99=%.2f ms, sql=<%s>]",
+                    getCount(), getTotalTime(), getPercentile(0.99), fingerprint);
+        }
+    }
+}
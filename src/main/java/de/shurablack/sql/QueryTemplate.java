@@ -0,0 +1,187 @@
+package de.shurablack.sql;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>
+ * The QueryTemplate class is a rendered SQL statement with ? placeholders, which gets executed with new values.
+ * <br><br>
+ * It is created once with {@link FluentSqlBuilder#freeze()} and can be kept in a static field and shared between
+ * threads, because it is immutable. Every execution uses the same SQL string, so the prepared statement
+ * is taken from the statement cache of the pooled connection instead of being parsed again.
+ * <br><br>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * private static final QueryTemplate ADD_COINS = FluentSqlBuilder.create()
+ *  .UPDATE("wallet")
+ *  .SET(FluentSqlBuilder.CONDITION("coins", FluentSqlBuilder.EQUAL, "coins + ?"))
+ *  .WHERE(FluentSqlBuilder.CONDITION("user_id", FluentSqlBuilder.EQUAL, FluentSqlBuilder.PARAM))
+ *  .freeze();
+ *
+ * ADD_COINS.execute(50, userId);
+ * }</pre>
+ *
+ * @see FluentSqlBuilder
+ * @see SQLRequest
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public final class QueryTemplate {
+
+    /** Class Logger */
+    private static final Logger LOGGER = LogManager.getLogger(QueryTemplate.class);
+
+    /** The rendered SQL statement */
+    private final String sql;
+
+    /** Number of ? placeholders */
+    private final int parameterCount;
+
+    /**
+     * This constructs a new QueryTemplate object
+     * @param sql the rendered SQL statement with ? placeholders
+     */
+    QueryTemplate(final String sql) {
+        this.sql = sql;
+        this.parameterCount = countPlaceholders(sql);
+    }
+
+    /**
+     * Executes the query and returns the rows
+     * @param cls the class type of the rows
+     * @param params the values for the placeholders in order
+     * @param <T> the row class type
+     * @return a list with the rows
+     */
+    public <T> List<T> list(final Class<T> cls, final Object... params) {
+        if (!checkParams(params)) {
+            return Collections.emptyList();
+        }
+        return SQLRequest.runList(sql, cls, params);
+    }
+
+    /**
+     * Executes the query and returns the first row
+     * @param cls the class type of the row
+     * @param params the values for the placeholders in order
+     * @param <T> the row class type
+     * @return the {@link SQLRequest.Result} with possible value
+     */
+    public <T> SQLRequest.Result<T> single(final Class<T> cls, final Object... params) {
+        if (!checkParams(params)) {
+            return new SQLRequest.Result<>();
+        }
+        return SQLRequest.runSingle(sql, cls, params);
+    }
+
+    /**
+     * Executes a scalar query and returns the value
+     * @param cls the class type of the value
+     * @param params the values for the placeholders in order
+     * @param <T> the value class type
+     * @return the {@link SQLRequest.Result} with possible value
+     */
+    public <T> SQLRequest.Result<T> scalar(final Class<T> cls, final Object... params) {
+        if (!checkParams(params)) {
+            return new SQLRequest.Result<>();
+        }
+        return SQLRequest.runScalar(sql, cls, params);
+    }
+
+    /**
+     * Asynchronous variant of {@link QueryTemplate#list(Class, Object...)}
+     * @param cls the class type of the rows
+     * @param params the values for the placeholders in order
+     * @param <T> the row class type
+     * @return a future with the rows
+     */
+    public <T> CompletableFuture<List<T>> listAsync(final Class<T> cls, final Object... params) {
+        if (!checkParams(params)) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return SQLRequest.runListAsync(sql, cls, params);
+    }
+
+    /**
+     * Executes the statement, which doesnt need to return a value
+     * @param params the values for the placeholders in order
+     */
+    public void execute(final Object... params) {
+        if (checkParams(params)) {
+            SQLRequest.run(sql, params);
+        }
+    }
+
+    /**
+     * Opens a {@link SQLBatch}, which executes the statement for many rows
+     * @return the opened batch
+     */
+    public SQLBatch batch() {
+        return SQLRequest.batch(sql);
+    }
+
+    /**
+     * @return the rendered SQL statement
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return the number of ? placeholders
+     */
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+
+    /**
+     * Checks if the number of values matches the placeholders
+     * @param params the values
+     * @return true if they match
+     */
+    private boolean checkParams(final Object[] params) {
+        final int count = params == null ? 0 : params.length;
+        if (count != parameterCount) {
+            LOGGER.error(String.format("The template needs %d values, but got %d\nSQL: <%s>\nParams: %s",
+                    parameterCount, count, sql, Arrays.toString(params)), new IllegalArgumentException());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Counts the ? placeholders outside of quoted strings and identifiers
+     * @param sql the SQL statement
+     * @return the number of placeholders
+     */
+    private static int countPlaceholders(final String sql) {
+        int count = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            final char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
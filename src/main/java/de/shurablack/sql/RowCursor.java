@@ -0,0 +1,165 @@
+package de.shurablack.sql;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * The RowCursor class walks a forward-only result set row by row and converts every row into a bean.
+ * <br><br>
+ * The connection is borrowed lazily on the first row and returned as soon as the result set is exhausted
+ * or the cursor gets closed, so it is only held while the iteration is active.
+ * </p>
+ *
+ * @see SQLRequest#stream(String, Class, Object...)
+ * @see SQLRequest#forEach(String, Class, Consumer, Object...)
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+final class RowCursor<T> extends Spliterators.AbstractSpliterator<T> implements AutoCloseable {
+
+    /** Class Logger */
+    private static final Logger LOGGER = LogManager.getLogger(RowCursor.class);
+
+    /** The pool of the connection */
+    private final ConnectionPool pool;
+
+    /** The executed SQL with ? placeholders */
+    private final String sql;
+
+    /** The class type of the rows */
+    private final Class<T> cls;
+
+    /** The values for the placeholders in order */
+    private final Object[] params;
+
+    /** Number of rows which are fetched from the database at once */
+    private final int fetchSize;
+
+    /** The borrowed connection */
+    private Connection conn;
+
+    /** The executed statement */
+    private PreparedStatement statement;
+
+    /** The open result set */
+    private ResultSet rs;
+
+    /** Converts the rows, resolved once for the column layout */
+    private RowMapper<T> mapper;
+
+    /** Indicates whether the cursor is exhausted or closed */
+    private boolean done = false;
+
+    /** Nanoseconds spent in the database and the mapping, without the consumer */
+    private long elapsed = 0;
+
+    /** Number of read rows */
+    private long rows = 0;
+
+    /** Indicates whether the query or the reading of a row failed */
+    private boolean failed = false;
+
+    /**
+     * This constructs a new RowCursor object. The query gets executed on the first row
+     * @param pool the pool of the connection
+     * @param sql the SQL statement with ? placeholders
+     * @param cls the class type of the rows
+     * @param fetchSize the number of rows which are fetched from the database at once
+     * @param params the values for the placeholders in order
+     */
+    RowCursor(final ConnectionPool pool, final String sql, final Class<T> cls, final int fetchSize, final Object... params) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.pool = pool;
+        this.sql = sql;
+        this.cls = cls;
+        this.fetchSize = fetchSize;
+        this.params = params;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super T> action) {
+        if (done) {
+            return false;
+        }
+        final T row;
+        final long start = System.nanoTime();
+        try {
+            if (rs == null) {
+                open();
+            }
+            if (!rs.next()) {
+                elapsed += System.nanoTime() - start;
+                close();
+                return false;
+            }
+            row = mapper.map(rs);
+            rows++;
+            elapsed += System.nanoTime() - start;
+        } catch (SQLException e) {
+            elapsed += System.nanoTime() - start;
+            failed = true;
+            if (conn != null) {
+                pool.evictOnError(conn, e);
+            }
+            close();
+            throw new SQLRequestException(String.format("An error occurred while streaming SQL\nClass: %s\nSQL: <%s>\nParams: %s",
+                    cls.getSimpleName(), sql, Arrays.toString(params)), e);
+        }
+        action.accept(row);
+        return true;
+    }
+
+    /**
+     * Borrows a read connection and executes the query with a forward-only, read-only cursor
+     * @throws SQLException if the execution failed
+     */
+    private void open() throws SQLException {
+        conn = pool.getReadConnection();
+        statement = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        SQLRequest.fillStatement(statement, params);
+        rs = statement.executeQuery();
+        mapper = RowMappers.of(cls, rs.getMetaData());
+    }
+
+    /**
+     * Closes the result set and returns the connection to the pool.
+     * Calling it on a closed cursor has no effect
+     */
+    @Override
+    public void close() {
+        if (done) {
+            return;
+        }
+        done = true;
+        if (conn != null) {
+            QueryStats.record(sql, elapsed, rows, failed);
+        }
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (statement != null) {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            LOGGER.debug("Couldnt close streamed result set", e);
+        } finally {
+            if (conn != null) {
+                pool.returnConnection(conn);
+                conn = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package de.shurablack.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * <p>
+ * The RowMapper interface converts the current row of a {@link ResultSet} into an object.
+ * <br><br>
+ * Mappers for beans, constructor-style classes and single values are generated and cached by {@link RowMappers}.
+ * </p>
+ *
+ * @param <T> the class type of the mapped rows
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Converts the current row of the result set
+     * @param rs the result set, positioned on the row
+     * @return the mapped object
+     * @throws SQLException if a column couldnt be read or converted
+     */
+    T map(ResultSet rs) throws SQLException;
+}
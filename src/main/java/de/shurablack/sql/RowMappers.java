@@ -0,0 +1,475 @@
+package de.shurablack.sql;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.temporal.Temporal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * The RowMappers class generates and caches a {@link RowMapper} per target class and column layout of a result set.
+ * <br><br>
+ * The class gets inspected only once per column layout. Afterwards every row is mapped with prepared
+ * {@link MethodHandle}s and typed column readers, without any further reflection. Supported targets are:
+ * </p>
+ * <ul>
+ *     <li>Value types (String, numbers, dates, enums, ...) for results with a single column</li>
+ *     <li>Beans with a no-argument constructor and setters. Columns are matched case-insensitive with the
+ *     property names, underscores in column names are ignored (user_id -> userId)</li>
+ *     <li>Classes without a no-argument constructor, like records. The constructor parameters are matched by name
+ *     (if compiled with <b>-parameters</b>, records always keep them) or by position</li>
+ * </ul>
+ *
+ * @see SQLRequest
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public final class RowMappers {
+
+    /** Generated mappers per class and column layout */
+    private static final Map<Key, RowMapper<?>> CACHE = new ConcurrentHashMap<>();
+
+    /** Lookup to create the method handles */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private RowMappers() { }
+
+    /**
+     * Returns the cached mapper for the class and the column layout of the result set or generates a new one
+     * @param cls the class type of the mapped rows
+     * @param meta the meta data of the result set
+     * @param <T> the class type of the mapped rows
+     * @return the mapper
+     * @throws SQLException if the class cant be mapped from the columns
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RowMapper<T> of(final Class<T> cls, final ResultSetMetaData meta) throws SQLException {
+        final String[] columns = new String[meta.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            final String label = meta.getColumnLabel(i + 1);
+            columns[i] = label == null || label.isEmpty() ? meta.getColumnName(i + 1) : label;
+        }
+
+        final Key key = new Key(cls, columns);
+        RowMapper<?> mapper = CACHE.get(key);
+        if (mapper == null) {
+            mapper = create(cls, columns);
+            final RowMapper<?> previous = CACHE.putIfAbsent(key, mapper);
+            if (previous != null) {
+                mapper = previous;
+            }
+        }
+        return (RowMapper<T>) mapper;
+    }
+
+    /**
+     * Removes every cached mapper
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    /**
+     * Generates a new mapper for the class and columns
+     * @param cls the class type of the mapped rows
+     * @param columns the column labels of the result set
+     * @return the new mapper
+     * @throws SQLException if the class cant be mapped from the columns
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> RowMapper<T> create(final Class<T> cls, final String[] columns) throws SQLException {
+        if (columns.length == 1 && isValueType(cls)) {
+            final ColumnReader reader = reader(cls);
+            // int.class.cast(Integer) would fail, the row is returned boxed
+            final Class<?> boxed = MethodType.methodType(cls).wrap().returnType();
+            return rs -> (T) boxed.cast(reader.read(rs, 1));
+        }
+
+        if (isRecord(cls) || findNoArgConstructor(cls) == null) {
+            return constructorMapper(cls, columns);
+        }
+        return beanMapper(cls, columns);
+    }
+
+    /**
+     * Generates a mapper which creates the bean with its no-argument constructor and fills it via setters
+     * @param cls the bean class
+     * @param columns the column labels of the result set
+     * @return the new mapper
+     * @throws SQLException if the bean cant be inspected
+     */
+    private static <T> RowMapper<T> beanMapper(final Class<T> cls, final String[] columns) throws SQLException {
+        final MethodHandle constructor;
+        final MethodHandle[] setters = new MethodHandle[columns.length];
+        final ColumnReader[] readers = new ColumnReader[columns.length];
+        final boolean[] primitive = new boolean[columns.length];
+
+        try {
+            final Constructor<T> noArg = findNoArgConstructor(cls);
+            noArg.trySetAccessible();
+            constructor = LOOKUP.unreflectConstructor(noArg).asType(MethodType.methodType(Object.class));
+
+            final PropertyDescriptor[] properties = Introspector.getBeanInfo(cls).getPropertyDescriptors();
+            for (int i = 0; i < columns.length; i++) {
+                final PropertyDescriptor property = findProperty(properties, columns[i]);
+                if (property == null) {
+                    continue;
+                }
+                final Method setter = property.getWriteMethod();
+                setter.trySetAccessible();
+                setters[i] = LOOKUP.unreflect(setter)
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class));
+                readers[i] = reader(property.getPropertyType());
+                primitive[i] = property.getPropertyType().isPrimitive();
+            }
+        } catch (IntrospectionException | IllegalAccessException e) {
+            throw new SQLException(String.format("Cannot create a row mapper for %s", cls.getName()), e);
+        }
+
+        return rs -> {
+            final Object bean;
+            try {
+                bean = (Object) constructor.invokeExact();
+            } catch (Throwable t) {
+                throw new SQLException(String.format("Cannot create %s", cls.getName()), t);
+            }
+
+            for (int i = 0; i < setters.length; i++) {
+                if (setters[i] == null) {
+                    continue;
+                }
+                final Object value = readers[i].read(rs, i + 1);
+                if (value == null && primitive[i]) {
+                    continue;
+                }
+                try {
+                    setters[i].invokeExact(bean, value);
+                } catch (Throwable t) {
+                    throw new SQLException(String.format("Cannot set column <%s> on %s", columns[i], cls.getName()), t);
+                }
+            }
+            return cls.cast(bean);
+        };
+    }
+
+    /**
+     * Generates a mapper which passes the columns to a constructor of the class.
+     * Constructors with more parameters are preferred
+     * @param cls the class type of the mapped rows
+     * @param columns the column labels of the result set
+     * @return the new mapper
+     * @throws SQLException if no constructor matches the columns
+     */
+    private static <T> RowMapper<T> constructorMapper(final Class<T> cls, final String[] columns) throws SQLException {
+        final Constructor<?>[] constructors = cls.getDeclaredConstructors();
+        Arrays.sort(constructors, Comparator.comparingInt(Constructor::getParameterCount));
+
+        for (int c = constructors.length - 1; c >= 0; c--) {
+            final Constructor<?> constructor = constructors[c];
+            final int[] indices = matchParameters(constructor.getParameters(), columns);
+            if (indices == null) {
+                continue;
+            }
+
+            final Class<?>[] types = constructor.getParameterTypes();
+            final ColumnReader[] readers = new ColumnReader[types.length];
+            for (int i = 0; i < types.length; i++) {
+                readers[i] = reader(types[i]);
+            }
+
+            final MethodHandle handle;
+            try {
+                constructor.trySetAccessible();
+                handle = LOOKUP.unreflectConstructor(constructor)
+                        .asSpreader(Object[].class, types.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+            } catch (IllegalAccessException e) {
+                throw new SQLException(String.format("Cannot access the constructor of %s", cls.getName()), e);
+            }
+
+            return rs -> {
+                final Object[] args = new Object[types.length];
+                for (int i = 0; i < args.length; i++) {
+                    final Object value = readers[i].read(rs, indices[i] + 1);
+                    args[i] = value == null && types[i].isPrimitive() ? primitiveDefault(types[i]) : value;
+                }
+                try {
+                    return cls.cast((Object) handle.invokeExact(args));
+                } catch (Throwable t) {
+                    throw new SQLException(String.format("Cannot create %s", cls.getName()), t);
+                }
+            };
+        }
+        throw new SQLException(String.format("No constructor of %s matches the columns %s",
+                cls.getName(), Arrays.toString(columns)));
+    }
+
+    /**
+     * Matches the parameters of a constructor with the columns, by name if the names are present or by position
+     * @param parameters the constructor parameters
+     * @param columns the column labels of the result set
+     * @return the column index for every parameter or null if they dont match
+     */
+    private static int[] matchParameters(final Parameter[] parameters, final String[] columns) {
+        if (parameters.length == 0 || parameters.length > columns.length) {
+            return null;
+        }
+
+        final int[] indices = new int[parameters.length];
+        boolean named = true;
+        for (int i = 0; i < parameters.length && named; i++) {
+            indices[i] = -1;
+            if (!parameters[i].isNamePresent()) {
+                named = false;
+                break;
+            }
+            for (int col = 0; col < columns.length; col++) {
+                if (matches(parameters[i].getName(), columns[col])) {
+                    indices[i] = col;
+                    break;
+                }
+            }
+            named = indices[i] >= 0;
+        }
+        if (named) {
+            return indices;
+        }
+
+        if (parameters.length != columns.length) {
+            return null;
+        }
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    /**
+     * Finds the writable property for a column
+     * @param properties the properties of the bean
+     * @param column the column label
+     * @return the property or null
+     */
+    private static PropertyDescriptor findProperty(final PropertyDescriptor[] properties, final String column) {
+        for (PropertyDescriptor property : properties) {
+            if (property.getWriteMethod() != null && matches(property.getName(), column)) {
+                return property;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compares a property name with a column label, case-insensitive and without underscores
+     * @param name the property name
+     * @param column the column label
+     * @return true if they match
+     */
+    static boolean matches(final String name, final String column) {
+        return name.equalsIgnoreCase(column)
+                || name.equalsIgnoreCase(column.replace("_", "").toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Creates a typed column reader. Null values of primitive columns are returned as null
+     * @param type the target type
+     * @return the reader
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ColumnReader reader(final Class<?> type) {
+        if (type == String.class) {
+            return ResultSet::getString;
+        }
+        if (type == int.class || type == Integer.class) {
+            return (rs, i) -> {
+                final int value = rs.getInt(i);
+                return rs.wasNull() ? null : value;
+            };
+        }
+        if (type == long.class || type == Long.class) {
+            return (rs, i) -> {
+                final long value = rs.getLong(i);
+                return rs.wasNull() ? null : value;
+            };
+        }
+        if (type == double.class || type == Double.class) {
+            return (rs, i) -> {
+                final double value = rs.getDouble(i);
+                return rs.wasNull() ? null : value;
+            };
+        }
+        if (type == float.class || type == Float.class) {
+            return (rs, i) -> {
+                final float value = rs.getFloat(i);
+                return rs.wasNull() ? null : value;
+            };
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return (rs, i) -> {
+                final boolean value = rs.getBoolean(i);
+                return rs.wasNull() ? null : value;
+            };
+        }
+        if (type == short.class || type == Short.class) {
+            return (rs, i) -> {
+                final short value = rs.getShort(i);
+                return rs.wasNull() ? null : value;
+            };
+        }
+        if (type == byte.class || type == Byte.class) {
+            return (rs, i) -> {
+                final byte value = rs.getByte(i);
+                return rs.wasNull() ? null : value;
+            };
+        }
+        if (type == BigDecimal.class) {
+            return ResultSet::getBigDecimal;
+        }
+        if (type == byte[].class) {
+            return ResultSet::getBytes;
+        }
+        if (type == Timestamp.class || type == java.util.Date.class) {
+            return ResultSet::getTimestamp;
+        }
+        if (type == java.sql.Date.class) {
+            return ResultSet::getDate;
+        }
+        if (type == Time.class) {
+            return ResultSet::getTime;
+        }
+        if (type.isEnum()) {
+            return (rs, i) -> {
+                final String value = rs.getString(i);
+                return value == null ? null : Enum.valueOf((Class<? extends Enum>) type, value);
+            };
+        }
+        if (type == Object.class) {
+            return ResultSet::getObject;
+        }
+        return (rs, i) -> {
+            final Object value = rs.getObject(i);
+            return value == null || type.isInstance(value) ? value : rs.getObject(i, type);
+        };
+    }
+
+    /**
+     * Checks if the class is a single value and not a bean
+     * @param cls the class type
+     * @return true for strings, numbers, dates, enums and other value types
+     */
+    private static boolean isValueType(final Class<?> cls) {
+        return cls.isPrimitive() || cls.isEnum() || cls == String.class || cls == Boolean.class
+                || cls == Character.class || cls == byte[].class || cls == UUID.class
+                || Number.class.isAssignableFrom(cls) || java.util.Date.class.isAssignableFrom(cls)
+                || Temporal.class.isAssignableFrom(cls);
+    }
+
+    /**
+     * Checks if the class is a record, without the Java 16 API
+     * @param cls the class type
+     * @return true if the class extends java.lang.Record
+     */
+    private static boolean isRecord(final Class<?> cls) {
+        return cls.getSuperclass() != null && "java.lang.Record".equals(cls.getSuperclass().getName());
+    }
+
+    /**
+     * Finds the no-argument constructor of the class
+     * @param cls the class type
+     * @return the constructor or null
+     */
+    private static <T> Constructor<T> findNoArgConstructor(final Class<T> cls) {
+        try {
+            return cls.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the default value of a primitive type, which is used for null values
+     * @param type the primitive type
+     * @return the default value
+     */
+    private static Object primitiveDefault(final Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        return 0;
+    }
+
+    /**
+     * Reads a single column as the target type
+     */
+    @FunctionalInterface
+    private interface ColumnReader {
+        Object read(ResultSet rs, int index) throws SQLException;
+    }
+
+    /**
+     * Cache key of a mapper: the target class and the column labels of the result set
+     */
+    private static final class Key {
+
+        private final Class<?> cls;
+        private final String[] columns;
+        private final int hash;
+
+        Key(final Class<?> cls, final String[] columns) {
+            this.cls = cls;
+            this.columns = columns;
+            this.hash = 31 * cls.hashCode() + Arrays.hashCode(columns);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return cls == other.cls && Arrays.equals(columns, other.columns);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package de.shurablack.sql;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * The SQLBatch class executes one parameterized SQL statement for many rows with JDBC batching.
+ * <br><br>
+ * A batch is opened on a single pooled connection via {@link SQLRequest#batch(String)}. Rows are collected with
+ * {@link SQLBatch#add(Object...)} and sent to the database with {@code executeBatch} every time the chunk size
+ * is reached. Closing the batch sends the remaining rows and returns the connection to the pool.
+ * <br><br>
+ * A transactional batch commits all rows at once on {@link SQLBatch#close()} and rolls back every row,
+ * if one chunk fails.
+ * <br><br>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * try (SQLBatch batch = SQLRequest.batch("INSERT INTO xp (user_id, xp) VALUES (?, ?)").setTransactional(true)) {
+ *     for (Member member : members) {
+ *         batch.add(member.getId(), 10);
+ *     }
+ * }
+ * }</pre>
+ * <p>
+ * For MySQL add <b>rewriteBatchedStatements=true</b> to the "db_url", so the driver sends a chunk as
+ * multi-row statement instead of one statement per row.
+ * </p>
+ *
+ * @see SQLRequest
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public class SQLBatch implements AutoCloseable {
+
+    /** Class Logger */
+    private static final Logger LOGGER = LogManager.getLogger(SQLBatch.class);
+
+    /** Default number of rows which are sent to the database at once */
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    /** The pool of the borrowed connection */
+    private final ConnectionPool pool;
+
+    /** The executed SQL with ? placeholders */
+    private final String sql;
+
+    /** The borrowed connection */
+    private Connection conn;
+
+    /** The statement which collects the rows */
+    private PreparedStatement statement;
+
+    /** Number of rows which are sent to the database at once */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /** Indicates whether all rows are committed in one transaction */
+    private boolean transactional = false;
+
+    /** Number of rows which are not sent to the database yet */
+    private int pending = 0;
+
+    /** Number of rows which got sent to the database */
+    private int executed = 0;
+
+    /** Indicates whether a chunk failed */
+    private boolean failed = false;
+
+    /**
+     * This constructs a new SQLBatch object and borrows a connection from the pool
+     * @param pool the pool of the connection
+     * @param sql the SQL statement with ? placeholders
+     */
+    SQLBatch(final ConnectionPool pool, final String sql) {
+        this.pool = pool;
+        this.sql = sql;
+        this.conn = pool.getConnection();
+    }
+
+    /**
+     * Sets the number of rows which are sent to the database at once
+     * @param chunkSize the chunk size
+     * @return the batch for chaining
+     */
+    public SQLBatch setChunkSize(final int chunkSize) {
+        if (chunkSize < 1) {
+            LOGGER.error("Batch chunk size must be greater than 0", new IllegalArgumentException());
+            return this;
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Commits all rows of the batch in one transaction. Must be set before the first row is added
+     * @param transactional true to use one transaction
+     * @return the batch for chaining
+     */
+    public SQLBatch setTransactional(final boolean transactional) {
+        if (statement != null) {
+            LOGGER.error("The transaction mode of a batch cant be changed after rows got added");
+            return this;
+        }
+        this.transactional = transactional;
+        return this;
+    }
+
+    /**
+     * Adds a row to the batch. Sends the collected rows to the database, if the chunk size is reached
+     * @param params the values for the placeholders in order
+     * @return the batch for chaining
+     */
+    public SQLBatch add(final Object... params) {
+        if (failed || conn == null) {
+            return this;
+        }
+        try {
+            if (statement == null) {
+                if (transactional) {
+                    conn.setAutoCommit(false);
+                }
+                statement = pool.prepareStatement(conn, sql);
+            }
+            SQLRequest.fillStatement(statement, params);
+            statement.addBatch();
+            if (++pending >= chunkSize) {
+                flush();
+            }
+        } catch (SQLException e) {
+            fail(e, params);
+        }
+        return this;
+    }
+
+    /**
+     * Sends the collected rows to the database
+     * @return the batch for chaining
+     */
+    public SQLBatch flush() {
+        if (failed || statement == null || pending == 0) {
+            return this;
+        }
+        final long start = System.nanoTime();
+        try {
+            statement.executeBatch();
+            QueryStats.record(sql, System.nanoTime() - start, pending, false);
+            executed += pending;
+            pending = 0;
+        } catch (SQLException e) {
+            QueryStats.record(sql, System.nanoTime() - start, 0, true);
+            fail(e, null);
+        }
+        return this;
+    }
+
+    /**
+     * Sends the remaining rows, commits the transaction and returns the connection to the pool.
+     * Calling it on a closed batch has no effect
+     */
+    @Override
+    public void close() {
+        if (conn == null) {
+            return;
+        }
+        flush();
+        try {
+            if (transactional && statement != null) {
+                if (failed) {
+                    conn.rollback();
+                } else {
+                    conn.commit();
+                }
+            }
+        } catch (SQLException e) {
+            fail(e, null);
+            // restoring auto-commit would commit the open transaction
+            if (transactional && statement != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollback) {
+                    LOGGER.error("Couldnt roll back the batch", rollback);
+                }
+            }
+        } finally {
+            try {
+                if (transactional && statement != null) {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                LOGGER.error("Couldnt restore auto-commit of the connection", e);
+            }
+            if (statement != null) {
+                try {
+                    statement.clearBatch();
+                } catch (SQLException e) {
+                    LOGGER.debug("Couldnt clear batch", e);
+                }
+                pool.releaseStatement(conn, sql, statement);
+                statement = null;
+                SQLRequest.invalidateCache(sql);
+            }
+            pool.returnConnection(conn);
+            conn = null;
+        }
+    }
+
+    /**
+     * @return the number of rows which got sent to the database
+     */
+    public int getExecutedRows() {
+        return executed;
+    }
+
+    /**
+     * @return true if a chunk failed. A failed transactional batch gets rolled back completely
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Marks the batch as failed and logs the error
+     * @param e the cause
+     * @param params the values of the failed row or null
+     */
+    private void fail(final SQLException e, final Object[] params) {
+        failed = true;
+        pool.evictOnError(conn, e);
+        LOGGER.error(String.format("An error occurred while executing SQL batch\nSQL: <%s>\nParams: %s",
+                sql, params == null ? "-" : Arrays.toString(params)), e);
+    }
+}
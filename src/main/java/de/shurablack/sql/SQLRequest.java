@@ -1,22 +1,45 @@
 package de.shurablack.sql;
 
 import org.apache.commons.dbutils.QueryRunner;
-import org.apache.commons.dbutils.handlers.BeanListHandler;
+import org.apache.commons.dbutils.ResultSetHandler;
 import org.apache.commons.dbutils.handlers.ScalarHandler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Savepoint;
 import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * <p>
  * The SQLRequest class is a utility class for executing SQL queries and commands on a database.
  * <br><br>
  * It relies on the Apache Commons DbUtils library for handling database connections and executing SQL statements.
+ * Rows are converted with generated {@link RowMapper}s, which are cached per class and column layout by
+ * {@link RowMappers}, so the class only gets inspected once instead of on every row.
  * <br><br>
  * The class is instantiated with a ConnectionPool object, which it uses
  * to obtain database connections for executing SQL statements. The user need to request a connection and
@@ -41,6 +64,55 @@ import java.util.List;
  *     // Close the database connection
  *     .close();
  * }</pre>
+ * <p>
+ * Every method is also available with bind parameters. The SQL then contains ? placeholders and gets executed
+ * as {@link PreparedStatement}, which is cached per pooled connection by the {@link ConnectionPool}.
+ * This avoids re-parsing the same statement shape and SQL injection through the values.
+ * </p>
+ * <pre>{@code
+ * List<User> users = SQLRequest.runList("SELECT * FROM users WHERE guild_id = ? AND level > ?", User.class, guildId, 10);
+ * }</pre>
+ * <p>
+ * The <b>Async</b> variants run on a separate executor with one thread per pooled connection and
+ * return a {@link CompletableFuture}. Requests queue on the pool capacity instead of blocking the calling thread.
+ * </p>
+ * <pre>{@code
+ * event.deferReply().queue();
+ * SQLRequest.runSingleAsync("SELECT * FROM users WHERE id = ?", User.class, userId)
+ *     .thenAccept(user -> event.getHook().sendMessage(...).queue());
+ * }</pre>
+ * <p>
+ * Large results can be streamed with {@link SQLRequest#forEach(String, Class, Consumer, Object...)} or
+ * {@link SQLRequest#stream(String, Class, Object...)}. The rows are read over a forward-only cursor in chunks of
+ * the pool's fetch size, so the memory usage doesnt grow with the size of the result.
+ * <br><br>
+ * Related statements can share one connection and transaction with {@link SQLRequest#transaction(Transaction)}.
+ * The transaction gets committed if the callback finishes, rolled back if it throws, and the connection
+ * is always returned to the pool.
+ * </p>
+ * <pre>{@code
+ * SQLRequest.transaction(request -> {
+ *     request.execute("UPDATE wallet SET coins = coins - ? WHERE user_id = ?", price, userId);
+ *     request.execute("INSERT INTO inventory (user_id, item_id) VALUES (?, ?)", userId, itemId);
+ * });
+ * }</pre>
+ * <p>
+ * If the ConnectionPool has read replicas, the static read methods ({@link SQLRequest#runList(String, Class, Object...)},
+ * runSingle, runScalar, forEach and stream) use a replica, while writes and transactions use the primary.
+ * The <b>Cached</b> variants read from the primary, so the cache never stores data of a lagging replica.
+ * <br><br>
+ * Frequently repeated reads can be answered from memory with the <b>Cached</b> variants, after a
+ * {@link QueryCache} got set with {@link SQLRequest#setCache(QueryCache)}. Writes through this class
+ * invalidate the cached results of the written tables.
+ * <br><br>
+ * Every execution is timed and recorded per statement shape by {@link QueryStats}. Statements above its
+ * threshold are written to the slow query log.
+ * <br><br>
+ * While the database is unreachable, the {@link CircuitBreaker} of the pool fails requests immediately.
+ * The <b>Cached</b> variants then answer with the last cached result, even if it expired, and writes of
+ * {@link SQLRequest#run(String, Object...)} are kept in the {@link WriteSpool}, if one got set with
+ * {@link SQLRequest#setSpool(WriteSpool)}, and replayed in order once the database is reachable again.
+ * </p>
  *
  * @see FluentSqlBuilder
  * @version sql-1.0.0
@@ -55,17 +127,106 @@ public class SQLRequest {
     /** Database connection pool */
     private static ConnectionPool POOL;
 
+    /** Runner for the unparameterized queries */
+    private static final QueryRunner RUNNER = new QueryRunner();
+
+    /** Executor for asynchronous requests, sized to the connection pool */
+    private static volatile ThreadPoolExecutor EXECUTOR;
+
+    /** Optional cache for the results of read queries */
+    private static volatile QueryCache CACHE;
+
+    /** Optional spool for writes, while the database is unreachable */
+    private static volatile WriteSpool SPOOL;
+
     /** Requested Connection */
     private Connection conn;
 
+    /** Indicates whether the request runs inside {@link SQLRequest#transaction(Transaction)} */
+    private boolean transactional = false;
+
+    /** Statements which were written in the transaction, to invalidate the cache after the commit */
+    private List<String> written;
+
     private SQLRequest() { }
 
     /**
-     * Initialize the ConnectionPool for future requests
+     * Initialize the ConnectionPool for future requests and the executor for asynchronous requests
      * @param pool the Connection Pool (JDAUtil)
      */
-    public static void init(final ConnectionPool pool) {
+    public static synchronized void init(final ConnectionPool pool) {
         POOL = pool;
+        final int size = pool.getMaxPoolSize();
+        if (EXECUTOR == null) {
+            final AtomicInteger count = new AtomicInteger();
+            EXECUTOR = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+                final Thread thread = new Thread(task, "SQLRequest_Worker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            EXECUTOR.allowCoreThreadTimeOut(true);
+        } else if (size > EXECUTOR.getMaximumPoolSize()) {
+            EXECUTOR.setMaximumPoolSize(size);
+            EXECUTOR.setCorePoolSize(size);
+        } else {
+            EXECUTOR.setCorePoolSize(size);
+            EXECUTOR.setMaximumPoolSize(size);
+        }
+    }
+
+    /**
+     * @return the executor of the asynchronous requests
+     */
+    public static ThreadPoolExecutor getExecutor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * Sets the cache for the <b>Cached</b> read variants. Without a cache they query the database every time
+     * @param cache the cache or null to disable it
+     */
+    public static void setCache(final QueryCache cache) {
+        CACHE = cache;
+    }
+
+    /**
+     * @return the cache of the read queries or null, if none is set
+     */
+    public static QueryCache getCache() {
+        return CACHE;
+    }
+
+    /**
+     * Sets the spool, which keeps the writes of {@link SQLRequest#run(String, Object...)} while the database
+     * is unreachable. Without a spool these writes fail with a {@link ConnectionPoolException}
+     * @param spool the spool or null to disable it
+     */
+    public static void setSpool(final WriteSpool spool) {
+        SPOOL = spool;
+    }
+
+    /**
+     * @return the spool of the writes or null, if none is set
+     */
+    public static WriteSpool getSpool() {
+        return SPOOL;
+    }
+
+    /**
+     * Syncs and closes the spool, if one is set. Spooled writes are replayed after the next start
+     */
+    public static void closeSpool() {
+        final WriteSpool spool = SPOOL;
+        if (spool != null) {
+            spool.close();
+        }
+    }
+
+    /**
+     * @return the initialized connection pool or null
+     */
+    static ConnectionPool getPool() {
+        return POOL;
     }
 
     /**
@@ -91,14 +252,38 @@ public class SQLRequest {
         return this;
     }
 
+    /**
+     * Obtains a database connection from a read replica of the ConnectionPool, or from the primary if there is none.
+     * <br><br>
+     * Use it instead of {@link SQLRequest#connect()} for requests, which only read
+     * @return the SQLRequest for chaining
+     */
+    public SQLRequest connectRead() {
+        if (this.conn != null) {
+            LOGGER.error("SQLRequest tried to get another connection. Do not call SQLRequest.connect() twice");
+            return this;
+        }
+        this.conn = POOL.getReadConnection();
+        return this;
+    }
+
     /**
      * Closes the database connection.
      * <br><br>
      * This method should be called after you are finished using the SQLRequest object
-     * to ensure that the database connection is properly cleaned up and returned to the ConnectionPool
+     * to ensure that the database connection is properly cleaned up and returned to the ConnectionPool.
+     * Calling it on a closed SQLRequest has no effect
      */
     public void close() {
+        if (this.conn == null) {
+            return;
+        }
+        if (this.transactional) {
+            LOGGER.error("The connection of a transaction is returned at the end of the transaction. Do not call SQLRequest.close() inside");
+            return;
+        }
         POOL.returnConnection(this.conn);
+        this.conn = null;
     }
 
     /**
@@ -113,10 +298,12 @@ public class SQLRequest {
      */
     public static <T> List<T> runList(final String sql, final Class<T> cls) {
         SQLRequest request = new SQLRequest();
-        request.connect();
         List<T> retval = new ArrayList<>();
-        request.result(sql, cls, retval);
-        request.close();
+        try {
+            request.connectRead().result(sql, cls, retval);
+        } finally {
+            request.close();
+        }
         return retval;
     }
 
@@ -132,11 +319,13 @@ public class SQLRequest {
      */
     public static <T> Result<T> runSingle(final String sql, final Class<T> cls) {
         SQLRequest request = new SQLRequest();
-        request.connect();
         List<T> retval = new ArrayList<>();
         Result<T> single = new Result<>();
-        request.result(sql, cls, retval);
-        request.close();
+        try {
+            request.connectRead().result(sql, cls, retval);
+        } finally {
+            request.close();
+        }
         if (!retval.isEmpty()) {
             single.value = retval.get(0);
         }
@@ -157,10 +346,12 @@ public class SQLRequest {
      */
     public static <T> Result<T> runScalar(final String sql, final Class<T> cls) {
         SQLRequest request = new SQLRequest();
-        request.connect();
         Result<T> retval = new Result<>();
-        request.result(sql, cls, retval);
-        request.close();
+        try {
+            request.connectRead().result(sql, cls, retval);
+        } finally {
+            request.close();
+        }
         return retval;
     }
 
@@ -168,14 +359,542 @@ public class SQLRequest {
      * A static convenience method for executing a SQL query that doesnt need to return a value.
      * <br><br>
      * This method creates a new SQLRequest object, obtains a database connection, executes the query
-     * and closes the database connection
+     * and closes the database connection. If the database is unreachable, the query is kept in the
+     * {@link WriteSpool}, if one is set
      * @param sql the SQL statement which will be executed
      */
     public static void run(final String sql) {
+        if (spool(sql)) {
+            return;
+        }
+        SQLRequest request = new SQLRequest();
+        try {
+            request.connect();
+        } catch (ConnectionPoolException e) {
+            spoolOrThrow(e, sql);
+            return;
+        }
+        try {
+            request.execute(sql);
+        } finally {
+            request.close();
+        }
+    }
+
+    /**
+     * A static convenience method for executing a parameterized SQL query and storing the results in a List.
+     * <br><br>
+     * The statement gets prepared once per connection and reused for the following calls
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param cls the class type of the returning object
+     * @param params the values for the placeholders in order
+     * @param <T> the return class type
+     * @return a {@link ArrayList} with the results
+     */
+    public static <T> List<T> runList(final String sql, final Class<T> cls, final Object... params) {
+        SQLRequest request = new SQLRequest();
+        List<T> retval = new ArrayList<>();
+        try {
+            request.connectRead().result(sql, cls, retval, params);
+        } finally {
+            request.close();
+        }
+        return retval;
+    }
+
+    /**
+     * A static convenience method for executing a parameterized SQL query and storing the first result in a {@link Result}.
+     * <br><br>
+     * The statement gets prepared once per connection and reused for the following calls
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param cls the class type of the returning object
+     * @param params the values for the placeholders in order
+     * @param <T> the return class type
+     * @return the {@link Result} with possible value
+     */
+    public static <T> Result<T> runSingle(final String sql, final Class<T> cls, final Object... params) {
+        final List<T> retval = runList(sql, cls, params);
+        final Result<T> single = new Result<>();
+        if (!retval.isEmpty()) {
+            single.value = retval.get(0);
+        }
+        return single;
+    }
+
+    /**
+     * A static convenience method for executing a parameterized scalar SQL query and storing the result in a {@link Result}.
+     * <br><br>
+     * The statement gets prepared once per connection and reused for the following calls
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param cls the class type of the returning object
+     * @param params the values for the placeholders in order
+     * @param <T> the return class type
+     * @return the {@link Result} with possible value
+     */
+    public static <T> Result<T> runScalar(final String sql, final Class<T> cls, final Object... params) {
+        SQLRequest request = new SQLRequest();
+        Result<T> retval = new Result<>();
+        try {
+            request.connectRead().result(sql, cls, retval, params);
+        } finally {
+            request.close();
+        }
+        return retval;
+    }
+
+    /**
+     * A static convenience method for executing a parameterized SQL query that doesnt need to return a value.
+     * <br><br>
+     * The statement gets prepared once per connection and reused for the following calls.
+     * If the database is unreachable, the statement is kept in the {@link WriteSpool}, if one is set
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param params the values for the placeholders in order
+     */
+    public static void run(final String sql, final Object... params) {
+        if (spool(sql, params)) {
+            return;
+        }
         SQLRequest request = new SQLRequest();
-        request.connect();
-        request.execute(sql);
-        request.close();
+        try {
+            request.connect();
+        } catch (ConnectionPoolException e) {
+            spoolOrThrow(e, sql, params);
+            return;
+        }
+        try {
+            request.update(sql, params);
+        } catch (SQLException e) {
+            if (!isConnectionError(e) || !spooled(sql, params)) {
+                LOGGER.error(String.format("An error occurred while executing SQL\nSQL: <%s>\nParams: %s",
+                        sql, Arrays.toString(params)),e);
+            }
+        } finally {
+            invalidateCache(sql);
+            request.close();
+        }
+    }
+
+    /**
+     * A static convenience method for executing a parameterized update, which needs the number of affected rows
+     * (e.g. a conditional update, which claims a row).
+     * <br><br>
+     * The update is executed immediately and never kept in the {@link WriteSpool}, since its result decides
+     * the next step of the caller
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param params the values for the placeholders in order
+     * @return the number of affected rows or -1, if the execution failed
+     */
+    public static int runUpdate(final String sql, final Object... params) {
+        try {
+            return executeChecked(sql, params);
+        } catch (ConnectionPoolException | SQLException e) {
+            LOGGER.error(String.format("An error occurred while executing SQL\nSQL: <%s>\nParams: %s",
+                    sql, Arrays.toString(params)),e);
+            return -1;
+        }
+    }
+
+    /**
+     * Appends the write to the spool, if earlier writes wait there or the circuit of the pool is open,
+     * so the spooled writes keep their order
+     * @param sql the SQL statement with ? placeholders
+     * @param params the values for the placeholders in order
+     * @return true if the write got spooled
+     */
+    private static boolean spool(final String sql, final Object... params) {
+        final WriteSpool spool = SPOOL;
+        if (spool == null || !(spool.hasPending() || POOL != null && POOL.getCircuitBreaker().isOpen())) {
+            return false;
+        }
+        return spooled(sql, params);
+    }
+
+    /**
+     * Appends the write, which couldnt get a connection, to the spool or throws the exception without one
+     * @param e the exception of the pool
+     * @param sql the SQL statement with ? placeholders
+     * @param params the values for the placeholders in order
+     */
+    private static void spoolOrThrow(final ConnectionPoolException e, final String sql, final Object... params) {
+        if (!spooled(sql, params)) {
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the write to the spool and invalidates the cached results of its tables
+     * @param sql the SQL statement with ? placeholders
+     * @param params the values for the placeholders in order
+     * @return true if the write got spooled
+     */
+    private static boolean spooled(final String sql, final Object... params) {
+        final WriteSpool spool = SPOOL;
+        if (spool == null || !spool.append(sql, params)) {
+            return false;
+        }
+        invalidateCache(sql);
+        return true;
+    }
+
+    /**
+     * Checks if the exception is caused by a broken or unavailable connection, instead of the statement
+     * @param e the exception of the execution
+     * @return true if the statement can succeed on another connection later
+     */
+    static boolean isConnectionError(final SQLException e) {
+        if (e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException
+                || e instanceof SQLRecoverableException) {
+            return true;
+        }
+        final String state = e.getSQLState();
+        return state != null && state.startsWith("08");
+    }
+
+    /**
+     * Cached variant of {@link SQLRequest#runList(String, Class, Object...)}.
+     * <br><br>
+     * The result is read from the {@link QueryCache}, if present and not expired. The returned list is
+     * unmodifiable and shared with other callers
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param cls the class type of the returning object
+     * @param ttl the time to live of the result or null for the default of the cache
+     * @param params the values for the placeholders in order
+     * @param <T> the return class type
+     * @return an unmodifiable list with the results
+     */
+    public static <T> List<T> runListCached(final String sql, final Class<T> cls, final Duration ttl, final Object... params) {
+        final List<T> retval = cached('L', sql, cls, ttl, params,
+                request -> Collections.unmodifiableList(request.query(sql, new MappedListHandler<>(cls), params)));
+        return retval == null ? Collections.emptyList() : retval;
+    }
+
+    /**
+     * Cached variant of {@link SQLRequest#runSingle(String, Class, Object...)}.
+     * <br><br>
+     * The result is read from the {@link QueryCache}, if present and not expired. The returned value is
+     * shared with other callers
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param cls the class type of the returning object
+     * @param ttl the time to live of the result or null for the default of the cache
+     * @param params the values for the placeholders in order
+     * @param <T> the return class type
+     * @return the {@link Result} with possible value
+     */
+    public static <T> Result<T> runSingleCached(final String sql, final Class<T> cls, final Duration ttl, final Object... params) {
+        final Result<T> cached = cached('S', sql, cls, ttl, params, request -> {
+            final List<T> rows = request.query(sql, new MappedListHandler<>(cls), params);
+            final Result<T> single = new Result<>();
+            if (!rows.isEmpty()) {
+                single.value = rows.get(0);
+            }
+            return single;
+        });
+        final Result<T> retval = new Result<>();
+        if (cached != null) {
+            retval.value = cached.value;
+        }
+        return retval;
+    }
+
+    /**
+     * Cached variant of {@link SQLRequest#runScalar(String, Class, Object...)}.
+     * <br><br>
+     * The result is read from the {@link QueryCache}, if present and not expired
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param cls the class type of the returning object
+     * @param ttl the time to live of the result or null for the default of the cache
+     * @param params the values for the placeholders in order
+     * @param <T> the return class type
+     * @return the {@link Result} with possible value
+     */
+    public static <T> Result<T> runScalarCached(final String sql, final Class<T> cls, final Duration ttl, final Object... params) {
+        final Result<T> cached = cached('C', sql, cls, ttl, params, request -> {
+            final Result<T> scalar = new Result<>();
+            scalar.value = request.query(sql, new ScalarHandler<T>(), params);
+            return scalar;
+        });
+        final Result<T> retval = new Result<>();
+        if (cached != null) {
+            retval.value = cached.value;
+        }
+        return retval;
+    }
+
+    /**
+     * Asynchronous variant of {@link SQLRequest#runList(String, Class, Object...)}
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param cls the class type of the returning object
+     * @param params the values for the placeholders in order
+     * @param <T> the return class type
+     * @return a future with the results, which completes exceptionally with a {@link ConnectionPoolException}
+     * if no connection got available, or with a {@link SQLRequestException} if the query failed
+     */
+    public static <T> CompletableFuture<List<T>> runListAsync(final String sql, final Class<T> cls, final Object... params) {
+        return async(true, sql, params, request -> request.query(sql, new MappedListHandler<>(cls), params));
+    }
+
+    /**
+     * Asynchronous variant of {@link SQLRequest#runSingle(String, Class, Object...)}
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param cls the class type of the returning object
+     * @param params the values for the placeholders in order
+     * @param <T> the return class type
+     * @return a future with the {@link Result}, which completes exceptionally with a {@link ConnectionPoolException}
+     * if no connection got available, or with a {@link SQLRequestException} if the query failed
+     */
+    public static <T> CompletableFuture<Result<T>> runSingleAsync(final String sql, final Class<T> cls, final Object... params) {
+        return async(true, sql, params, request -> {
+            final List<T> rows = request.query(sql, new MappedListHandler<>(cls), params);
+            final Result<T> single = new Result<>();
+            if (!rows.isEmpty()) {
+                single.value = rows.get(0);
+            }
+            return single;
+        });
+    }
+
+    /**
+     * Asynchronous variant of {@link SQLRequest#runScalar(String, Class, Object...)}
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param cls the class type of the returning object
+     * @param params the values for the placeholders in order
+     * @param <T> the return class type
+     * @return a future with the {@link Result}, which completes exceptionally with a {@link ConnectionPoolException}
+     * if no connection got available, or with a {@link SQLRequestException} if the query failed
+     */
+    public static <T> CompletableFuture<Result<T>> runScalarAsync(final String sql, final Class<T> cls, final Object... params) {
+        return async(true, sql, params, request -> {
+            final Result<T> scalar = new Result<>();
+            scalar.value = request.query(sql, new ScalarHandler<T>(), params);
+            return scalar;
+        });
+    }
+
+    /**
+     * Asynchronous variant of {@link SQLRequest#run(String, Object...)}.
+     * <br><br>
+     * Unlike {@link SQLRequest#run(String, Object...)} a failed statement isnt kept in the {@link WriteSpool},
+     * since the future reports the failure to the caller
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param params the values for the placeholders in order
+     * @return a future which completes after the execution, or exceptionally with a {@link ConnectionPoolException}
+     * if no connection got available, or with a {@link SQLRequestException} if the statement failed
+     */
+    public static CompletableFuture<Void> runAsync(final String sql, final Object... params) {
+        return async(false, sql, params, request -> {
+            request.update(sql, params);
+            return null;
+        });
+    }
+
+    /**
+     * Executes a request on the executor of the asynchronous requests and passes every error to the future
+     * @param read true to use a read replica, false for writes on the primary
+     * @param sql the SQL statement with ? placeholders
+     * @param params the values for the placeholders in order
+     * @param loader executes the statement on a connected request
+     * @param <R> the type of the result
+     * @return the future of the result
+     */
+    private static <R> CompletableFuture<R> async(final boolean read, final String sql, final Object[] params,
+                                                  final Loader<R> loader) {
+        final ThreadPoolExecutor executor = EXECUTOR;
+        if (executor == null) {
+            return CompletableFuture.failedFuture(new ConnectionPoolException(
+                    "SQLRequest.init() wasnt called, there is no executor for asynchronous requests"));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                final SQLRequest request = new SQLRequest();
+                try {
+                    return loader.load(read ? request.connectRead() : request.connect());
+                } catch (SQLException e) {
+                    throw new SQLRequestException(String.format("An error occurred while executing SQL\nSQL: <%s>\nParams: %s",
+                            sql, Arrays.toString(params)), e);
+                } finally {
+                    if (!read) {
+                        invalidateCache(sql);
+                    }
+                    request.close();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new ConnectionPoolException(
+                    "The executor of the asynchronous requests is shut down", e));
+        }
+    }
+
+    /**
+     * Streams the result of a parameterized SQL query row by row to the consumer.
+     * <br><br>
+     * The rows are read over a forward-only cursor with the fetch size of the {@link ConnectionPool}
+     * and the connection is returned as soon as the last row got consumed.
+     * For MySQL add <b>useCursorFetch=true</b> to the "db_url", otherwise the driver reads the whole result
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param cls the class type of the rows
+     * @param consumer the callback for every row
+     * @param params the values for the placeholders in order
+     * @param <T> the row class type
+     * @return the number of consumed rows
+     * @throws SQLRequestException if the query or the reading of a row failed
+     */
+    public static <T> long forEach(final String sql, final Class<T> cls, final Consumer<? super T> consumer, final Object... params) {
+        long count = 0;
+        try (RowCursor<T> cursor = new RowCursor<>(POOL, sql, cls, POOL.getFetchSize(), params)) {
+            while (cursor.tryAdvance(consumer)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the result of a parameterized SQL query as lazy {@link Stream}.
+     * <br><br>
+     * The query gets executed on the first read row. The connection is held while the stream gets consumed and
+     * returned after the last row or on {@link Stream#close()}. Streams which are not consumed completely
+     * must be closed (try-with-resources), otherwise the connection leaks.
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param cls the class type of the rows
+     * @param params the values for the placeholders in order
+     * @param <T> the row class type
+     * @return a closeable stream of the rows
+     * @throws SQLRequestException while consuming, if the query or the reading of a row failed
+     */
+    public static <T> Stream<T> stream(final String sql, final Class<T> cls, final Object... params) {
+        final RowCursor<T> cursor = new RowCursor<>(POOL, sql, cls, POOL.getFetchSize(), params);
+        return StreamSupport.stream(cursor, false).onClose(cursor::close);
+    }
+
+    /**
+     * Executes the callback in one transaction on a single pooled connection.
+     * <br><br>
+     * The transaction gets committed if the callback finishes and rolled back if it throws.
+     * Inside the callback every failed statement throws a {@link SQLRequestException} instead of being logged,
+     * so a failing statement rolls back the whole transaction. The connection is always returned to the pool
+     * @param transaction the callback, which receives the transactional request
+     * @throws SQLRequestException if the transaction got rolled back, checked exceptions of the callback are
+     * wrapped, unchecked ones are rethrown as they are
+     */
+    public static void transaction(final Transaction transaction) {
+        transactionResult(request -> {
+            transaction.run(request);
+            return null;
+        });
+    }
+
+    /**
+     * Executes the callback in one transaction on a single pooled connection and returns its result.
+     * <br><br>
+     * See {@link SQLRequest#transaction(Transaction)}
+     * @param function the callback, which receives the transactional request
+     * @param <R> the result type
+     * @return the result of the callback after the commit
+     * @throws SQLRequestException if the transaction got rolled back, checked exceptions of the callback are
+     * wrapped, unchecked ones are rethrown as they are
+     */
+    public static <R> R transactionResult(final TransactionFunction<R> function) {
+        final SQLRequest request = new SQLRequest().connect();
+        boolean committed = false;
+        try {
+            request.conn.setAutoCommit(false);
+            request.transactional = true;
+            request.written = new ArrayList<>();
+            final R result = function.apply(request);
+            request.conn.commit();
+            committed = true;
+            return result;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            if (e instanceof SQLException) {
+                POOL.evictOnError(request.conn, (SQLException) e);
+            }
+            throw new SQLRequestException("An error occurred in the transaction. It got rolled back", e);
+        } finally {
+            if (!committed) {
+                try {
+                    request.conn.rollback();
+                } catch (SQLException e) {
+                    POOL.evictOnError(request.conn, e);
+                    LOGGER.error("Couldnt roll back the transaction", e);
+                }
+            }
+            try {
+                request.conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                POOL.evictOnError(request.conn, e);
+                LOGGER.error("Couldnt restore auto-commit of the connection", e);
+            }
+            request.transactional = false;
+            if (committed) {
+                request.written.forEach(SQLRequest::invalidateCache);
+            }
+            request.close();
+        }
+    }
+
+    /**
+     * Sets a savepoint in the transaction, to undo the following statements without rolling back the
+     * whole transaction
+     * @return the savepoint or null, if the request isnt transactional
+     */
+    public Savepoint savepoint() {
+        if (!this.transactional) {
+            LOGGER.error("Savepoints are only available inside SQLRequest.transaction()");
+            return null;
+        }
+        try {
+            return this.conn.setSavepoint();
+        } catch (SQLException e) {
+            throw new SQLRequestException("Couldnt set a savepoint", e);
+        }
+    }
+
+    /**
+     * Undoes every statement of the transaction after the savepoint. The transaction stays open
+     * @param savepoint the savepoint of {@link SQLRequest#savepoint()}
+     * @return the SQLRequest for chaining
+     */
+    public SQLRequest rollbackTo(final Savepoint savepoint) {
+        if (!this.transactional) {
+            LOGGER.error("Savepoints are only available inside SQLRequest.transaction()");
+            return this;
+        }
+        try {
+            this.conn.rollback(savepoint);
+        } catch (SQLException e) {
+            throw new SQLRequestException("Couldnt roll back to the savepoint", e);
+        }
+        return this;
+    }
+
+    /**
+     * Releases a savepoint, which isnt needed anymore
+     * @param savepoint the savepoint of {@link SQLRequest#savepoint()}
+     * @return the SQLRequest for chaining
+     */
+    public SQLRequest release(final Savepoint savepoint) {
+        if (!this.transactional) {
+            LOGGER.error("Savepoints are only available inside SQLRequest.transaction()");
+            return this;
+        }
+        try {
+            this.conn.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            throw new SQLRequestException("Couldnt release the savepoint", e);
+        }
+        return this;
+    }
+
+    /**
+     * Opens a {@link SQLBatch} on a pooled connection, which executes the SQL statement for many rows
+     * with JDBC batching. The batch must be closed to send the remaining rows and return the connection
+     * @param sql the SQL statement with ? placeholders which will be executed for every row
+     * @return the opened batch
+     */
+    public static SQLBatch batch(final String sql) {
+        return new SQLBatch(POOL, sql);
     }
 
     /**
@@ -187,13 +906,14 @@ public class SQLRequest {
      * @return the SQLRequest for chaining (more requests or closing)
      */
     public <T> SQLRequest result(final String sql, final Class<T> cls, final List<T> retval) {
+        final long start = System.nanoTime();
         try {
-            final QueryRunner runner = new QueryRunner();
-            final BeanListHandler<T> handler = new BeanListHandler<>(cls);
-
-            retval.addAll(runner.query(this.conn,sql,handler));
+            final List<T> rows = RUNNER.query(this.conn, sql, new MappedListHandler<>(cls));
+            QueryStats.record(sql, System.nanoTime() - start, rows.size(), false);
+            retval.addAll(rows);
         } catch (Exception e) {
-            LOGGER.error(String.format("An error occurred while executing SQL\nClass: %s\nSQL: <%s>", cls.getSimpleName(), sql),e);
+            QueryStats.record(sql, System.nanoTime() - start, 0, true);
+            fail(String.format("An error occurred while executing SQL\nClass: %s\nSQL: <%s>", cls.getSimpleName(), sql),e);
         }
         return this;
     }
@@ -207,15 +927,15 @@ public class SQLRequest {
      * @return the SQLRequest for chaining (more requests or closing)
      */
     public <T> SQLRequest result(final String sql, final Class<T> cls, final Result<T> retval) {
+        final long start = System.nanoTime();
         try {
-            final QueryRunner runner = new QueryRunner();
             final ScalarHandler<T> handler = new ScalarHandler<>();
 
-           retval.value = runner.query(this.conn,sql,handler);
+            retval.value = RUNNER.query(this.conn,sql,handler);
+            QueryStats.record(sql, System.nanoTime() - start, retval.value == null ? 0 : 1, false);
         } catch (Exception e) {
-            LOGGER.error(String.format("An error occurred while executing SQL\nClass: %s\nSQL: <%s>", cls.getSimpleName(), sql),e);
-        } finally {
-            POOL.returnConnection(this.conn);
+            QueryStats.record(sql, System.nanoTime() - start, 0, true);
+            fail(String.format("An error occurred while executing SQL\nClass: %s\nSQL: <%s>", cls.getSimpleName(), sql),e);
         }
         return this;
     }
@@ -226,14 +946,319 @@ public class SQLRequest {
      * @return the SQLRequest for chaining (more requests or closing)
      */
     public SQLRequest execute(final String sql) {
+        final long start = System.nanoTime();
         try (final Statement statement = conn.createStatement()) {
-            statement.executeUpdate(sql);
+            final int rows = statement.executeUpdate(sql);
+            QueryStats.record(sql, System.nanoTime() - start, rows, false);
+        } catch (SQLException e) {
+            QueryStats.record(sql, System.nanoTime() - start, 0, true);
+            fail(String.format("An error occurred while executing SQL\nSQL: <%s>", sql),e);
+        } finally {
+            written(sql);
+        }
+        return this;
+    }
+
+    /**
+     * Executes a parameterized SQL query that returns a result set and stores the results in a List
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param cls the class type of the returning object
+     * @param retval the list which will be filled
+     * @param params the values for the placeholders in order
+     * @param <T> the return class type
+     * @return the SQLRequest for chaining (more requests or closing)
+     */
+    public <T> SQLRequest result(final String sql, final Class<T> cls, final List<T> retval, final Object... params) {
+        try {
+            retval.addAll(query(sql, new MappedListHandler<>(cls), params));
+        } catch (Exception e) {
+            fail(String.format("An error occurred while executing SQL\nClass: %s\nSQL: <%s>\nParams: %s",
+                    cls.getSimpleName(), sql, Arrays.toString(params)),e);
+        }
+        return this;
+    }
+
+    /**
+     * Executes a parameterized SQL query that returns a result set and stores the rows, converted by the mapper,
+     * in a List
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param mapper converts the current row into an object
+     * @param retval the list which will be filled
+     * @param params the values for the placeholders in order
+     * @param <T> the return class type
+     * @return the SQLRequest for chaining (more requests or closing)
+     */
+    public <T> SQLRequest result(final String sql, final RowMapper<T> mapper, final List<T> retval, final Object... params) {
+        try {
+            retval.addAll(query(sql, new MappedListHandler<>(mapper), params));
+        } catch (Exception e) {
+            fail(String.format("An error occurred while executing SQL\nSQL: <%s>\nParams: %s",
+                    sql, Arrays.toString(params)),e);
+        }
+        return this;
+    }
+
+    /**
+     * Executes a parameterized SQL query that returns a single object and stores the result in a {@link Result}
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param cls the class type of the returning object
+     * @param retval the {@link Result} object with the return value
+     * @param params the values for the placeholders in order
+     * @param <T> the return class type
+     * @return the SQLRequest for chaining (more requests or closing)
+     */
+    public <T> SQLRequest result(final String sql, final Class<T> cls, final Result<T> retval, final Object... params) {
+        try {
+            retval.value = query(sql, new ScalarHandler<>(), params);
+        } catch (Exception e) {
+            fail(String.format("An error occurred while executing SQL\nClass: %s\nSQL: <%s>\nParams: %s",
+                    cls.getSimpleName(), sql, Arrays.toString(params)),e);
+        }
+        return this;
+    }
+
+    /**
+     * Execute a parameterized SQL query which doesnt need to return a value
+     * @param sql the SQL statement with ? placeholders which will be executed
+     * @param params the values for the placeholders in order
+     * @return the SQLRequest for chaining (more requests or closing)
+     */
+    public SQLRequest execute(final String sql, final Object... params) {
+        try {
+            update(sql, params);
         } catch (SQLException e) {
-            LOGGER.error(String.format("An error occurred while executing SQL\nSQL: <%s>", sql),e);
+            fail(String.format("An error occurred while executing SQL\nSQL: <%s>\nParams: %s",
+                    sql, Arrays.toString(params)),e);
+        } finally {
+            written(sql);
         }
         return this;
     }
 
+    /**
+     * Handles a failed statement. Inside a transaction the error is thrown, so the transaction gets rolled back,
+     * otherwise it is logged
+     * @param message the description of the statement
+     * @param e the cause
+     */
+    private void fail(final String message, final Exception e) {
+        if (e instanceof SQLException) {
+            POOL.evictOnError(this.conn, (SQLException) e);
+        }
+        if (this.transactional) {
+            throw new SQLRequestException(message, e);
+        }
+        LOGGER.error(message, e);
+    }
+
+    /**
+     * Invalidates the cached results of the written tables. Inside a transaction it is delayed until the commit
+     * @param sql the executed SQL statement
+     */
+    private void written(final String sql) {
+        if (this.transactional) {
+            this.written.add(sql);
+        } else {
+            invalidateCache(sql);
+        }
+    }
+
+    /**
+     * Executes a query with a cached prepared statement of the connection
+     * @param sql the SQL statement with ? placeholders
+     * @param handler the handler which converts the result set
+     * @param params the values for the placeholders in order
+     * @param <R> the return type of the handler
+     * @return the converted result
+     * @throws SQLException if the execution failed
+     */
+    private <R> R query(final String sql, final ResultSetHandler<R> handler, final Object... params) throws SQLException {
+        final long start = System.nanoTime();
+        boolean failed = true;
+        long rows = 0;
+        final PreparedStatement statement = POOL.prepareStatement(this.conn, sql);
+        try {
+            fillStatement(statement, params);
+            try (ResultSet rs = statement.executeQuery()) {
+                final R result = handler.handle(rs);
+                rows = result instanceof Collection ? ((Collection<?>) result).size() : result == null ? 0 : 1;
+                failed = false;
+                return result;
+            }
+        } catch (SQLException e) {
+            POOL.evictOnError(this.conn, e);
+            throw e;
+        } finally {
+            POOL.releaseStatement(this.conn, sql, statement);
+            QueryStats.record(sql, System.nanoTime() - start, rows, failed);
+        }
+    }
+
+    /**
+     * Executes an update with a cached prepared statement of the connection
+     * @param sql the SQL statement with ? placeholders
+     * @param params the values for the placeholders in order
+     * @return the number of affected rows
+     * @throws SQLException if the execution failed
+     */
+    private int update(final String sql, final Object... params) throws SQLException {
+        final long start = System.nanoTime();
+        int rows = -1;
+        final PreparedStatement statement = POOL.prepareStatement(this.conn, sql);
+        try {
+            fillStatement(statement, params);
+            rows = statement.executeUpdate();
+            return rows;
+        } catch (SQLException e) {
+            POOL.evictOnError(this.conn, e);
+            throw e;
+        } finally {
+            POOL.releaseStatement(this.conn, sql, statement);
+            QueryStats.record(sql, System.nanoTime() - start, Math.max(rows, 0), rows < 0);
+        }
+    }
+
+    /**
+     * Returns the cached result of the query or executes it and caches the result
+     * @param kind the kind of the request, which is part of the cache key
+     * @param sql the SQL statement with ? placeholders
+     * @param cls the class type of the returning object
+     * @param ttl the time to live of the result or null for the default of the cache
+     * @param params the values for the placeholders in order
+     * @param loader executes the query on a connected request
+     * @param <R> the type of the result
+     * @return the result or null, if the execution failed
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> R cached(final char kind, final String sql, final Class<?> cls, final Duration ttl,
+                                final Object[] params, final Loader<R> loader) {
+        final QueryCache cache = CACHE;
+        final QueryCache.Key key = cache == null ? null : new QueryCache.Key(kind, sql, cls, params);
+        Set<String> tables = null;
+        long epoch = 0;
+        if (cache != null) {
+            final Object value = cache.get(key);
+            if (value != null) {
+                return (R) value;
+            }
+            tables = SqlTables.of(sql);
+            epoch = cache.epoch(tables);
+        }
+
+        final SQLRequest request = new SQLRequest();
+        try {
+            final R value = loader.load(request.connect());
+            if (cache != null) {
+                cache.put(key, value, tables, ttl, epoch);
+            }
+            return value;
+        } catch (ConnectionPoolException e) {
+            final Object stale = cache == null ? null : cache.getStale(key);
+            if (stale == null) {
+                throw e;
+            }
+            LOGGER.debug("Database is unreachable, answered with a stale result\nSQL: <{}>", sql);
+            return (R) stale;
+        } catch (SQLException e) {
+            final Object stale = cache != null && isConnectionError(e) ? cache.getStale(key) : null;
+            if (stale != null) {
+                LOGGER.debug("Connection failed, answered with a stale result\nSQL: <{}>", sql);
+                return (R) stale;
+            }
+            LOGGER.error(String.format("An error occurred while executing SQL\nClass: %s\nSQL: <%s>\nParams: %s",
+                    cls.getSimpleName(), sql, Arrays.toString(params)),e);
+            return null;
+        } finally {
+            request.close();
+        }
+    }
+
+    /**
+     * Removes the cached results of every table, which is written by the SQL statement
+     * @param sql the executed SQL statement
+     */
+    static void invalidateCache(final String sql) {
+        final QueryCache cache = CACHE;
+        if (cache != null) {
+            cache.invalidate(SqlTables.of(sql));
+        }
+    }
+
+    /**
+     * Executes a parameterized update on a pooled connection and passes errors to the caller
+     * @param sql the SQL statement with ? placeholders
+     * @param params the values for the placeholders in order
+     * @return the number of affected rows
+     * @throws SQLException if the execution failed
+     */
+    static int executeChecked(final String sql, final Object... params) throws SQLException {
+        final SQLRequest request = new SQLRequest();
+        try {
+            return request.connect().update(sql, params);
+        } finally {
+            invalidateCache(sql);
+            request.close();
+        }
+    }
+
+    /**
+     * Binds the values to the placeholders of the statement
+     * @param statement the prepared statement
+     * @param params the values for the placeholders in order
+     * @throws SQLException if a value couldnt be bound
+     */
+    static void fillStatement(final PreparedStatement statement, final Object... params) throws SQLException {
+        if (params == null) {
+            return;
+        }
+        for (int i = 0; i < params.length; i++) {
+            if (params[i] == null) {
+                statement.setNull(i + 1, Types.NULL);
+            } else {
+                statement.setObject(i + 1, params[i]);
+            }
+        }
+    }
+
+    /**
+     * Callback of {@link SQLRequest#transaction(Transaction)}
+     */
+    @FunctionalInterface
+    public interface Transaction {
+
+        /**
+         * Executes the statements of the transaction
+         * @param request the transactional request
+         * @throws Exception to roll back the transaction
+         */
+        void run(SQLRequest request) throws Exception;
+    }
+
+    /**
+     * Callback of {@link SQLRequest#transactionResult(TransactionFunction)}
+     * @param <R> the result type
+     */
+    @FunctionalInterface
+    public interface TransactionFunction<R> {
+
+        /**
+         * Executes the statements of the transaction
+         * @param request the transactional request
+         * @return the result of the transaction
+         * @throws Exception to roll back the transaction
+         */
+        R apply(SQLRequest request) throws Exception;
+    }
+
+    /**
+     * Executes a query on a connected request
+     * @param <R> the type of the result
+     */
+    @FunctionalInterface
+    private interface Loader<R> {
+        R load(SQLRequest request) throws SQLException;
+    }
+
     /**
      * Nested class for scalar sql results
      * @param <V> the return class type
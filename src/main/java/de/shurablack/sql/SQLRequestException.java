@@ -0,0 +1,22 @@
+package de.shurablack.sql;
+
+/**
+ * <p>
+ * The SQLRequestException class is a RuntimeException that wraps a {@link java.sql.SQLException} of a
+ * {@link SQLRequest}, where the error cant be logged and skipped.
+ * <br><br>
+ * It completes the future of a failed asynchronous request and is thrown while iterating a streamed result,
+ * so the caller doesnt process an empty or truncated result without noticing it
+ * </p>
+ *
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public class SQLRequestException extends RuntimeException {
+
+    public SQLRequestException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,80 @@
+package de.shurablack.sql;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * The SqlTables class extracts the names of the tables, which are read or written by a SQL statement.
+ * <br><br>
+ * It doesnt parse the full grammar. Every table behind FROM (including comma joins and sub queries),
+ * JOIN, UPDATE, INTO and TABLE is collected. Extra names are harmless, because they only cause more invalidation.
+ * Names are returned in lower case without schema and quotes.
+ * </p>
+ *
+ * @see QueryCache
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+final class SqlTables {
+
+    /** Table list behind FROM until the next clause */
+    private static final Pattern FROM = Pattern.compile(
+            "\\bFROM\\s+(.+?)(?=\\b(?:WHERE|JOIN|INNER|LEFT|RIGHT|CROSS|NATURAL|FULL|STRAIGHT_JOIN|GROUP|ORDER|LIMIT"
+                    + "|HAVING|UNION|WINDOW|FOR|ON|USING|SET|VALUES|SELECT)\\b|[();]|$)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    /** Single table behind a keyword */
+    private static final Pattern SINGLE = Pattern.compile(
+            "\\b(?:JOIN|UPDATE|INTO|TRUNCATE(?:\\s+TABLE)?|TABLE)\\s+(?:IF\\s+(?:NOT\\s+)?EXISTS\\s+)?([`\"\\[\\]\\w.$]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private SqlTables() { }
+
+    /**
+     * Extracts the table names of the SQL statement
+     * @param sql the SQL statement
+     * @return the lower case table names, empty if none got found
+     */
+    static Set<String> of(final String sql) {
+        final Set<String> tables = new HashSet<>();
+
+        final Matcher from = FROM.matcher(sql);
+        while (from.find()) {
+            for (String part : from.group(1).split(",")) {
+                final String trimmed = part.trim();
+                if (trimmed.isEmpty() || trimmed.charAt(0) == '(') {
+                    continue;
+                }
+                addTable(tables, trimmed.split("\\s+")[0]);
+            }
+        }
+
+        final Matcher single = SINGLE.matcher(sql);
+        while (single.find()) {
+            addTable(tables, single.group(1));
+        }
+        return tables.isEmpty() ? Collections.emptySet() : tables;
+    }
+
+    /**
+     * Normalizes the name and adds it to the tables
+     * @param tables the found tables
+     * @param name the raw name with possible schema and quotes
+     */
+    private static void addTable(final Set<String> tables, final String name) {
+        String table = name.replaceAll("[`\"\\[\\]]", "");
+        final int dot = table.lastIndexOf('.');
+        if (dot >= 0) {
+            table = table.substring(dot + 1);
+        }
+        if (!table.isEmpty() && !table.equalsIgnoreCase("DUAL")) {
+            tables.add(table.toLowerCase(Locale.ROOT));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package de.shurablack.sql;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * The StatementCache class is a LRU cache of {@link PreparedStatement} objects for a single pooled connection.
+ * <br><br>
+ * A statement is taken out of the cache while it is in use and put back afterwards, so the same SQL can be
+ * executed nested on one connection. If the cache is full, the least recently used statement gets closed.
+ * <br><br>
+ * The cache is only used by the current borrower of the connection and is therefore not thread-safe.
+ * </p>
+ *
+ * @see ConnectionPool
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+final class StatementCache {
+
+    /** Class Logger */
+    private static final Logger LOGGER = LogManager.getLogger(StatementCache.class);
+
+    /** Maximum number of cached statements */
+    private final int maxSize;
+
+    /** Cached statements in access order */
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    /**
+     * This constructs a new StatementCache object
+     * @param maxSize the maximum number of cached statements or 0 to disable caching
+     */
+    StatementCache(final int maxSize) {
+        this.maxSize = maxSize;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Takes a prepared statement for the SQL out of the cache or prepares a new one
+     * @param conn the connection of the cache
+     * @param sql the SQL with ? placeholders
+     * @return the prepared statement, which must be handed back with {@link StatementCache#release(String, PreparedStatement)}
+     * @throws SQLException if the statement couldnt be prepared
+     */
+    PreparedStatement take(final Connection conn, final String sql) throws SQLException {
+        final PreparedStatement statement = statements.remove(sql);
+        if (statement != null && !statement.isClosed()) {
+            return statement;
+        }
+        return conn.prepareStatement(sql);
+    }
+
+    /**
+     * Puts a statement back into the cache, or closes it if caching is disabled
+     * @param sql the SQL of the statement
+     * @param statement the statement which got taken before
+     */
+    void release(final String sql, final PreparedStatement statement) {
+        if (maxSize < 1) {
+            closeQuietly(statement);
+            return;
+        }
+        try {
+            statement.clearParameters();
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            return;
+        }
+        final PreparedStatement previous = statements.put(sql, statement);
+        if (previous != null && previous != statement) {
+            closeQuietly(previous);
+        }
+    }
+
+    /**
+     * @return the number of cached statements
+     */
+    int size() {
+        return statements.size();
+    }
+
+    /**
+     * Closes a statement and logs possible errors
+     * @param statement the statement which will be closed
+     */
+    private static void closeQuietly(final PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            LOGGER.debug("Couldnt close cached statement", e);
+        }
+    }
+}
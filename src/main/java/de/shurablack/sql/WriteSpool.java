@@ -0,0 +1,651 @@
+package de.shurablack.sql;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.temporal.Temporal;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * The WriteSpool class keeps writes of {@link SQLRequest#run(String, Object...)} on the local disk,
+ * while the database is unreachable, and replays them in order once it is reachable again.
+ * <br><br>
+ * The spool is an append-only file, which is memory-mapped, so an append is a copy into the page cache and
+ * survives a crash of the application right away. The file is synced to the disk in batches every
+ * {@value #SYNC_INTERVAL}ms instead of once per write, so an outage with many writes doesnt wait on the disk.
+ * <br><br>
+ * A background thread replays the spooled statements one by one in the order they were written, as soon as the
+ * {@link ConnectionPool} hands out connections again. The replayed position is stored in the header of the file,
+ * so a restarted application continues where it stopped. The file is reused from the start once it is drained.
+ * <br><br>
+ * Example:
+ * </p>
+ * <pre>{@code
+ * SQLRequest.setSpool(WriteSpool.open(Paths.get("data/sql.spool")));
+ *
+ * // kept on the disk, if the database is unreachable
+ * SQLRequest.run("UPDATE users SET xp = xp + ? WHERE id = ?", 5, userId);
+ * }</pre>
+ * <p>
+ * A statement can be replayed twice, if the application stops between its execution and the next sync of the
+ * replayed position, so the spooled writes should be idempotent (upserts, absolute values or increments which
+ * tolerate it). Parameters have to be values, which JDBC can bind: numbers, strings, booleans, byte arrays, dates,
+ * java.time values or UUIDs. Other objects are rejected, so replaying a spool file never deserializes them.
+ * </p>
+ *
+ * @see CircuitBreaker
+ * @version sql-1.1.0
+ * @date 18.10.2026
+ * @author ShuraBlack
+ */
+public class WriteSpool {
+
+    /** Class Logger */
+    private static final Logger LOGGER = LogManager.getLogger(WriteSpool.class);
+
+    /** Default maximum size of the spool file in bytes */
+    public static final long DEFAULT_MAX_SIZE = 256L << 20;
+
+    /** Interval (millis) in which appended records are synced to the disk */
+    public static final long SYNC_INTERVAL = 100L;
+
+    /** Interval (millis) in which spooled records are replayed */
+    public static final long REPLAY_INTERVAL = 1_000L;
+
+    /** Identifies a spool file */
+    private static final int MAGIC = 0x53514C53;
+
+    /** Version of the file layout */
+    private static final int VERSION = 1;
+
+    /** Size of the header: magic, version, generation and replayed position */
+    private static final int HEADER = 32;
+
+    /** Size of the record head: length, generation and checksum */
+    private static final int RECORD_HEAD = 12;
+
+    /** Initial size of the mapped file */
+    private static final long INITIAL_SIZE = 1L << 20;
+
+    private static final byte NULL = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte STRING = 6;
+    private static final byte DECIMAL = 7;
+    private static final byte BYTES = 8;
+    private static final byte TIMESTAMP = 9;
+    private static final byte SERIALIZED = 10;
+
+    /** Classes of serialized values, which can be bound by JDBC. Other classes are never deserialized */
+    private static final ObjectInputFilter BINDABLE = ObjectInputFilter.Config.createFilter(
+            "maxdepth=4;maxrefs=64;java.lang.Number;java.lang.Short;java.lang.Byte;java.lang.Character;"
+                    + "java.math.BigInteger;java.util.Date;java.sql.Date;java.sql.Time;java.util.UUID;java.time.*;!*");
+
+    /** Path of the spool file */
+    private final Path path;
+
+    /** Channel of the spool file */
+    private final FileChannel channel;
+
+    /** Maximum size of the spool file */
+    private final long maxSize;
+
+    /** Background thread, which syncs and replays the spool */
+    private final ScheduledExecutorService worker;
+
+    /** Guards a replay, so the background thread and callers dont replay at the same time */
+    private final Object replayLock = new Object();
+
+    /** Mapped content of the spool file */
+    private MappedByteBuffer buffer;
+
+    /** Generation of the records, which is incremented every time the drained file gets reused */
+    private int generation;
+
+    /** Position of the next record to replay */
+    private long readOffset;
+
+    /** Position of the next appended record */
+    private long writeOffset;
+
+    /** Number of records, which werent replayed yet */
+    private volatile long pending;
+
+    /** Indicates whether the mapped content changed since the last sync */
+    private boolean dirty = false;
+
+    /** Indicates whether the spool got closed */
+    private volatile boolean closed = false;
+
+    /**
+     * This constructs a new WriteSpool object
+     * @param path the path of the spool file
+     * @param channel the opened channel of the file
+     * @param maxSize the maximum size of the file
+     */
+    private WriteSpool(final Path path, final FileChannel channel, final long maxSize) {
+        this.path = path;
+        this.channel = channel;
+        this.maxSize = maxSize;
+        this.worker = Executors.newSingleThreadScheduledExecutor(task -> {
+            final Thread thread = new Thread(task, "WriteSpool_Worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens or creates the spool file with the default maximum size and starts replaying the records,
+     * which were left by a previous run
+     * @param path the path of the spool file
+     * @return the spool or null, if the file couldnt be opened
+     */
+    public static WriteSpool open(final Path path) {
+        return open(path, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Opens or creates the spool file and starts replaying the records, which were left by a previous run
+     * @param path the path of the spool file
+     * @param maxSize the maximum size of the file in bytes, appends fail once it is full
+     * @return the spool or null, if the file couldnt be opened
+     */
+    public static WriteSpool open(final Path path, final long maxSize) {
+        if (maxSize < INITIAL_SIZE) {
+            LOGGER.error(String.format("Spool size must be at least %d bytes", INITIAL_SIZE), new IllegalArgumentException());
+            return null;
+        }
+        FileChannel channel = null;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            final WriteSpool spool = new WriteSpool(path, channel, maxSize);
+            if (!spool.recover()) {
+                spool.worker.shutdown();
+                channel.close();
+                return null;
+            }
+            spool.worker.scheduleWithFixedDelay(spool::sync, SYNC_INTERVAL, SYNC_INTERVAL, TimeUnit.MILLISECONDS);
+            spool.worker.scheduleWithFixedDelay(spool::replayQuietly, REPLAY_INTERVAL, REPLAY_INTERVAL, TimeUnit.MILLISECONDS);
+            return spool;
+        } catch (IOException e) {
+            LOGGER.error(String.format("Couldnt open write spool <%s>", path), e);
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // the open failed already
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Maps the file and finds the records, which werent replayed yet
+     * @return false if the file isnt a spool
+     * @throws IOException if the file couldnt be mapped
+     */
+    private boolean recover() throws IOException {
+        final long size = channel.size();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(maxSize, Math.max(size, INITIAL_SIZE)));
+        if (size == 0) {
+            generation = 1;
+            readOffset = HEADER;
+            writeOffset = HEADER;
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            writeHeader();
+            buffer.force();
+            return true;
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            LOGGER.error(String.format("File is no write spool of this version <%s>", path), new IllegalArgumentException());
+            return false;
+        }
+        generation = buffer.getInt(8);
+        readOffset = buffer.getLong(16);
+        if (readOffset < HEADER || readOffset > buffer.capacity()) {
+            LOGGER.error(String.format("Write spool has an invalid position, starting from the beginning <%s>", path));
+            readOffset = HEADER;
+        }
+
+        // Records of an older generation or a torn write at the end mark the end of the spool
+        long position = readOffset;
+        long count = 0;
+        while (position + RECORD_HEAD <= buffer.capacity()) {
+            final int length = buffer.getInt((int) position);
+            if (length <= 0 || position + RECORD_HEAD + length > buffer.capacity()
+                    || buffer.getInt((int) position + 4) != generation
+                    || buffer.getInt((int) position + 8) != checksum((int) position + RECORD_HEAD, length)) {
+                break;
+            }
+            position += RECORD_HEAD + length;
+            count++;
+        }
+        writeOffset = position;
+        pending = count;
+        if (count > 0) {
+            LOGGER.warn("Write spool contains {} statements of a previous run, which get replayed <{}>", count, path);
+        }
+        return true;
+    }
+
+    /**
+     * Appends a statement to the spool
+     * @param sql the SQL statement with ? placeholders
+     * @param params the values for the placeholders in order
+     * @return true if the statement got spooled, false if the spool is closed, full or a value isnt serializable
+     */
+    public boolean append(final String sql, final Object... params) {
+        final byte[] payload;
+        try {
+            payload = encode(sql, params);
+        } catch (IOException e) {
+            LOGGER.error(String.format("Couldnt spool SQL <%s>", sql), e);
+            return false;
+        }
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            final long end = writeOffset + RECORD_HEAD + payload.length;
+            if (end > buffer.capacity() && !grow(end)) {
+                LOGGER.error(String.format("Write spool is full, statement is lost <%s>\nSQL: <%s>", path, sql));
+                return false;
+            }
+            final int position = (int) writeOffset;
+            final ByteBuffer target = buffer.duplicate();
+            target.position(position + RECORD_HEAD);
+            target.put(payload);
+            buffer.putInt(position + 4, generation);
+            buffer.putInt(position + 8, checksum(position + RECORD_HEAD, payload.length));
+            // the length is written last, so a torn record ends the spool on recovery
+            buffer.putInt(position, payload.length);
+            writeOffset = end;
+            pending++;
+            dirty = true;
+        }
+        return true;
+    }
+
+    /**
+     * Replays the spooled statements in order, until the spool is drained or the database is unreachable.
+     * Statements which fail for another reason are logged and skipped
+     * @return the number of replayed statements
+     */
+    public int replay() {
+        synchronized (replayLock) {
+            int replayed = 0;
+            while (!closed && SQLRequest.getPool() != null) {
+                final long position;
+                final byte[] payload;
+                synchronized (this) {
+                    if (readOffset >= writeOffset) {
+                        reset();
+                        break;
+                    }
+                    position = readOffset;
+                    payload = new byte[buffer.getInt((int) position)];
+                    final ByteBuffer source = buffer.duplicate();
+                    source.position((int) position + RECORD_HEAD);
+                    source.get(payload);
+                }
+
+                String sql = null;
+                Object[] params = null;
+                try {
+                    final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+                    sql = readString(in);
+                    params = readParams(in);
+                } catch (IOException | ClassNotFoundException e) {
+                    LOGGER.error(String.format("Skipped unreadable spooled statement <%s>", path), e);
+                }
+
+                if (sql != null) {
+                    try {
+                        SQLRequest.executeChecked(sql, params);
+                    } catch (ConnectionPoolException e) {
+                        LOGGER.debug("Database is unreachable, {} statements stay spooled", pending);
+                        break;
+                    } catch (SQLException e) {
+                        if (SQLRequest.isConnectionError(e)) {
+                            LOGGER.debug("Connection failed, {} statements stay spooled", pending);
+                            break;
+                        }
+                        LOGGER.error(String.format("Skipped failed spooled statement\nSQL: <%s>", sql), e);
+                    }
+                }
+
+                synchronized (this) {
+                    readOffset = position + RECORD_HEAD + payload.length;
+                    pending--;
+                    writeHeader();
+                }
+                replayed++;
+            }
+            if (replayed > 0) {
+                LOGGER.info("Replayed {} spooled statements, {} pending <{}>", replayed, pending, path);
+            }
+            return replayed;
+        }
+    }
+
+    /**
+     * Replays the spool on the background thread, which must not die on an error
+     */
+    private void replayQuietly() {
+        try {
+            if (pending > 0) {
+                replay();
+            }
+        } catch (Exception e) {
+            LOGGER.error(String.format("An error occurred while replaying the write spool <%s>", path), e);
+        }
+    }
+
+    /**
+     * Syncs the mapped content to the disk, if it changed
+     */
+    private void sync() {
+        synchronized (this) {
+            if (!dirty || closed) {
+                return;
+            }
+            dirty = false;
+        }
+        buffer.force();
+    }
+
+    /**
+     * Starts the drained file from the beginning with a new generation, so the old records are ignored
+     */
+    private void reset() {
+        if (writeOffset == HEADER) {
+            return;
+        }
+        generation++;
+        readOffset = HEADER;
+        writeOffset = HEADER;
+        writeHeader();
+    }
+
+    /**
+     * Writes the generation and the replayed position into the header
+     */
+    private void writeHeader() {
+        buffer.putInt(8, generation);
+        buffer.putLong(16, readOffset);
+        dirty = true;
+    }
+
+    /**
+     * Maps a larger part of the file, doubling the size up to the maximum
+     * @param required the required size
+     * @return false if the maximum size would be exceeded
+     */
+    private boolean grow(final long required) {
+        if (required > maxSize) {
+            return false;
+        }
+        long size = buffer.capacity();
+        while (size < required) {
+            size *= 2;
+        }
+        try {
+            buffer.force();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(size, maxSize));
+            return true;
+        } catch (IOException e) {
+            LOGGER.error(String.format("Couldnt grow write spool <%s>", path), e);
+            return false;
+        }
+    }
+
+    /**
+     * Calculates the checksum of the generation and payload of a record
+     * @param position the position of the payload
+     * @param length the length of the payload
+     * @return the checksum
+     */
+    private int checksum(final int position, final int length) {
+        final CRC32 crc = new CRC32();
+        final ByteBuffer content = buffer.duplicate();
+        content.position(position - 8).limit(position - 4);
+        crc.update(content);
+        content.limit(position + length).position(position);
+        crc.update(content);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Stops the background thread, syncs the file and closes it. Spooled statements are replayed after the next open
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        worker.shutdown();
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (replayLock) {
+            synchronized (this) {
+                buffer.force();
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    LOGGER.error(String.format("Couldnt close write spool <%s>", path), e);
+                }
+            }
+        }
+        if (pending > 0) {
+            LOGGER.warn("Write spool closed with {} statements, which get replayed after the next start <{}>", pending, path);
+        }
+    }
+
+    /**
+     * @return true if statements wait to be replayed
+     */
+    public boolean hasPending() {
+        return pending > 0;
+    }
+
+    /**
+     * @return the number of statements, which wait to be replayed
+     */
+    public long getPendingCount() {
+        return pending;
+    }
+
+    /**
+     * @return the path of the spool file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Encodes the statement and its values
+     * @param sql the SQL statement
+     * @param params the values for the placeholders in order
+     * @return the payload of the record
+     * @throws IOException if a value cant be bound by JDBC
+     */
+    private static byte[] encode(final String sql, final Object[] params) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + sql.length());
+        final DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, sql);
+        out.writeInt(params == null ? 0 : params.length);
+        for (int i = 0; params != null && i < params.length; i++) {
+            final Object value = params[i];
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof Boolean) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(INTEGER);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeByte(LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof Float) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) value);
+            } else if (value instanceof String) {
+                out.writeByte(STRING);
+                writeString(out, (String) value);
+            } else if (value instanceof BigDecimal) {
+                final BigDecimal decimal = (BigDecimal) value;
+                out.writeByte(DECIMAL);
+                out.writeInt(decimal.scale());
+                writeBytes(out, decimal.unscaledValue().toByteArray());
+            } else if (value instanceof byte[]) {
+                out.writeByte(BYTES);
+                writeBytes(out, (byte[]) value);
+            } else if (value instanceof Timestamp) {
+                final Timestamp timestamp = (Timestamp) value;
+                out.writeByte(TIMESTAMP);
+                out.writeLong(timestamp.getTime());
+                out.writeInt(timestamp.getNanos());
+            } else if (isBindable(value)) {
+                final ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+                try (ObjectOutputStream object = new ObjectOutputStream(serialized)) {
+                    object.writeObject(value);
+                }
+                out.writeByte(SERIALIZED);
+                writeBytes(out, serialized.toByteArray());
+            } else {
+                throw new IOException(String.format("Value of type %s cant be spooled", value.getClass().getName()));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Checks if the value is one of the other types, which JDBC can bind and which are spooled serialized
+     * @param value the value
+     * @return true for short, byte, char, BigInteger, dates, java.time values and UUIDs
+     */
+    private static boolean isBindable(final Object value) {
+        return value instanceof Short || value instanceof Byte || value instanceof Character
+                || value instanceof BigInteger || value instanceof UUID
+                || value.getClass() == java.util.Date.class || value instanceof java.sql.Date || value instanceof Time
+                || (value instanceof Temporal && "java.time".equals(value.getClass().getPackageName()));
+    }
+
+    /**
+     * Decodes the values of a record
+     * @param in the payload after the statement
+     * @return the values for the placeholders in order
+     * @throws IOException if the payload is invalid
+     * @throws ClassNotFoundException if the class of a serialized value is missing
+     */
+    private static Object[] readParams(final DataInputStream in) throws IOException, ClassNotFoundException {
+        final Object[] params = new Object[in.readInt()];
+        for (int i = 0; i < params.length; i++) {
+            final byte type = in.readByte();
+            switch (type) {
+                case NULL:
+                    break;
+                case BOOLEAN:
+                    params[i] = in.readBoolean();
+                    break;
+                case INTEGER:
+                    params[i] = in.readInt();
+                    break;
+                case LONG:
+                    params[i] = in.readLong();
+                    break;
+                case DOUBLE:
+                    params[i] = in.readDouble();
+                    break;
+                case FLOAT:
+                    params[i] = in.readFloat();
+                    break;
+                case STRING:
+                    params[i] = readString(in);
+                    break;
+                case DECIMAL:
+                    final int scale = in.readInt();
+                    params[i] = new BigDecimal(new BigInteger(readBytes(in)), scale);
+                    break;
+                case BYTES:
+                    params[i] = readBytes(in);
+                    break;
+                case TIMESTAMP:
+                    final Timestamp timestamp = new Timestamp(in.readLong());
+                    timestamp.setNanos(in.readInt());
+                    params[i] = timestamp;
+                    break;
+                case SERIALIZED:
+                    try (ObjectInputStream object = new ObjectInputStream(new ByteArrayInputStream(readBytes(in)))) {
+                        object.setObjectInputFilter(BINDABLE);
+                        params[i] = object.readObject();
+                    }
+                    break;
+                default:
+                    throw new IOException("Unknown value type " + type);
+            }
+        }
+        return params;
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(final DataOutputStream out, final byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(final DataInputStream in) throws IOException {
+        final byte[] value = new byte[in.readInt()];
+        in.readFully(value);
+        return value;
+    }
+}
@@ -0,0 +1,95 @@
+package de.shurablack.core.scheduling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveExecutorTest {
+
+    private final AdaptiveExecutor executor = new AdaptiveExecutor(1, 4, Duration.ofMillis(10), null,
+            Executors.defaultThreadFactory());
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void growsWhileTasksWaitAndShrinksWhenIdle() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            executor.execute(() -> {
+                sleep(20);
+                done.countDown();
+            });
+        }
+        sleep(50);
+
+        final AdaptiveExecutor.Adjustment growth = executor.adapt();
+        assertNotNull(growth);
+        assertEquals(1, growth.getFrom());
+        assertEquals(2, growth.getTo());
+        assertTrue(growth.getWait() > 10);
+        assertEquals(2, executor.getCorePoolSize());
+        assertEquals(2, executor.getMaximumPoolSize());
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        sleep(20);
+        // the first sample still contains the waits of the finished tasks
+        executor.adapt();
+        for (int i = 0; i < 4 && executor.getCorePoolSize() > 1; i++) {
+            executor.adapt();
+        }
+        assertEquals(1, executor.getCorePoolSize());
+        assertTrue(executor.getShrunk() >= 1);
+        final AdaptiveExecutor.Adjustment shrink = executor.getAdjustments().get(0);
+        assertEquals(1, shrink.getTo());
+        assertEquals(0, shrink.getUtilization());
+    }
+
+    @Test
+    void staysWithinBounds() {
+        for (int i = 0; i < 10; i++) {
+            executor.adapt();
+        }
+        assertEquals(1, executor.getCorePoolSize());
+        assertEquals(0, executor.getShrunk());
+    }
+
+    @Test
+    void queueKeepsTheSubmittedTasks() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        final Runnable removed = () -> { };
+        final Runnable dropped = () -> { };
+        executor.execute(removed);
+        executor.execute(dropped);
+
+        assertTrue(executor.getQueue().contains(removed));
+        assertTrue(executor.remove(removed));
+        assertFalse(executor.getQueue().contains(removed));
+        assertEquals(List.of(dropped), executor.shutdownNow());
+        release.countDown();
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package de.shurablack.core.scheduling;
+
+import de.shurablack.sql.ConnectionPool;
+import de.shurablack.sql.SQLRequest;
+import de.shurablack.sql.TestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CronLeasesTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabase.init("leases", 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Dispatcher.setCronLeases(null);
+        pool.close();
+    }
+
+    @Test
+    void onlyOneInstanceRunsAFiring() {
+        final CronLeases first = new CronLeases().createTable();
+        final CronLeases second = new CronLeases();
+
+        final CronLeases.Lease lease = first.acquire("aggregate");
+        assertNotNull(lease);
+        assertSame(lease, CronLeases.current());
+        assertNull(second.acquire("aggregate"));
+
+        lease.release();
+        assertFalse(lease.isHeld());
+        assertNull(CronLeases.current());
+        // the released lease stays taken for the rest of the firing
+        assertNull(second.acquire("aggregate"));
+    }
+
+    @Test
+    void expiredLeaseIsFencedByTheNextToken() {
+        final CronLeases first = new CronLeases().createTable();
+        final CronLeases second = new CronLeases();
+
+        final CronLeases.Lease stale = first.acquire("aggregate");
+        assertNotNull(stale);
+        // the first instance stalls until its lease expired and the next firing is due
+        SQLRequest.run("UPDATE cron_leases SET expires_at = 0, fired_at = 0");
+
+        final CronLeases.Lease current = second.acquire("aggregate");
+        assertNotNull(current);
+        assertTrue(current.getToken() > stale.getToken());
+
+        stale.release();
+        assertEquals(second.getOwner(), SQLRequest.runScalar("SELECT owner FROM cron_leases WHERE name = ? AND expires_at > 0",
+                String.class, "aggregate").value);
+        current.release();
+    }
+
+    @Test
+    void renewalReportsALostLease() throws InterruptedException {
+        final CronLeases leases = new CronLeases(CronLeases.DEFAULT_TABLE, Duration.ofSeconds(3)).createTable();
+        final CronLeases.Lease lease = leases.acquire("aggregate");
+        assertNotNull(lease);
+        assertTrue(CronLeases.held());
+
+        // another instance took the lease, the next renewal after a second fails
+        SQLRequest.run("UPDATE cron_leases SET token = token + 1");
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (CronLeases.held() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertFalse(CronLeases.held());
+        assertFalse(lease.isHeld());
+
+        lease.release();
+        assertTrue(CronLeases.held());
+    }
+
+    @Test
+    void entryCountsFiringsOfOtherInstances() {
+        final CronLeases leases = new CronLeases().createTable();
+        Dispatcher.setCronLeases(leases);
+        SQLRequest.run("INSERT INTO cron_leases (name, owner, token, expires_at, fired_at) VALUES (?, ?, 1, ?, ?)",
+                "aggregate", "other", Long.MAX_VALUE, System.currentTimeMillis());
+
+        final AtomicInteger runs = new AtomicInteger();
+        final Entry entry = new Entry("aggregate", "1", runs::incrementAndGet);
+        assertTrue(entry.trigger(Runnable::run));
+
+        assertEquals(0, runs.get());
+        assertEquals(0, entry.getRuns());
+        assertEquals(1, entry.getLeaseMisses());
+    }
+}
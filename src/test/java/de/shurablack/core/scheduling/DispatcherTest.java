@@ -0,0 +1,43 @@
+package de.shurablack.core.scheduling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DispatcherTest {
+
+    @AfterEach
+    void tearDown() {
+        Dispatcher.descheduleCronTask("drain");
+    }
+
+    @Test
+    void drainLetsRunningTasksFinish() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final AtomicBoolean finished = new AtomicBoolean();
+        Dispatcher.scheduleCronTask("0 0 1 1 *", "drain", () -> {
+            started.countDown();
+            try {
+                Thread.sleep(300);
+                finished.set(true);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        Dispatcher.forceCronTask("drain");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Dispatcher.stopScheduling();
+        assertTrue(Dispatcher.drain(System.nanoTime() + TimeUnit.SECONDS.toNanos(5)));
+        assertEquals(0, Dispatcher.shutdownNow());
+
+        assertTrue(finished.get());
+        assertFalse(interrupted.get());
+    }
+}
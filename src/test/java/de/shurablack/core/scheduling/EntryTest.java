@@ -2,6 +2,11 @@ package de.shurablack.core.scheduling;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class EntryTest {
@@ -50,4 +55,73 @@ class EntryTest {
         Entry entry = new Entry("TestName", "123", () -> {});
         assertFalse(entry.equals("NotAnEntry"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void overlappingTriggerIsSkipped() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Entry entry = new Entry("TestName", "123", () -> awaitQuietly(release), OverlapPolicy.SKIP);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        assertTrue(entry.trigger(executor));
+        assertFalse(entry.trigger(executor));
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, entry.getRuns());
+        assertEquals(1, entry.getSkipped());
+        assertFalse(entry.isRunning());
+    }
+
+    @Test
+    void overlappingTriggerIsQueuedOnce() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Entry entry = new Entry("TestName", "123", () -> awaitQuietly(release), OverlapPolicy.QUEUE);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        assertTrue(entry.trigger(executor));
+        assertTrue(entry.trigger(executor));
+        assertFalse(entry.trigger(executor));
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, entry.getRuns());
+        assertEquals(1, entry.getSkipped());
+    }
+
+    @Test
+    void failedRunIsCounted() {
+        Entry entry = new Entry("TestName", "123", () -> {
+            throw new IllegalStateException("expected");
+        });
+        assertTrue(entry.trigger(Runnable::run));
+        assertTrue(entry.trigger(Runnable::run));
+        assertEquals(2, entry.getRuns());
+        assertEquals(2, entry.getFailures());
+        assertTrue(entry.getLastStart() > 0);
+    }
+
+    @Test
+    void failedLeaseAcquisitionDoesntBlockLaterRuns() {
+        Dispatcher.setCronLeases(new CronLeases() {
+            @Override
+            Lease acquire(final String name) {
+                throw new IllegalStateException("expected");
+            }
+        });
+        try {
+            Entry entry = new Entry("TestName", "123", () -> { });
+            assertTrue(entry.trigger(Runnable::run));
+            assertTrue(entry.trigger(Runnable::run));
+            assertEquals(2, entry.getLeaseMisses());
+            assertFalse(entry.isRunning());
+        } finally {
+            Dispatcher.setCronLeases(null);
+        }
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
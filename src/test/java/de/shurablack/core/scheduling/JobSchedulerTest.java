@@ -0,0 +1,110 @@
+package de.shurablack.core.scheduling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobSchedulerTest {
+
+    @TempDir
+    Path dir;
+
+    private JobScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    void pendingJobRunsAfterRestart() throws InterruptedException {
+        scheduler = new JobScheduler(FileJobStore.open(dir), Duration.ofSeconds(10)).start();
+        scheduler.schedule("reminder:1", "remind", "hello", Instant.now().plusMillis(300));
+        assertEquals(1, scheduler.getLoadedCount());
+        scheduler.stop();
+
+        final List<String> payloads = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        final FileJobStore store = FileJobStore.open(dir);
+        scheduler = new JobScheduler(store, Duration.ofSeconds(10))
+                .register("remind", job -> { payloads.add(job.getPayload()); done.countDown(); })
+                .start();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("hello"), payloads);
+        waitUntilUnloaded();
+        assertTrue(FileJobStore.open(dir).load(Long.MIN_VALUE, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    void cancelledJobOutsideWindowDoesntReturn() {
+        scheduler = new JobScheduler(FileJobStore.open(dir), Duration.ofSeconds(10)).start();
+        scheduler.schedule("ban:1", "unban", null, Instant.now().plus(Duration.ofHours(1)));
+        scheduler.schedule("ban:2", "unban", null, Instant.now().plus(Duration.ofHours(2)));
+        assertEquals(0, scheduler.getLoadedCount());
+        scheduler.cancel("ban:1");
+        scheduler.stop();
+
+        final List<Job> pending = FileJobStore.open(dir).load(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(1, pending.size());
+        assertEquals("ban:2", pending.get(0).getId());
+    }
+
+    @Test
+    void rescheduledJobOutsideWindowOnlyKeepsNewTime() {
+        final Instant first = Instant.now().plus(Duration.ofHours(1));
+        final Instant second = Instant.now().plus(Duration.ofHours(2));
+        scheduler = new JobScheduler(FileJobStore.open(dir), Duration.ofSeconds(10)).start();
+        scheduler.schedule("mute:1", "unmute", "old", first);
+        scheduler.schedule("mute:1", "unmute", "new", second);
+        scheduler.stop();
+
+        final FileJobStore store = FileJobStore.open(dir);
+        assertTrue(store.load(Long.MIN_VALUE, first.plus(Duration.ofMinutes(1)).toEpochMilli()).isEmpty());
+        final List<Job> pending = store.load(first.plus(Duration.ofMinutes(1)).toEpochMilli(), Long.MAX_VALUE);
+        assertEquals(1, pending.size());
+        assertEquals("new", pending.get(0).getPayload());
+        assertEquals(second.toEpochMilli(), pending.get(0).getDueAt());
+    }
+
+    @Test
+    void failedJobIsRetried() throws InterruptedException {
+        final AtomicInteger attempts = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1);
+        scheduler = new JobScheduler(FileJobStore.open(dir), Duration.ofSeconds(10))
+                .register("flaky", job -> {
+                    if (attempts.incrementAndGet() == 1) {
+                        throw new IllegalStateException("first attempt fails");
+                    }
+                    assertEquals(1, job.getAttempts());
+                    done.countDown();
+                })
+                .start();
+        scheduler.schedule("flaky:1", "flaky", null, Instant.now());
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, attempts.get());
+        waitUntilUnloaded();
+    }
+
+    private void waitUntilUnloaded() throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (scheduler.getLoadedCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, scheduler.getLoadedCount());
+    }
+}
@@ -0,0 +1,61 @@
+package de.shurablack.core.scheduling;
+
+import de.shurablack.sql.ConnectionPool;
+import de.shurablack.sql.SQLRequest;
+import de.shurablack.sql.TestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlJobStoreTest {
+
+    private ConnectionPool pool;
+
+    private JobScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabase.init("jobs", 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+        pool.close();
+    }
+
+    @Test
+    void loadsTheLatestVersionByColumnName() {
+        final SqlJobStore store = new SqlJobStore().createTable();
+        final long due = System.currentTimeMillis() + 60_000;
+        assertTrue(store.save(new Job("digest:1", "digest", "old", due, 0, 0, Job.nextVersion())));
+        assertTrue(store.save(new Job("digest:1", "digest", "new", due + 1, 3_600_000, 2, Job.nextVersion())));
+
+        final List<Job> jobs = store.load(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(1, jobs.size());
+        final Job job = jobs.get(0);
+        assertEquals("digest:1", job.getId());
+        assertEquals("digest", job.getType());
+        assertEquals("new", job.getPayload());
+        assertEquals(due + 1, job.getDueAt());
+        assertEquals(3_600_000, job.getInterval());
+        assertEquals(2, job.getAttempts());
+    }
+
+    @Test
+    void unstoredJobIsntScheduled() {
+        scheduler = new JobScheduler(new SqlJobStore().createTable(), Duration.ofMinutes(5)).start();
+        // every following write fails
+        SQLRequest.runUpdate("DROP TABLE " + SqlJobStore.DEFAULT_TABLE);
+        assertFalse(scheduler.schedule("digest:1", "digest", null, Instant.now().plusSeconds(1)));
+        assertEquals(0, scheduler.getLoadedCount());
+    }
+}
@@ -0,0 +1,62 @@
+package de.shurablack.core.scheduling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private final TimingWheel wheel = new TimingWheel(1, Runnable::run);
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void timersExpireInDeadlineOrder() throws InterruptedException {
+        final List<String> fired = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(3);
+        // 700ms lies in the second wheel with a tick of 1ms and has to move down before it expires
+        wheel.schedule(700, TimeUnit.MILLISECONDS, () -> { fired.add("late"); done.countDown(); });
+        wheel.schedule(50, TimeUnit.MILLISECONDS, () -> { fired.add("middle"); done.countDown(); });
+        wheel.schedule(0, TimeUnit.MILLISECONDS, () -> { fired.add("now"); done.countDown(); });
+
+        final long start = System.nanoTime();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(690));
+        assertEquals(List.of("now", "middle", "late"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledTimerDoesntRun() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        final TimingWheel.Timeout cancelled = wheel.schedule(20, TimeUnit.MILLISECONDS, () -> fail("cancelled timer ran"));
+        final TimingWheel.Timeout kept = wheel.schedule(40, TimeUnit.MILLISECONDS, done::countDown);
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(cancelled.isCancelled());
+        assertTrue(kept.isExpired());
+        assertFalse(kept.cancel());
+    }
+
+    @Test
+    void manyTimersExpire() throws InterruptedException {
+        final int count = 200_000;
+        final CountDownLatch done = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            wheel.schedule(i % 1000, TimeUnit.MILLISECONDS, done::countDown);
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(0, wheel.size());
+    }
+}
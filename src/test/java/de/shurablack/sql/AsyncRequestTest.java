@@ -0,0 +1,54 @@
+package de.shurablack.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncRequestTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabase.init("async", 4);
+        SQLRequest.run("CREATE TABLE points (id BIGINT PRIMARY KEY, amount INT NOT NULL)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void variantsCompleteWithTheirResults() throws Exception {
+        SQLRequest.runAsync("INSERT INTO points (id, amount) VALUES (?, ?), (?, ?)", 1L, 10, 2L, 20)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(10, 20), SQLRequest.runListAsync("SELECT amount FROM points ORDER BY id", Integer.class)
+                .get(5, TimeUnit.SECONDS));
+        assertEquals(20, SQLRequest.runSingleAsync("SELECT amount FROM points WHERE id = ?", Integer.class, 2L)
+                .get(5, TimeUnit.SECONDS).value);
+        assertFalse(SQLRequest.runSingleAsync("SELECT amount FROM points WHERE id = ?", Integer.class, 3L)
+                .get(5, TimeUnit.SECONDS).isPresent());
+        assertEquals(30L, ((Number) SQLRequest.runScalarAsync("SELECT SUM(amount) FROM points", Number.class)
+                .get(5, TimeUnit.SECONDS).value).longValue());
+    }
+
+    @Test
+    void failedStatementCompletesExceptionally() {
+        final CompletableFuture<Void> write = SQLRequest.runAsync("INSERT INTO missing (id) VALUES (?)", 1L);
+        final ExecutionException writeFailure = assertThrows(ExecutionException.class, () -> write.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SQLRequestException.class, writeFailure.getCause());
+
+        final CompletableFuture<List<Integer>> read = SQLRequest.runListAsync("SELECT amount FROM missing", Integer.class);
+        final ExecutionException readFailure = assertThrows(ExecutionException.class, () -> read.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SQLRequestException.class, readFailure.getCause());
+    }
+}
@@ -0,0 +1,96 @@
+package de.shurablack.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkWriterTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabase.init("bulk", 2);
+        SQLRequest.run("CREATE TABLE members (id BIGINT PRIMARY KEY, name VARCHAR(20))");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void rowsAreSplitIntoChunks() {
+        final List<Object[]> rows = new ArrayList<>();
+        for (long i = 0; i < 25; i++) {
+            rows.add(new Object[] {i, "member" + i});
+        }
+        assertEquals(25, BulkWriter.into("members", "id", "name").setMaxRows(10).write(rows));
+        assertEquals(25L, SQLRequest.runScalar("SELECT COUNT(*) FROM members", Long.class).value);
+    }
+
+    @Test
+    void remainingRowsUseFewStatementShapes() {
+        final BulkWriter writer = BulkWriter.into("members", "id", "name").setMaxRows(10);
+        final List<Object[]> rows = new ArrayList<>();
+        for (long i = 0; i < 25; i++) {
+            rows.add(new Object[] {i, "member" + i});
+        }
+        // 10, 10 and 5 rows as 4 and 1
+        assertEquals(25, writer.write(rows));
+        assertEquals(3, writer.getStatementShapes());
+
+        rows.clear();
+        for (long i = 25; i < 32; i++) {
+            rows.add(new Object[] {i, "member" + i});
+        }
+        // 7 rows as 4, 2 and 1
+        assertEquals(7, writer.write(rows));
+        assertEquals(4, writer.getStatementShapes());
+        assertEquals(32L, SQLRequest.runScalar("SELECT COUNT(*) FROM members", Long.class).value);
+    }
+
+    @Test
+    void byteLimitStartsNewStatement() {
+        final List<Object[]> rows = List.of(new Object[] {1L, "aaaaaaaaaa"}, new Object[] {2L, "bbbbbbbbbb"});
+        assertEquals(2, BulkWriter.into("members", "id", "name").setMaxBytes(1).write(rows));
+        assertEquals(2L, SQLRequest.runScalar("SELECT COUNT(*) FROM members", Long.class).value);
+    }
+
+    @Test
+    void writerNeedsColumns() {
+        assertNull(BulkWriter.into("members"));
+    }
+
+    @Test
+    void upsertUpdatesBeans() {
+        final BulkWriter writer = BulkWriter.into("members", "id", "name").upsert("name").setTransactional(true);
+        assertEquals(2, writer.writeBeans(List.of(new Member(1, "old"), new Member(2, "other"))));
+        assertEquals(1, writer.writeBeans(List.of(new Member(1, "new"))));
+        assertEquals(List.of("new", "other"), SQLRequest.runList("SELECT name FROM members ORDER BY id", String.class));
+    }
+
+    public static class Member {
+
+        private final long id;
+        private final String name;
+
+        Member(final long id, final String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
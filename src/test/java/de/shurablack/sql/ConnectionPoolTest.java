@@ -0,0 +1,274 @@
+package de.shurablack.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+
+    private static final int THREADS = 32;
+
+    private ConnectionPool pool;
+    private ExecutorService executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        pool.close();
+    }
+
+    @Test
+    void sizeCapHoldsUnderContention() throws Exception {
+        pool = TestDatabase.pool("cap", 4).setConnectionTimeout(10_000).start();
+        final AtomicInteger borrowed = new AtomicInteger();
+        final LongAccumulator peak = new LongAccumulator(Math::max, 0);
+        final Set<Connection> inUse = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+        hammer(THREADS, 200, i -> {
+            final Connection conn = pool.getConnection();
+            try {
+                assertTrue(inUse.add(conn), "Connection was handed out twice");
+                peak.accumulate(borrowed.incrementAndGet());
+                assertFalse(conn.isClosed());
+                Thread.yield();
+            } finally {
+                borrowed.decrementAndGet();
+                inUse.remove(conn);
+                pool.returnConnection(conn);
+            }
+        });
+
+        assertTrue(peak.get() <= 4, "Peak " + peak.get());
+        assertTrue(pool.getTotalConnections() <= 4);
+        assertEquals(0, pool.getActiveConnections());
+        assertEquals(0, pool.getWaitingThreads());
+    }
+
+    @Test
+    void exhaustedPoolTimesOut() {
+        pool = TestDatabase.pool("timeout", 2).setConnectionTimeout(200).start();
+        final Connection first = pool.getConnection();
+        final Connection second = pool.getConnection();
+
+        final long start = System.nanoTime();
+        assertThrows(ConnectionPoolException.class, pool::getConnection);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+
+        pool.returnConnection(first);
+        assertSame(first, pool.getConnection());
+        pool.returnConnection(second);
+    }
+
+    @Test
+    void returnedConnectionIsHandedToWaitingBorrower() throws Exception {
+        pool = TestDatabase.pool("handoff", 1).setConnectionTimeout(5_000).start();
+        final Connection held = pool.getConnection();
+        executor = Executors.newSingleThreadExecutor();
+        final Future<Connection> waiter = executor.submit(() -> pool.getConnection());
+
+        waitUntil(() -> pool.getWaitingThreads() == 1);
+        pool.returnConnection(held);
+        assertSame(held, waiter.get(1, TimeUnit.SECONDS));
+        assertEquals(0, pool.getWaitingThreads());
+        assertEquals(1, pool.getTotalConnections());
+        pool.returnConnection(held);
+    }
+
+    @Test
+    void onlyIdleConnectionsAreValidated() throws Exception {
+        pool = TestDatabase.pool("validation", 2).setValidationIdle(60_000).start();
+        final Connection recent = pool.getConnection();
+        recent.close();
+        pool.returnConnection(recent);
+        // validated right before, so the broken connection is handed out without another check
+        final Connection unchecked = pool.getConnection();
+        assertSame(recent, unchecked);
+        pool.returnConnection(unchecked);
+
+        pool.setValidationIdle(10);
+        Thread.sleep(30);
+        final Connection validated = pool.getConnection();
+        assertNotSame(recent, validated);
+        assertTrue(validated.isValid(1));
+        pool.returnConnection(validated);
+    }
+
+    @Test
+    void connectionErrorEvictsOnReturn() {
+        pool = TestDatabase.pool("broken", 2).setValidationIdle(60_000).start();
+        final Connection failed = pool.getConnection();
+        pool.evictOnError(failed, new SQLException("Syntax error", "42000"));
+        pool.returnConnection(failed);
+        final Connection reused = pool.getConnection();
+        assertSame(failed, reused);
+
+        pool.evictOnError(reused, new SQLException("Communications link failure", "08S01"));
+        pool.returnConnection(reused);
+        assertEquals(0, pool.getTotalConnections());
+        final Connection fresh = pool.getConnection();
+        assertNotSame(reused, fresh);
+        pool.returnConnection(fresh);
+    }
+
+    @Test
+    void housekeeperShrinksToMinIdle() throws Exception {
+        pool = TestDatabase.pool("idle", 4).setMinIdle(2).setIdleTimeout(100).setHousekeepingInterval(50).start();
+        assertEquals(2, pool.getIdleConnections());
+
+        final List<Connection> borrowed = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            borrowed.add(pool.getConnection());
+        }
+        borrowed.forEach(pool::returnConnection);
+        assertEquals(4, pool.getIdleConnections());
+
+        waitUntil(() -> pool.getTotalConnections() == 2);
+        assertEquals(2, pool.getIdleConnections());
+    }
+
+    @Test
+    void housekeeperRetiresConnectionsAfterTheirLifetime() throws Exception {
+        pool = TestDatabase.pool("lifetime", 2).setMaxLifetime(200).setHousekeepingInterval(50).start();
+        final Connection first = pool.getConnection();
+        pool.returnConnection(first);
+
+        waitUntil(() -> first.isClosed());
+        // the pool gets filled up to the minimum idle connection again
+        waitUntil(() -> pool.getIdleConnections() == 1);
+        final Connection next = pool.getConnection();
+        assertNotSame(first, next);
+        pool.returnConnection(next);
+    }
+
+    @Test
+    void concurrentDoubleReturnIsIgnored() throws Exception {
+        pool = TestDatabase.pool("double", 4).setConnectionTimeout(200).start();
+        for (int round = 0; round < 50; round++) {
+            final Connection conn = pool.getConnection();
+            hammer(8, 1, i -> pool.returnConnection(conn));
+            assertEquals(0, pool.getActiveConnections());
+        }
+
+        final Set<Connection> borrowed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(borrowed.add(pool.getConnection()));
+        }
+        assertThrows(ConnectionPoolException.class, pool::getConnection);
+        borrowed.forEach(pool::returnConnection);
+    }
+
+    @Test
+    void reportedLeakStaysWithItsBorrower() throws Exception {
+        pool = TestDatabase.pool("report", 2).setHousekeepingInterval(20).setLeakDetection(50, true).start();
+        final Connection slow = pool.getConnection();
+        Thread.sleep(200);
+
+        // the detection only reports the connection, it isnt closed like with the leak reclaim
+        assertFalse(slow.isClosed());
+        assertEquals(1, pool.getActiveConnections());
+        pool.returnConnection(slow);
+        assertEquals(0, pool.getActiveConnections());
+        assertSame(slow, pool.getConnection());
+    }
+
+    @Test
+    void leakedConnectionIsReclaimed() {
+        pool = TestDatabase.pool("leak", 2).setMinIdle(0).setConnectionTimeout(5_000)
+                .setHousekeepingInterval(50).setLeakReclaim(100).start();
+        final Connection leaked = pool.getConnection();
+        final Connection other = pool.getConnection();
+
+        final Connection next = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> pool.getConnection());
+        assertNotSame(leaked, next);
+        assertTrue(pool.getTotalConnections() <= 2);
+
+        // returning a reclaimed connection has no effect on the pool
+        pool.returnConnection(leaked);
+        pool.returnConnection(next);
+        pool.returnConnection(other);
+        assertEquals(0, pool.getActiveConnections());
+    }
+
+    @Test
+    void parallelQueriesGetTheirOwnResults() throws Exception {
+        pool = TestDatabase.init("parallel", 4);
+        final int operations = 500;
+        final AtomicInteger wrong = new AtomicInteger();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> hammer(16, operations, i -> {
+            if (!Integer.valueOf(i).equals(SQLRequest.runScalar("SELECT ?", Integer.class, i).value)) {
+                wrong.incrementAndGet();
+            }
+        }));
+
+        assertEquals(0, wrong.get());
+        assertEquals(0, pool.getActiveConnections());
+    }
+
+    /**
+     * Waits up to five seconds until the condition is true and fails otherwise
+     * @param condition the awaited condition
+     */
+    private static void waitUntil(final Condition condition) throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.test()) {
+            assertTrue(System.nanoTime() < deadline, "Condition wasnt met within five seconds");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Runs the task from multiple threads, which start at the same time, and rethrows the first failure
+     * @param threads the number of threads
+     * @param iterations the number of runs per thread
+     * @param task the task, which receives the iteration
+     */
+    private void hammer(final int threads, final int iterations, final Task task) throws Exception {
+        executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < iterations; i++) {
+                    task.run(i);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run(int iteration) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Condition {
+        boolean test() throws Exception;
+    }
+}
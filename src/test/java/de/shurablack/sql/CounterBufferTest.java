@@ -0,0 +1,74 @@
+package de.shurablack.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CounterBufferTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabase.init("counter", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void flushCoalescesIncrementsInChunks() {
+        createTable();
+        final CounterBuffer xp = CounterBuffer.create("user_xp", "xp", "guild_id", "user_id").setChunkSize(2);
+        for (long user = 1; user <= 3; user++) {
+            xp.increment(5, 1L, user);
+            xp.increment(user, 1L, user);
+        }
+        assertEquals(3, xp.getPendingRows());
+
+        assertEquals(3, xp.flush());
+        assertEquals(7L, xp(1L, 2L));
+        xp.increment(1, 1L, 2L);
+        assertEquals(1, xp.flush());
+        assertEquals(8L, xp(1L, 2L));
+
+        // rows without increments since the last flush are removed
+        assertEquals(0, xp.flush());
+        assertEquals(0, xp.getPendingRows());
+    }
+
+    @Test
+    void failedFlushIsRetried() {
+        final CounterBuffer xp = CounterBuffer.create("user_xp", "xp", "guild_id", "user_id");
+        xp.increment(5, 1L, 1L);
+        xp.increment(5, 1L, 1L);
+
+        // the table doesnt exist yet
+        assertEquals(0, xp.flush());
+        assertEquals(1, xp.getPendingRows());
+
+        createTable();
+        xp.increment(1, 1L, 1L);
+        assertEquals(1, xp.flush());
+        assertEquals(11L, xp(1L, 1L));
+    }
+
+    @Test
+    void bufferNeedsKeys() {
+        assertNull(CounterBuffer.create("user_xp", "xp"));
+    }
+
+    private static void createTable() {
+        SQLRequest.run("CREATE TABLE user_xp (guild_id BIGINT, user_id BIGINT, xp BIGINT NOT NULL, " +
+                "PRIMARY KEY (guild_id, user_id))");
+    }
+
+    private static long xp(final long guild, final long user) {
+        return SQLRequest.runScalar("SELECT xp FROM user_xp WHERE guild_id = ? AND user_id = ?",
+                Long.class, guild, user).value;
+    }
+}
@@ -0,0 +1,114 @@
+package de.shurablack.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FluentSqlBuilderTest {
+
+    @Test
+    void updateChainReplacesColumns() {
+        String sql = FluentSqlBuilder.create()
+                .UPDATE_CHAIN("users", List.of("id", "name"), List.of(FluentSqlBuilder.VALUE("1", "'a'")))
+                .toString();
+        assertEquals("INSERT INTO users (id, name) VALUES (1,'a') ON DUPLICATE KEY UPDATE id=VALUES(id),name=VALUES(name);", sql);
+    }
+
+    @Test
+    void updateChainWithPlaceholders() {
+        String sql = FluentSqlBuilder.create()
+                .UPDATE_CHAIN("users", List.of("id", "name"), 2)
+                .toString();
+        assertEquals("INSERT INTO users (id, name) VALUES (?,?),(?,?) ON DUPLICATE KEY UPDATE id=VALUES(id),name=VALUES(name);", sql);
+    }
+
+    @Test
+    void insertRowsWithPartialUpdate() {
+        String sql = FluentSqlBuilder.create()
+                .INSERT_ROWS("users", List.of("id", "name", "level"), 2)
+                .ON_DUPLICATE_UPDATE(List.of("level"))
+                .toString();
+        assertEquals("INSERT INTO users (id, name, level) VALUES (?,?,?),(?,?,?) ON DUPLICATE KEY UPDATE level=VALUES(level);", sql);
+    }
+
+    @Test
+    void incrementChainAddsCounters() {
+        String sql = FluentSqlBuilder.create()
+                .INCREMENT_CHAIN("xp", List.of("user_id"), List.of("xp"), 2)
+                .toString();
+        assertEquals("INSERT INTO xp (user_id, xp) VALUES (?,?),(?,?) ON DUPLICATE KEY UPDATE xp=xp+VALUES(xp);", sql);
+    }
+
+    @Test
+    void bindCollectsValuesInOrder() {
+        FluentSqlBuilder builder = FluentSqlBuilder.create()
+                .INSERT("users", FluentSqlBuilder.VALUE_PARAMS(2)).BIND(1, "a");
+        assertEquals("INSERT INTO users VALUES (?,?);", builder.toString());
+        assertArrayEquals(new Object[] {1, "a"}, builder.getParams());
+    }
+
+    @Test
+    void seekSelectsTheFirstPageForInvalidCursors() {
+        FluentSqlBuilder mismatch = FluentSqlBuilder.create().SELECT("*").FROM("xp")
+                .SEEK(PageCursor.after(10L), 5, FluentSqlBuilder.DESC, "xp", "user_id");
+        assertEquals("SELECT * FROM xp ORDER BY xp DESC, user_id DESC LIMIT 5;", mismatch.toString());
+        assertEquals(0, mismatch.getParams().length);
+
+        FluentSqlBuilder nullKey = FluentSqlBuilder.create().SELECT("*").FROM("xp")
+                .SEEK(PageCursor.after(null, 1L), 5, FluentSqlBuilder.DESC, "xp", "user_id");
+        assertEquals("SELECT * FROM xp ORDER BY xp DESC, user_id DESC LIMIT 5;", nullKey.toString());
+        assertEquals(0, nullKey.getParams().length);
+
+        // an invalid backward cursor doesnt flip the sort order
+        FluentSqlBuilder backward = FluentSqlBuilder.create().SELECT("*").FROM("xp")
+                .SEEK(PageCursor.before(10L), 5, FluentSqlBuilder.DESC, "xp", "user_id");
+        assertEquals("SELECT * FROM xp ORDER BY xp DESC, user_id DESC LIMIT 5;", backward.toString());
+    }
+
+    @Test
+    void paramMethodsBindAtTheirPlaceholder() {
+        FluentSqlBuilder update = FluentSqlBuilder.create().UPDATE("users")
+                .SET_PARAM("name", "a").SET_PARAM("level", 2)
+                .CONDITION_PARAM("id", FluentSqlBuilder.EQUAL, 1L);
+        assertEquals("UPDATE users SET name=?, level=? WHERE id=? ;", update.toString());
+        assertArrayEquals(new Object[] {"a", 2, 1L}, update.getParams());
+
+        FluentSqlBuilder page = FluentSqlBuilder.create().SELECT("*").FROM("xp")
+                .CONDITION_PARAM("guild_id", FluentSqlBuilder.EQUAL, 7L)
+                .SEEK(PageCursor.after(10L, 3L), 5, FluentSqlBuilder.DESC, "xp", "user_id");
+        assertEquals("SELECT * FROM xp WHERE guild_id=? AND (xp, user_id) < (?, ?) ORDER BY xp DESC, user_id DESC LIMIT 5;",
+                page.toString());
+        assertArrayEquals(new Object[] {7L, 10L, 3L}, page.getParams());
+
+        FluentSqlBuilder insert = FluentSqlBuilder.create().INSERT("users").VALUE_PARAM(1, "a");
+        assertEquals("INSERT INTO users VALUES (?,?) ;", insert.toString());
+        assertArrayEquals(new Object[] {1, "a"}, insert.getParams());
+    }
+
+    @Test
+    void freezeCountsPlaceholdersOutsideOfStrings() {
+        QueryTemplate template = FluentSqlBuilder.create()
+                .SELECT("*").FROM("users")
+                .WHERE(FluentSqlBuilder.CONDITION("name", FluentSqlBuilder.EQUAL, FluentSqlBuilder.STR("?")),
+                        FluentSqlBuilder.AND("level", FluentSqlBuilder.GREATER))
+                .freeze();
+        assertEquals("SELECT * FROM users WHERE name='?' AND level>?", template.getSql());
+        assertEquals(1, template.getParameterCount());
+    }
+
+    @Test
+    void seekContinuesAfterCursor() {
+        FluentSqlBuilder builder = FluentSqlBuilder.create()
+                .SELECT("user_id").FROM("xp")
+                .WHERE(FluentSqlBuilder.CONDITION("guild_id", FluentSqlBuilder.EQUAL, FluentSqlBuilder.PARAM)).BIND(1L)
+                .SEEK(PageCursor.after(50, 7L), 10, FluentSqlBuilder.DESC, "xp", "user_id");
+        assertEquals("SELECT user_id FROM xp WHERE guild_id=? AND (xp, user_id) < (?, ?) ORDER BY xp DESC, user_id DESC LIMIT 10",
+                builder.freeze().getSql());
+        assertArrayEquals(new Object[] {1L, 50, 7L}, builder.getParams());
+
+        assertEquals("SELECT user_id FROM xp ORDER BY xp ASC LIMIT 5",
+                FluentSqlBuilder.create().SELECT("user_id").FROM("xp").SEEK(null, 5, FluentSqlBuilder.ASC, "xp").freeze().getSql());
+    }
+}
@@ -0,0 +1,79 @@
+package de.shurablack.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    private ConnectionPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void tokenRoundTrip() {
+        final Timestamp time = Timestamp.valueOf("2026-10-18 12:30:45.123456789");
+        final PageCursor cursor = PageCursor.before(-5L, 1234567890123456789L, "näme", 2.5, true, null,
+                time, new BigDecimal("12.50"));
+        final String token = cursor.encode();
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+
+        final PageCursor decoded = PageCursor.decode(token);
+        assertTrue(decoded.isBackward());
+        assertArrayEquals(new Object[] {-5L, 1234567890123456789L, "näme", 2.5, true, null, time, new BigDecimal("12.50")},
+                decoded.getKeys());
+    }
+
+    @Test
+    void numericTokenFitsComponentId() {
+        final String token = PageCursor.after(987654L, 123456789012345678L).encode();
+        assertTrue(token.length() <= 20, token);
+        assertArrayEquals(new Object[] {987654L, 123456789012345678L}, PageCursor.decode(token).getKeys());
+    }
+
+    @Test
+    void invalidTokenIsNull() {
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode("AQ"));
+        assertNull(PageCursor.decode("not a token"));
+    }
+
+    @Test
+    void seekWalksPagesWithTies() {
+        pool = TestDatabase.init("seek", 2);
+        SQLRequest.run("CREATE TABLE xp (user_id BIGINT PRIMARY KEY, xp INT)");
+        for (long id = 1; id <= 10; id++) {
+            SQLRequest.run("INSERT INTO xp VALUES (?, ?)", id, (int) (id / 3));
+        }
+
+        final List<Long> seen = new ArrayList<>();
+        List<Long> page = List.of();
+        PageCursor cursor = null;
+        do {
+            final FluentSqlBuilder builder = FluentSqlBuilder.create().SELECT("user_id").FROM("xp")
+                    .SEEK(cursor, 3, FluentSqlBuilder.DESC, "xp", "user_id");
+            page = SQLRequest.runList(builder.freeze().getSql(), Long.class, builder.getParams());
+            seen.addAll(page);
+            final PageCursor next = PageCursor.after(page, id -> new Object[] {id / 3, id});
+            cursor = next == null ? null : PageCursor.decode(next.encode());
+        } while (!page.isEmpty());
+        assertEquals(List.of(10L, 9L, 8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L), seen);
+
+        final PageCursor back = PageCursor.before(7L / 3, 7L);
+        final FluentSqlBuilder builder = FluentSqlBuilder.create().SELECT("user_id").FROM("xp")
+                .SEEK(back, 3, FluentSqlBuilder.DESC, "xp", "user_id");
+        assertEquals(List.of(10L, 9L, 8L),
+                back.arrange(SQLRequest.runList(builder.freeze().getSql(), Long.class, builder.getParams())));
+    }
+}
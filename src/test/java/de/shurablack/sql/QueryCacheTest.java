@@ -0,0 +1,100 @@
+package de.shurablack.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCacheTest {
+
+    private static QueryCache.Key key(final String sql, final Object... params) {
+        return new QueryCache.Key('L', sql, String.class, params);
+    }
+
+    @Test
+    void getReturnsCachedValue() {
+        QueryCache cache = new QueryCache(10);
+        cache.put(key("SELECT * FROM users WHERE id = ?", 1), "value", Set.of("users"), null, cache.epoch(Set.of("users")));
+        assertEquals("value", cache.get(key("SELECT * FROM users WHERE id = ?", 1)));
+        assertNull(cache.get(key("SELECT * FROM users WHERE id = ?", 2)));
+    }
+
+    @Test
+    void expiredValueIsNotReturned() throws InterruptedException {
+        QueryCache cache = new QueryCache(10);
+        cache.put(key("SELECT 1"), "value", Collections.emptySet(), Duration.ofMillis(1), cache.epoch(Collections.emptySet()));
+        Thread.sleep(5);
+        assertNull(cache.get(key("SELECT 1")));
+    }
+
+    @Test
+    void expiredValueStaysAsFallback() throws InterruptedException {
+        QueryCache cache = new QueryCache(10);
+        cache.put(key("SELECT 1"), "value", Collections.emptySet(), Duration.ofMillis(1), cache.epoch(Collections.emptySet()));
+        Thread.sleep(5);
+        assertNull(cache.get(key("SELECT 1")));
+        assertEquals("value", cache.getStale(key("SELECT 1")));
+
+        cache.setMaxStale(Duration.ZERO);
+        assertNull(cache.getStale(key("SELECT 1")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidateRemovesOnlyTaggedValues() {
+        QueryCache cache = new QueryCache(10);
+        cache.put(key("SELECT * FROM users"), "users", Set.of("users"), null, cache.epoch(Set.of("users")));
+        cache.put(key("SELECT * FROM shop"), "shop", Set.of("shop"), null, cache.epoch(Set.of("shop")));
+        cache.invalidate("USERS");
+        assertNull(cache.get(key("SELECT * FROM users")));
+        assertEquals("shop", cache.get(key("SELECT * FROM shop")));
+    }
+
+    @Test
+    void valueLoadedDuringInvalidationIsNotCached() {
+        QueryCache cache = new QueryCache(10);
+        long epoch = cache.epoch(Set.of("users"));
+        cache.invalidate("users");
+        cache.put(key("SELECT * FROM users"), "stale", Set.of("users"), null, epoch);
+        assertNull(cache.get(key("SELECT * FROM users")));
+
+        epoch = cache.epoch(Set.of("users"));
+        cache.invalidateAll();
+        cache.put(key("SELECT * FROM users"), "stale", Set.of("users"), null, epoch);
+        assertNull(cache.get(key("SELECT * FROM users")));
+    }
+
+    @Test
+    void invalidationOfOtherTablesKeepsTheLoad() {
+        QueryCache cache = new QueryCache(10);
+        long epoch = cache.epoch(Set.of("users"));
+        cache.invalidate("shop");
+        cache.put(key("SELECT * FROM users"), "users", Set.of("users"), null, epoch);
+        assertEquals("users", cache.get(key("SELECT * FROM users")));
+    }
+
+    @Test
+    void frequentlyReadValueSurvivesScan() {
+        QueryCache cache = new QueryCache(10);
+        cache.put(key("SELECT * FROM settings"), "hot", Set.of("settings"), null, cache.epoch(Set.of("settings")));
+        for (int i = 0; i < 5; i++) {
+            cache.get(key("SELECT * FROM settings"));
+        }
+        for (int i = 0; i < 100; i++) {
+            cache.put(key("SELECT * FROM logs WHERE id = ?", i), "cold", Set.of("logs"), null, cache.epoch(Set.of("logs")));
+        }
+        assertEquals(10, cache.size());
+        assertEquals("hot", cache.get(key("SELECT * FROM settings")));
+    }
+
+    @Test
+    void tablesAreExtractedFromStatements() {
+        assertEquals(Set.of("users", "guilds"), SqlTables.of("SELECT * FROM users u, `guilds` g WHERE u.id = g.id"));
+        assertEquals(Set.of("xp", "old"), SqlTables.of("DELETE FROM xp WHERE id IN (SELECT id FROM old)"));
+        assertEquals(Set.of("logs"), SqlTables.of("TRUNCATE TABLE logs"));
+        assertTrue(SqlTables.of("SELECT 1").isEmpty());
+    }
+}
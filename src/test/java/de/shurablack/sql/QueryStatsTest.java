@@ -0,0 +1,66 @@
+package de.shurablack.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryStatsTest {
+
+    private ConnectionPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+        QueryStats.reset();
+    }
+
+    @Test
+    void fingerprintStripsLiterals() {
+        assertEquals("SELECT * FROM t1 WHERE name=? AND id IN (?+) AND `col 2`>?",
+                QueryStats.fingerprint("SELECT *  FROM t1\n WHERE name='it''s' AND id IN (1, 2,3) AND `col 2`>-0.5;"));
+        assertEquals(QueryStats.fingerprint("INSERT INTO xp (a, b) VALUES (?,?),(?,?)"),
+                QueryStats.fingerprint("INSERT INTO xp (a, b) VALUES (1, 'x')"));
+    }
+
+    @Test
+    void percentileIsWithinBucketPrecision() {
+        final QueryStats.Statement statement = new QueryStats.Statement("test");
+        for (int i = 1; i <= 1000; i++) {
+            statement.record(i * 1_000_000L, 1, false);
+        }
+        assertEquals(990, statement.getPercentile(0.99), 990 * 0.125);
+        assertEquals(1000, statement.getMaxTime(), 0.001);
+        assertEquals(1000, statement.getRows());
+    }
+
+    @Test
+    void executionsAreRecordedPerShape() {
+        pool = TestDatabase.init("stats", 2);
+        QueryStats.reset();
+
+        SQLRequest.run("CREATE TABLE stats (id INT PRIMARY KEY)");
+        for (int i = 0; i < 5; i++) {
+            SQLRequest.run("INSERT INTO stats VALUES (?)", i);
+        }
+        SQLRequest.runList("SELECT id FROM stats WHERE id > 1", Integer.class);
+        SQLRequest.runList("SELECT id FROM stats WHERE id > 2", Integer.class);
+        SQLRequest.run("INSERT INTO stats VALUES (?)", 0);
+
+        final QueryStats.Statement insert = QueryStats.get("INSERT INTO stats VALUES (?)");
+        assertEquals(6, insert.getCount());
+        assertEquals(1, insert.getErrors());
+        assertEquals(5, insert.getRows());
+
+        final QueryStats.Statement select = QueryStats.get("SELECT id FROM stats WHERE id > 0");
+        assertEquals(2, select.getCount());
+        assertEquals(5, select.getRows());
+
+        final List<QueryStats.Statement> top = QueryStats.top(QueryStats.BY_COUNT, 1);
+        assertSame(insert, top.get(0));
+    }
+}
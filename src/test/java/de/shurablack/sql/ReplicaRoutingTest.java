@@ -0,0 +1,75 @@
+package de.shurablack.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaRoutingTest {
+
+    private ConnectionPool primary;
+    private ConnectionPool replica;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = TestDatabase.pool("primary", 2);
+        replica = TestDatabase.pool("replica", 2);
+        primary.addReplica(replica).start();
+        SQLRequest.init(primary);
+        SQLRequest.setCache(null);
+
+        SQLRequest.run("CREATE TABLE origin (name VARCHAR(10))");
+        SQLRequest.run("INSERT INTO origin VALUES (?)", "primary");
+        final Connection conn = replica.getConnection();
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("CREATE TABLE origin (name VARCHAR(10))");
+            statement.execute("INSERT INTO origin VALUES ('replica')");
+        } finally {
+            replica.returnConnection(conn);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.close();
+    }
+
+    @Test
+    void readsAreRoutedToReplica() {
+        assertEquals(List.of("replica"), SQLRequest.runList("SELECT name FROM origin", String.class));
+        assertEquals("replica", SQLRequest.runScalar("SELECT name FROM origin WHERE 1 = ?", String.class, 1).value);
+    }
+
+    @Test
+    void writesAndTransactionsUsePrimary() {
+        SQLRequest.run("UPDATE origin SET name = ?", "written");
+        final String name = SQLRequest.transactionResult(request -> {
+            final SQLRequest.Result<String> result = new SQLRequest.Result<>();
+            request.result("SELECT name FROM origin", String.class, result);
+            return result.value;
+        });
+        assertEquals("written", name);
+        assertEquals(List.of("replica"), SQLRequest.runList("SELECT name FROM origin", String.class));
+    }
+
+    @Test
+    void connectionsAreReturnedToOwningPool() {
+        final Connection conn = primary.getReadConnection();
+        assertEquals(1, replica.getActiveConnections());
+        primary.returnConnection(conn);
+        assertEquals(0, replica.getActiveConnections());
+        assertEquals(0, primary.getActiveConnections());
+    }
+
+    @Test
+    void closedReplicaFallsBackToPrimary() {
+        replica.close();
+        assertEquals(List.of("primary"), SQLRequest.runList("SELECT name FROM origin", String.class));
+    }
+}
@@ -0,0 +1,74 @@
+package de.shurablack.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowCursorTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabase.init("cursor", 2).setFetchSize(7);
+        SQLRequest.run("CREATE TABLE members (id BIGINT PRIMARY KEY, name VARCHAR(20))");
+        try (SQLBatch batch = SQLRequest.batch("INSERT INTO members (id, name) VALUES (?, ?)")) {
+            for (long i = 0; i < 50; i++) {
+                batch.add(i, "member" + i);
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void forEachReadsEveryRow() {
+        final List<Long> ids = new ArrayList<>();
+        final long count = SQLRequest.forEach("SELECT id FROM members WHERE id >= ? ORDER BY id",
+                Long.class, ids::add, 10L);
+
+        assertEquals(40, count);
+        assertEquals(40, ids.size());
+        assertEquals(10L, ids.get(0));
+        assertEquals(49L, ids.get(39));
+        assertEquals(0, pool.getActiveConnections());
+    }
+
+    @Test
+    void streamBorrowsLazilyAndReturnsOnClose() {
+        final List<String> names;
+        try (Stream<String> stream = SQLRequest.stream("SELECT name FROM members ORDER BY id", String.class)) {
+            assertEquals(0, pool.getActiveConnections());
+            names = stream.limit(3).collect(Collectors.toList());
+            assertEquals(1, pool.getActiveConnections());
+        }
+
+        assertEquals(List.of("member0", "member1", "member2"), names);
+        assertEquals(0, pool.getActiveConnections());
+    }
+
+    @Test
+    void consumedStreamReturnsTheConnection() {
+        try (Stream<Long> stream = SQLRequest.stream("SELECT id FROM members", Long.class)) {
+            assertEquals(50, stream.count());
+            assertEquals(0, pool.getActiveConnections());
+        }
+    }
+
+    @Test
+    void failedQueryThrows() {
+        assertThrows(SQLRequestException.class,
+                () -> SQLRequest.forEach("SELECT id FROM missing", Long.class, id -> { }));
+        assertEquals(0, pool.getActiveConnections());
+    }
+}
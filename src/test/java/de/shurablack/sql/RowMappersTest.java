@@ -0,0 +1,136 @@
+package de.shurablack.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowMappersTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabase.init("mappers", 2);
+        SQLRequest.run("CREATE TABLE members (user_id BIGINT PRIMARY KEY, name VARCHAR(20), level INT)");
+        SQLRequest.run("INSERT INTO members (user_id, name, level) VALUES (1, 'a', 3), (2, 'b', NULL)");
+        RowMappers.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void singleColumnIsReadAsValue() {
+        assertEquals(List.of("a", "b"), SQLRequest.runList("SELECT name FROM members ORDER BY user_id", String.class));
+    }
+
+    @Test
+    void primitiveClassIsReadBoxed() {
+        assertEquals(List.of(3), SQLRequest.runList("SELECT level FROM members WHERE level IS NOT NULL", int.class));
+        assertEquals(List.of(1L, 2L), SQLRequest.runList("SELECT user_id FROM members ORDER BY user_id", long.class));
+    }
+
+    @Test
+    void beanIsFilledBySetters() {
+        final List<MemberBean> members = SQLRequest.runList("SELECT * FROM members ORDER BY user_id", MemberBean.class);
+
+        assertEquals(2, members.size());
+        assertEquals(1L, members.get(0).getUserId());
+        assertEquals("a", members.get(0).getName());
+        assertEquals(3, members.get(0).getLevel());
+        // null values of primitive properties are skipped
+        assertEquals(0, members.get(1).getLevel());
+    }
+
+    @Test
+    void constructorIsMatchedByPosition() {
+        final List<Member> members = SQLRequest.runList("SELECT user_id, name FROM members ORDER BY user_id", Member.class);
+
+        assertEquals(2, members.size());
+        assertEquals(2L, members.get(1).id);
+        assertEquals("b", members.get(1).name);
+    }
+
+    @Test
+    void unmatchedConstructorFails() {
+        assertThrows(SQLException.class, () -> mapper(Member.class, "SELECT * FROM members"));
+    }
+
+    @Test
+    void mapperIsCachedPerColumnLayout() throws SQLException {
+        final RowMapper<MemberBean> first = mapper(MemberBean.class, "SELECT * FROM members");
+        assertSame(first, mapper(MemberBean.class, "SELECT * FROM members"));
+        assertNotSame(first, mapper(MemberBean.class, "SELECT name FROM members"));
+
+        RowMappers.clear();
+        assertNotSame(first, mapper(MemberBean.class, "SELECT * FROM members"));
+    }
+
+    @Test
+    void columnsMatchWithoutCaseAndUnderscores() {
+        assertTrue(RowMappers.matches("userId", "user_id"));
+        assertTrue(RowMappers.matches("name", "NAME"));
+        assertFalse(RowMappers.matches("name", "user_id"));
+    }
+
+    private <T> RowMapper<T> mapper(final Class<T> cls, final String sql) throws SQLException {
+        final Connection conn = pool.getConnection();
+        try (Statement statement = conn.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            return RowMappers.of(cls, rs.getMetaData());
+        } finally {
+            pool.returnConnection(conn);
+        }
+    }
+
+    public static class MemberBean {
+
+        private long userId;
+        private String name;
+        private int level;
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public void setUserId(final long userId) {
+            this.userId = userId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public void setLevel(final int level) {
+            this.level = level;
+        }
+    }
+
+    public static class Member {
+
+        private final long id;
+        private final String name;
+
+        Member(final long id, final String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package de.shurablack.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SQLBatchTest {
+
+    private static final String INSERT = "INSERT INTO members (id, name) VALUES (?, ?)";
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabase.init("batch", 2);
+        SQLRequest.run("CREATE TABLE members (id BIGINT PRIMARY KEY, name VARCHAR(20))");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void rowsAreSentInChunks() {
+        try (SQLBatch batch = SQLRequest.batch(INSERT).setChunkSize(10)) {
+            for (long i = 0; i < 25; i++) {
+                batch.add(i, "member" + i);
+            }
+            assertEquals(20, batch.getExecutedRows());
+            batch.close();
+            assertEquals(25, batch.getExecutedRows());
+            assertFalse(batch.isFailed());
+        }
+        assertEquals(25L, count());
+        assertEquals(0, pool.getActiveConnections());
+    }
+
+    @Test
+    void failedChunkRollsBackTheTransaction() {
+        final SQLBatch batch = SQLRequest.batch(INSERT).setChunkSize(2).setTransactional(true);
+        batch.add(1L, "a").add(2L, "b").add(1L, "duplicate").add(3L, "c");
+        batch.close();
+
+        assertTrue(batch.isFailed());
+        assertEquals(0L, count());
+        assertEquals(0, pool.getActiveConnections());
+    }
+
+    @Test
+    void failedChunkKeepsEarlierChunksWithoutTransaction() {
+        final SQLBatch batch = SQLRequest.batch(INSERT).setChunkSize(2);
+        batch.add(1L, "a").add(2L, "b").add(1L, "duplicate").add(3L, "c");
+        // rows after the failure are ignored
+        batch.add(4L, "d");
+        batch.close();
+
+        assertTrue(batch.isFailed());
+        assertEquals(2, batch.getExecutedRows());
+        assertNull(SQLRequest.runScalar("SELECT name FROM members WHERE id = ?", String.class, 4L).value);
+        assertEquals("a", SQLRequest.runScalar("SELECT name FROM members WHERE id = ?", String.class, 1L).value);
+    }
+
+    private static long count() {
+        return SQLRequest.runScalar("SELECT COUNT(*) FROM members", Long.class).value;
+    }
+}
@@ -0,0 +1,81 @@
+package de.shurablack.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCacheTest {
+
+    private ConnectionPool pool;
+    private Connection conn;
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabase.pool("statements", 1).start();
+        conn = pool.getConnection();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.returnConnection(conn);
+        pool.close();
+    }
+
+    @Test
+    void releasedStatementIsReused() throws Exception {
+        final StatementCache cache = new StatementCache(2);
+        final PreparedStatement first = cache.take(conn, "SELECT ?");
+        first.setInt(1, 1);
+        cache.release("SELECT ?", first);
+
+        final PreparedStatement second = cache.take(conn, "SELECT ?");
+        assertSame(first, second);
+        // the values of the previous use got cleared
+        assertThrows(Exception.class, second::executeQuery);
+        cache.release("SELECT ?", second);
+    }
+
+    @Test
+    void nestedUseGetsItsOwnStatement() throws Exception {
+        final StatementCache cache = new StatementCache(2);
+        final PreparedStatement outer = cache.take(conn, "SELECT 1");
+        final PreparedStatement inner = cache.take(conn, "SELECT 1");
+        assertNotSame(outer, inner);
+
+        cache.release("SELECT 1", inner);
+        cache.release("SELECT 1", outer);
+        assertEquals(1, cache.size());
+        assertTrue(inner.isClosed());
+        assertFalse(outer.isClosed());
+    }
+
+    @Test
+    void leastRecentlyUsedStatementIsClosed() throws Exception {
+        final StatementCache cache = new StatementCache(2);
+        final PreparedStatement a = cache.take(conn, "SELECT 1");
+        final PreparedStatement b = cache.take(conn, "SELECT 2");
+        final PreparedStatement c = cache.take(conn, "SELECT 3");
+        cache.release("SELECT 1", a);
+        cache.release("SELECT 2", b);
+        cache.release("SELECT 3", c);
+
+        assertEquals(2, cache.size());
+        assertTrue(a.isClosed());
+        assertFalse(b.isClosed());
+        assertFalse(c.isClosed());
+    }
+
+    @Test
+    void disabledCacheClosesStatements() throws Exception {
+        final StatementCache cache = new StatementCache(0);
+        final PreparedStatement statement = cache.take(conn, "SELECT 1");
+        cache.release("SELECT 1", statement);
+        assertTrue(statement.isClosed());
+        assertEquals(0, cache.size());
+    }
+}
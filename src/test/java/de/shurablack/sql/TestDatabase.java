@@ -0,0 +1,62 @@
+package de.shurablack.sql;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the databases of the SQL tests.
+ * <br><br>
+ * By default every test gets its own embedded H2 database in MySQL compatibility mode.
+ * The Maven properties "db.test.url", "db.test.username", "db.test.password" and "db.test.driver" point the
+ * tests at another database, "{name}" in the URL is replaced by a unique name per test database.
+ */
+public final class TestDatabase {
+
+    /** URL template of the test databases */
+    static final String URL = System.getProperty("db.test.url", "jdbc:h2:mem:{name};MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+
+    /** Username of the test databases */
+    static final String USERNAME = System.getProperty("db.test.username", "sa");
+
+    /** Password of the test databases */
+    static final String PASSWORD = System.getProperty("db.test.password", "");
+
+    /** Counter for unique database names */
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    static {
+        ConnectionPool.registerDriver(System.getProperty("db.test.driver", ConnectionPool.DRIVER_H2));
+    }
+
+    private TestDatabase() { }
+
+    /**
+     * @param name the prefix of the database name
+     * @return the URL of a new database
+     */
+    public static String url(final String name) {
+        return URL.replace("{name}", name + DATABASES.incrementAndGet());
+    }
+
+    /**
+     * Creates a pool of a new database, which keeps one connection open, so the database isnt dropped
+     * @param name the prefix of the database name
+     * @param size the maximum pool size
+     * @return the not yet started pool
+     */
+    public static ConnectionPool pool(final String name, final int size) {
+        return new ConnectionPool(url(name), USERNAME, PASSWORD, size).setMinIdle(1);
+    }
+
+    /**
+     * Creates and starts a pool of a new database and initializes {@link SQLRequest} with it
+     * @param name the prefix of the database name
+     * @param size the maximum pool size
+     * @return the started pool
+     */
+    public static ConnectionPool init(final String name, final int size) {
+        final ConnectionPool pool = pool(name, size).start();
+        SQLRequest.init(pool);
+        SQLRequest.setCache(null);
+        return pool;
+    }
+}
@@ -0,0 +1,108 @@
+package de.shurablack.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionTest {
+
+    private static final String INSERT = "INSERT INTO members (id, name) VALUES (?, ?)";
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = TestDatabase.init("transaction", 2);
+        SQLRequest.run("CREATE TABLE members (id BIGINT PRIMARY KEY, name VARCHAR(20))");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void statementsAreCommittedTogether() {
+        SQLRequest.transaction(request -> request
+                .execute(INSERT, 1L, "a")
+                .execute(INSERT, 2L, "b"));
+
+        assertEquals(2L, count());
+        assertEquals(0, pool.getActiveConnections());
+    }
+
+    @Test
+    void throwingCallbackRollsBack() {
+        final SQLRequestException e = assertThrows(SQLRequestException.class, () -> SQLRequest.transaction(request -> {
+            request.execute(INSERT, 1L, "a");
+            throw new IOException("failed");
+        }));
+        assertInstanceOf(IOException.class, e.getCause());
+
+        assertThrows(IllegalStateException.class, () -> SQLRequest.transaction(request -> {
+            request.execute(INSERT, 1L, "a");
+            throw new IllegalStateException();
+        }));
+
+        assertEquals(0L, count());
+        assertEquals(0, pool.getActiveConnections());
+    }
+
+    @Test
+    void failingStatementRollsBack() {
+        assertThrows(SQLRequestException.class, () -> SQLRequest.transaction(request -> request
+                .execute(INSERT, 1L, "a")
+                .execute(INSERT, 1L, "duplicate")));
+
+        assertEquals(0L, count());
+        assertEquals(0, pool.getActiveConnections());
+    }
+
+    @Test
+    void rollbackToSavepointKeepsEarlierStatements() {
+        SQLRequest.transaction(request -> {
+            request.execute(INSERT, 1L, "a");
+            final Savepoint savepoint = request.savepoint();
+            assertNotNull(savepoint);
+            request.execute(INSERT, 2L, "b");
+            request.rollbackTo(savepoint);
+            request.execute(INSERT, 3L, "c");
+        });
+
+        assertEquals(List.of(1L, 3L), SQLRequest.runList("SELECT id FROM members ORDER BY id", Long.class));
+    }
+
+    @Test
+    void savepointOutsideTransactionIsNull() {
+        final SQLRequest request = SQLRequest.create().connect();
+        try {
+            assertNull(request.savepoint());
+        } finally {
+            request.close();
+        }
+    }
+
+    @Test
+    void transactionResultIsReturnedAfterCommit() {
+        final List<String> names = SQLRequest.transactionResult(request -> {
+            request.execute(INSERT, 1L, "a").execute(INSERT, 2L, "b");
+            final List<String> retval = new ArrayList<>();
+            request.result("SELECT name FROM members WHERE id > ? ORDER BY id", String.class, retval, 0L);
+            return retval;
+        });
+
+        assertEquals(List.of("a", "b"), names);
+        assertEquals(2L, count());
+    }
+
+    private static long count() {
+        return SQLRequest.runScalar("SELECT COUNT(*) FROM members", Long.class).value;
+    }
+}
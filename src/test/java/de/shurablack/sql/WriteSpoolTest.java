@@ -0,0 +1,102 @@
+package de.shurablack.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteSpoolTest {
+
+    @TempDir
+    Path dir;
+
+    private ConnectionPool pool;
+    private ConnectionPool unreachable;
+    private WriteSpool spool;
+
+    @AfterEach
+    void tearDown() {
+        SQLRequest.setSpool(null);
+        if (spool != null) {
+            spool.close();
+        }
+        if (unreachable != null) {
+            unreachable.close();
+        }
+        pool.close();
+    }
+
+    @Test
+    void spooledStatementsSurviveRestartAndReplayInOrder() {
+        pool = TestDatabase.init("spool", 2);
+        SQLRequest.run("CREATE TABLE wallet (id BIGINT PRIMARY KEY, coins DECIMAL(10, 2), note VARCHAR(20))");
+
+        spool = WriteSpool.open(dir.resolve("sql.spool"));
+        assertTrue(spool.append("INSERT INTO wallet (id, coins, note) VALUES (?, ?, ?)", 1L, new BigDecimal("1.50"), null));
+        assertTrue(spool.append("UPDATE wallet SET coins = coins * ?, note = ? WHERE id = ?", 2, "doubled", 1L));
+        spool.close();
+
+        spool = WriteSpool.open(dir.resolve("sql.spool"));
+        assertEquals(2, spool.getPendingCount());
+        assertEquals(2, spool.replay());
+        assertFalse(spool.hasPending());
+        assertEquals(List.of("doubled"), SQLRequest.runList("SELECT note FROM wallet", String.class));
+        assertEquals(0, new BigDecimal("3.00").compareTo(
+                SQLRequest.runScalar("SELECT coins FROM wallet", BigDecimal.class).value));
+
+        // the drained file is reused, so the replayed statements dont come back
+        spool.close();
+        spool = WriteSpool.open(dir.resolve("sql.spool"));
+        assertEquals(0, spool.getPendingCount());
+    }
+
+    @Test
+    void onlyBindableValuesAreSpooled() {
+        pool = TestDatabase.init("bindable", 2);
+        SQLRequest.run("CREATE TABLE events (id UUID PRIMARY KEY, happened DATE)");
+
+        spool = WriteSpool.open(dir.resolve("bindable.spool"));
+        final UUID id = UUID.randomUUID();
+        assertTrue(spool.append("INSERT INTO events (id, happened) VALUES (?, ?)", id, LocalDate.of(2026, 10, 18)));
+        assertFalse(spool.append("INSERT INTO events (id) VALUES (?)", new ArrayList<>(List.of(1))));
+        assertEquals(1, spool.getPendingCount());
+
+        assertEquals(1, spool.replay());
+        assertEquals(1L, SQLRequest.runScalar("SELECT COUNT(*) FROM events WHERE happened = ?", Long.class,
+                LocalDate.of(2026, 10, 18)).value);
+    }
+
+    @Test
+    void runIsSpooledWhileCircuitIsOpen() {
+        pool = TestDatabase.init("outage", 2);
+        SQLRequest.run("CREATE TABLE log (id INT PRIMARY KEY)");
+
+        unreachable = new ConnectionPool("jdbc:h2:tcp://localhost:1/unreachable", "sa", "", 2)
+                .setConnectionTimeout(5_000);
+        unreachable.getCircuitBreaker().setFailureThreshold(1);
+        SQLRequest.init(unreachable.start());
+        spool = WriteSpool.open(dir.resolve("outage.spool"));
+        SQLRequest.setSpool(spool);
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            SQLRequest.run("INSERT INTO log (id) VALUES (?)", i);
+        }
+        assertTrue(System.nanoTime() - start < 4_000_000_000L, "Writes waited for the connection timeout");
+        assertEquals(CircuitBreaker.State.OPEN, unreachable.getCircuitBreaker().getState());
+        assertThrows(ConnectionPoolException.class, unreachable::getConnection);
+        assertEquals(3, spool.getPendingCount());
+
+        SQLRequest.init(pool);
+        assertEquals(3, spool.replay());
+        assertEquals(List.of(0, 1, 2), SQLRequest.runList("SELECT id FROM log ORDER BY id", Integer.class));
+    }
+}